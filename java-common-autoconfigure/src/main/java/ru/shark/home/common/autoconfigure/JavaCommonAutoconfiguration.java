@@ -1,23 +1,70 @@
 package ru.shark.home.common.autoconfigure;
 
+import org.dozer.Mapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.shark.home.common.dao.repository.JpaBaseRepositoryPostProcessor;
 import ru.shark.home.common.dao.repository.query.generator.HqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlKeysetClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.HqlOrderClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.HqlSearchClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SearchDialect;
 import ru.shark.home.common.dao.repository.query.generator.SqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlKeysetClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.SqlOrderClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.SqlSearchClauseGenerator;
+import ru.shark.home.common.dao.service.BaseDao;
+import ru.shark.home.common.dao.service.ConcurrentCountExecutor;
+import ru.shark.home.common.dao.service.HqlQueryService;
+import ru.shark.home.common.dao.service.NamedQueryPrecompiler;
+import ru.shark.home.common.dao.service.ParamsQueryCache;
+import ru.shark.home.common.dao.service.ParsedQueryCache;
+import ru.shark.home.common.dao.service.QueryResultCache;
+import ru.shark.home.common.dao.service.ReadOnlyQueryExecutor;
+import ru.shark.home.common.dao.service.SqlQueryService;
+import ru.shark.home.common.dao.util.ColumnNullability;
+import ru.shark.home.common.dao.util.CompiledMappingEngine;
+import ru.shark.home.common.dao.util.InListPadding;
+import ru.shark.home.common.dao.util.MappingEngine;
+import ru.shark.home.common.dao.util.ParallelConversionExecutor;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 public class JavaCommonAutoconfiguration {
 
+    /**
+     * Формирование условий поиска по диалекту Hibernate из настроек JPA (например, ILIKE для PostgreSQL).
+     * Включается свойством java-common.search.dialect-aware=true, без него условия формируются через lower().
+     */
     @Bean
     @ConditionalOnMissingBean
-    public SqlSearchClauseGenerator sqlSearchClauseGenerator() {
-        return new SqlSearchClauseGenerator();
+    @ConditionalOnProperty(prefix = "java-common.search", name = "dialect-aware", havingValue = "true")
+    public SearchDialect searchDialect(EntityManagerFactory entityManagerFactory) {
+        return SearchDialect.of(entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SqlSearchClauseGenerator sqlSearchClauseGenerator(ObjectProvider<SearchDialect> searchDialect) {
+        SqlSearchClauseGenerator generator = new SqlSearchClauseGenerator();
+        searchDialect.ifAvailable(generator::setSearchDialect);
+        return generator;
     }
 
     @Bean
@@ -28,8 +75,10 @@ public class JavaCommonAutoconfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public SqlFilterClauseGenerator sqlFilterClauseGenerator() {
-        return  new SqlFilterClauseGenerator();
+    public SqlFilterClauseGenerator sqlFilterClauseGenerator(ObjectProvider<SearchDialect> searchDialect) {
+        SqlFilterClauseGenerator generator = new SqlFilterClauseGenerator();
+        searchDialect.ifAvailable(generator::setSearchDialect);
+        return generator;
     }
 
     @Bean
@@ -50,9 +99,179 @@ public class JavaCommonAutoconfiguration {
         return new HqlFilterClauseGenerator();
     }
 
+    /**
+     * Генератор условия выборки по ключу для нативных запросов. Сравнение кортежей включается
+     * свойством java-common.pagination.keyset.row-value=true и применяется только к полям сортировки,
+     * не допускающим пустых значений по отображению сущностей.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SqlKeysetClauseGenerator sqlKeysetClauseGenerator(EntityManagerFactory entityManagerFactory,
+            @Value("${java-common.pagination.keyset.row-value:false}") boolean rowValueComparison) {
+        SqlKeysetClauseGenerator generator = new SqlKeysetClauseGenerator();
+        generator.setRowValueComparison(rowValueComparison);
+        if (rowValueComparison) {
+            generator.setColumnNullability(ColumnNullability.of(entityManagerFactory));
+        }
+        return generator;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HqlKeysetClauseGenerator hqlKeysetClauseGenerator() {
+        return new HqlKeysetClauseGenerator();
+    }
+
+    /**
+     * Дополнение списков значений фильтров IN до степени двойки, но не более порога
+     * (свойство java-common.filter.in-list-padding.threshold, не более 1000). Списки длиннее порога не дополняются.
+     * Включается свойством java-common.filter.in-list-padding.enabled=true. Вместо него можно включить
+     * hibernate.query.in_clause_parameter_padding=true.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "java-common.filter.in-list-padding", name = "enabled", havingValue = "true")
+    public InListPadding inListPadding(
+            @Value("${java-common.filter.in-list-padding.threshold:" + InListPadding.DEFAULT_THRESHOLD + "}") int threshold) {
+        return new InListPadding(threshold);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public QueryClauseGenerator queryClauseGenerator() {
         return new QueryClauseGenerator();
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ParsedQueryCache parsedQueryCache() {
+        return new ParsedQueryCache();
+    }
+
+    /**
+     * Кэш шаблонов запросов, общий для HqlQueryService и SqlQueryService.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ParamsQueryCache paramsQueryCache() {
+        return new ParamsQueryCache();
+    }
+
+    /**
+     * Предварительный разбор именованных запросов при старте.
+     * Включается свойством java-common.named-queries.precompile=true.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "java-common.named-queries", name = "precompile", havingValue = "true")
+    public NamedQueryPrecompiler namedQueryPrecompiler(EntityManagerFactory entityManagerFactory,
+                                                       HqlQueryService hqlQueryService,
+                                                       SqlQueryService sqlQueryService,
+                                                       ParsedQueryCache parsedQueryCache) {
+        return new NamedQueryPrecompiler(entityManagerFactory, hqlQueryService, sqlQueryService, parsedQueryCache);
+    }
+
+    /**
+     * Пул потоков для параллельного выполнения запросов количества при пагинации.
+     * Может быть переопределен бином с тем же именем.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "paginationCountTaskExecutor")
+    @ConditionalOnProperty(prefix = "java-common.pagination.concurrent-count", name = "enabled", havingValue = "true")
+    public ExecutorService paginationCountTaskExecutor(
+            @Value("${java-common.pagination.concurrent-count.pool-size:4}") int poolSize) {
+        return Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("pagination-count-"));
+    }
+
+    /**
+     * Параллельное выполнение запросов данных и количества при пагинации.
+     * Включается свойством java-common.pagination.concurrent-count.enabled=true, время ожидания задается
+     * свойством java-common.pagination.concurrent-count.timeout в миллисекундах.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "java-common.pagination.concurrent-count", name = "enabled", havingValue = "true")
+    public ConcurrentCountExecutor concurrentCountExecutor(EntityManagerFactory entityManagerFactory,
+                                                           @Qualifier("paginationCountTaskExecutor") Executor executor,
+                                                           @Value("${java-common.pagination.concurrent-count.timeout:30000}") long timeout) {
+        return new ConcurrentCountExecutor(entityManagerFactory, executor, timeout);
+    }
+
+    /**
+     * Выполнение методов чтения BaseDao вне транзакции вызывающего кода в транзакции только для чтения.
+     * Отключается свойством java-common.dao.read-only-queries=false, тогда методы чтения выполняются
+     * в транзакции чтения-записи.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReadOnlyQueryExecutor readOnlyQueryExecutor(PlatformTransactionManager transactionManager,
+                                                       @Value("${java-common.dao.read-only-queries:true}") boolean readOnly) {
+        return new ReadOnlyQueryExecutor(transactionManager, readOnly);
+    }
+
+    /**
+     * Кэш результатов запросов с пагинацией BaseDao. Включается свойством java-common.query-result-cache.enabled=true.
+     * Максимальное количество результатов задается свойством java-common.query-result-cache.maximum-size,
+     * время хранения в миллисекундах - свойством java-common.query-result-cache.ttl.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "java-common.query-result-cache", name = "enabled", havingValue = "true")
+    public QueryResultCache queryResultCache(EntityManagerFactory entityManagerFactory,
+                                             @Value("${java-common.query-result-cache.maximum-size:1000}") long maximumSize,
+                                             @Value("${java-common.query-result-cache.ttl:60000}") long ttl) {
+        return new QueryResultCache(entityManagerFactory, maximumSize, ttl);
+    }
+
+    /**
+     * Настройки Hibernate для пакетного сохранения: размер пакета JDBC (свойство java-common.jpa.batch.size)
+     * и упорядочивание вставок и обновлений для объединения операторов в пакеты. Значения, заданные приложением
+     * в spring.jpa.properties, не переопределяются. Отключается свойством java-common.jpa.batch.enabled=false.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "java-common.jpa.batch", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public HibernatePropertiesCustomizer batchHibernatePropertiesCustomizer(
+            @Value("${java-common.jpa.batch.size:" + BaseDao.DEFAULT_BATCH_SIZE + "}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize));
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, "true");
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, "true");
+            properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, "true");
+        };
+    }
+
+    /**
+     * Скомпилированный механизм преобразования сущностей и DTO для ConverterUtil.
+     * Включается свойством java-common.mapping.engine=compiled, неподдерживаемые преобразования выполняются Dozer.
+     */
+    @Bean
+    @ConditionalOnMissingBean(MappingEngine.class)
+    @ConditionalOnProperty(prefix = "java-common.mapping", name = "engine", havingValue = "compiled")
+    public MappingEngine compiledMappingEngine(ObjectProvider<Mapper> mapper) {
+        return new CompiledMappingEngine(mapper.getIfAvailable());
+    }
+
+    /**
+     * Параллельное преобразование больших списков в ConverterUtil.
+     * Включается свойством java-common.conversion.parallel.enabled=true. Порог размера списка, размер части
+     * и количество потоков задаются свойствами threshold, chunk-size и parallelism, политика для сущностей -
+     * свойством entity-policy (DETACHED_ONLY, ALWAYS, NEVER).
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "java-common.conversion.parallel", name = "enabled", havingValue = "true")
+    public ParallelConversionExecutor parallelConversionExecutor(
+            @Value("${java-common.conversion.parallel.threshold:" + ParallelConversionExecutor.DEFAULT_THRESHOLD + "}") int threshold,
+            @Value("${java-common.conversion.parallel.chunk-size:" + ParallelConversionExecutor.DEFAULT_CHUNK_SIZE + "}") int chunkSize,
+            @Value("${java-common.conversion.parallel.parallelism:0}") int parallelism,
+            @Value("${java-common.conversion.parallel.entity-policy:DETACHED_ONLY}") ParallelConversionExecutor.EntityPolicy entityPolicy) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        return new ParallelConversionExecutor(pool, threshold, chunkSize, entityPolicy);
+    }
+
+    @Bean
+    public static JpaBaseRepositoryPostProcessor jpaBaseRepositoryPostProcessor(
+            ObjectProvider<ConcurrentCountExecutor> concurrentCountExecutor) {
+        return new JpaBaseRepositoryPostProcessor(concurrentCountExecutor);
+    }
 }
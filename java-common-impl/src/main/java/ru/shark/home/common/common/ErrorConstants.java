@@ -23,6 +23,24 @@ public class ErrorConstants {
     public static final String JSON_PROCESS_ERROR = "Ошибка преобразования объекта в JSON";
     public static final String OBJECTS_TO_ZIP_ERROR = "Ошибка записи списка объектов в zip";
 
+    public static final String NAMED_QUERY_PARSE_ERROR = "Не удалось разобрать именованный запрос \"{0}\": {1}";
+    public static final String NAMED_QUERY_WITHOUT_FROM = "В запросе не найдена часть FROM";
+    public static final String NAMED_QUERIES_PRECOMPILE_ERROR = "Ошибка предварительного разбора именованных запросов: {0}";
+    public static final String COUNT_QUERY_TIMEOUT = "Превышено время ожидания запроса количества ({0} мс)";
+    public static final String COUNT_QUERY_ERROR = "Ошибка выполнения запроса количества: {0}";
+    public static final String KEYSET_TOKEN_INVALID = "Некорректный токен продолжения выборки";
+    public static final String KEYSET_TOKEN_SORT_MISMATCH = "Токен продолжения выборки не соответствует сортировке запроса";
+    public static final String KEYSET_UNSUPPORTED_VALUE = "Тип {0} поля сортировки \"{1}\" не поддерживается при выборке по ключу";
+    public static final String KEYSET_UNSUPPORTED_ROW = "Тип строки результата {0} не поддерживается при выборке по ключу";
+    public static final String KEYSET_GROUP_NOT_SUPPORTED = "Выборка по ключу не поддерживается для запросов с группировкой";
+    public static final String BULK_UPDATE_WITHOUT_VALUES = "Не переданы значения полей для обновления";
+    public static final String BULK_UPDATE_INVALID_FIELD = "Некорректное поле для обновления \"{0}\"";
+    public static final String MAPPING_NOT_SUPPORTED = "Преобразование {0} в {1} не поддерживается";
+    public static final String MAPPING_ERROR = "Ошибка преобразования {0} в {1}: {2}";
+    public static final String PROJECTION_WITHOUT_FIELDS = "Класс {0} не содержит полей для выборки проекции";
+    public static final String PROJECTION_GROUP_NOT_SUPPORTED = "Выборка проекции не поддерживается для запросов с группировкой";
+    public static final String PROJECTION_SORT_FIELD_NOT_FOUND = "Поле сортировки \"{0}\" отсутствует в проекции {1}";
+    public static final String FIELD_NOT_ALLOWED = "Поле \"{0}\" недоступно для выборки";
     public static final String QUERY_CLAUSE_GENERATOR_NOT_FOUND = "Не найден генератор для типа {0}";
     public static final String WRONG_DATE_FORMAT = "Невозможно преобразовать к дате строку: %s";
     public static final String FILTER_BETWEEN_MUST_CONTAIN_TWO_VALUES = "Фильтр по принципу \"от\" и \"до\" должен иметь 2 значения через " +
@@ -0,0 +1,104 @@
+package ru.shark.home.common.dao.common;
+
+import ru.shark.home.common.enums.CountModeType;
+
+import java.util.List;
+
+/**
+ * Способ подсчета общего количества строк при пагинации.
+ */
+public final class CountMode {
+    public static final CountMode ALWAYS = new CountMode(CountModeType.ALWAYS, 0);
+    public static final CountMode NEVER = new CountMode(CountModeType.NEVER, 0);
+    public static final CountMode FIRST_PAGE_ONLY = new CountMode(CountModeType.FIRST_PAGE_ONLY, 0);
+    public static final CountMode SIZE_PLUS_ONE = new CountMode(CountModeType.SIZE_PLUS_ONE, 0);
+    public static final CountMode WINDOW = new CountMode(CountModeType.WINDOW, 0);
+
+    private final CountModeType type;
+    private final long limit;
+
+    private CountMode(CountModeType type, long limit) {
+        this.type = type;
+        this.limit = limit;
+    }
+
+    /**
+     * Возвращает способ подсчета не более заданного количества строк. Если строк больше,
+     * общее количество возвращается равным ограничению с признаком {@link PageableList#isTotalCountLimited()}.
+     *
+     * @param limit ограничение количества
+     * @return способ подсчета
+     */
+    public static CountMode bounded(long limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Ограничение количества должно быть больше 0");
+        }
+        return new CountMode(CountModeType.BOUNDED, limit);
+    }
+
+    public CountModeType getType() {
+        return type;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Возвращает признак необходимости выполнения запроса количества для страницы.
+     *
+     * @param page номер страницы
+     */
+    public boolean isCountRequired(int page) {
+        switch (type) {
+            case ALWAYS:
+            case BOUNDED:
+            case WINDOW:
+                return true;
+            case FIRST_PAGE_ONLY:
+                return page == 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Возвращает количество строк, выбираемых для страницы заданного размера.
+     *
+     * @param size размер страницы
+     */
+    public int getFetchSize(int size) {
+        return CountModeType.SIZE_PLUS_ONE.equals(type) ? size + 1 : size;
+    }
+
+    /**
+     * Формирует пагинированный список по результатам запросов данных и количества.
+     *
+     * @param data  выбранные строки
+     * @param count результат запроса количества или null, если запрос не выполнялся
+     * @param page  номер страницы
+     * @param size  размер страницы
+     * @return пагинированный список
+     */
+    public <T> PageableList<T> createList(List<T> data, Long count, int page, int size) {
+        long nextOffset = (long) (page + 1) * size;
+        switch (type) {
+            case SIZE_PLUS_ONE:
+                boolean hasNext = data.size() > size;
+                return new PageableList<>(hasNext ? data.subList(0, size) : data, null, false, hasNext);
+            case BOUNDED:
+                if (count != null && count > limit) {
+                    return new PageableList<>(data, limit, true, true);
+                }
+                break;
+            default:
+                break;
+        }
+        return new PageableList<>(data, count, false, count == null ? null : nextOffset < count);
+    }
+
+    @Override
+    public String toString() {
+        return CountModeType.BOUNDED.equals(type) ? type + "(" + limit + ")" : type.name();
+    }
+}
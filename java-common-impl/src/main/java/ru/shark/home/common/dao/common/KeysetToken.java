@@ -0,0 +1,279 @@
+package ru.shark.home.common.dao.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ru.shark.home.common.dao.util.FilterFieldMetadata;
+import ru.shark.home.common.dao.util.FilterMetadataRegistry;
+import ru.shark.home.common.enums.SortDirection;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_TOKEN_INVALID;
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_TOKEN_SORT_MISMATCH;
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_UNSUPPORTED_VALUE;
+
+/**
+ * Токен продолжения выборки по ключу. Содержит значения полей сортировки последней строки страницы
+ * и описание сортировки, для которой они получены. Передается клиенту в виде непрозрачной строки (Base64 от JSON).
+ * Значения хранятся с типом, чтобы при восстановлении параметры запроса имели тот же тип, что и поля сущности.
+ * Пустые значения хранятся с отдельным типом. Для перечислений хранится только имя константы: класс перечисления
+ * определяется по полю сортировки сущности, а не по данным токена, полученного от клиента.
+ */
+public final class KeysetToken {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String SORTS_FIELD = "s";
+    private static final String VALUES_FIELD = "v";
+    private static final String NULL_TYPE = "N";
+    private static final String ENUM_TYPE = "E";
+
+    private final String sorts;
+    private final List<Object> values;
+
+    private KeysetToken(String sorts, List<Object> values) {
+        this.sorts = sorts;
+        this.values = values;
+    }
+
+    /**
+     * Формирует токен по значениям полей сортировки.
+     *
+     * @param sorts  сортировки запроса
+     * @param values значения полей сортировки в порядке сортировок
+     * @return токен продолжения
+     */
+    public static String encode(List<RequestSort> sorts, List<Object> values) {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        root.put(SORTS_FIELD, getSortSignature(sorts));
+        ArrayNode array = root.putArray(VALUES_FIELD);
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            String field = sorts.get(i).getField();
+            if (value == null) {
+                array.addArray().add(NULL_TYPE);
+            } else {
+                array.addArray().add(getTypeCode(value, field)).add(valueToString(value));
+            }
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(root));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(KEYSET_TOKEN_INVALID, e);
+        }
+    }
+
+    /**
+     * Разбирает токен продолжения.
+     *
+     * @param token токен
+     * @return разобранный токен
+     * @throws IllegalArgumentException если токен некорректен
+     */
+    public static KeysetToken decode(String token) {
+        try {
+            JsonNode root = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII)));
+            JsonNode values = root.get(VALUES_FIELD);
+            if (root.get(SORTS_FIELD) == null || values == null || !values.isArray()) {
+                throw new IllegalArgumentException(KEYSET_TOKEN_INVALID);
+            }
+            List<Object> result = new ArrayList<>(values.size());
+            for (JsonNode value : values) {
+                String type = value.get(0).asText();
+                result.add(NULL_TYPE.equals(type) ? null : parseValue(type, value.get(1).asText()));
+            }
+            return new KeysetToken(root.get(SORTS_FIELD).asText(), Collections.unmodifiableList(result));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException(KEYSET_TOKEN_INVALID, e);
+        }
+    }
+
+    /**
+     * Возвращает значения полей сортировки, проверяя, что токен получен для тех же сортировок.
+     * Значения перечислений возвращаются именами констант (для нативных запросов).
+     *
+     * @param sorts сортировки запроса
+     * @return значения полей сортировки
+     * @throws IllegalArgumentException если сортировка запроса отличается от сортировки токена
+     */
+    public List<Object> getValues(List<RequestSort> sorts) {
+        return getValues(sorts, null);
+    }
+
+    /**
+     * Возвращает значения полей сортировки, проверяя, что токен получен для тех же сортировок.
+     * Значения перечислений преобразуются в константы перечисления, тип которого определяется
+     * по полю сортировки класса сущности.
+     *
+     * @param sorts       сортировки запроса
+     * @param entityClass класс сущности или null, если значения перечислений возвращаются именами констант
+     * @return значения полей сортировки
+     * @throws IllegalArgumentException если сортировка запроса отличается от сортировки токена
+     *                                  или значение перечисления не соответствует полю сортировки
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Object> getValues(List<RequestSort> sorts, Class<?> entityClass) {
+        if (!getSortSignature(sorts).equals(this.sorts) || values.size() != sorts.size()) {
+            throw new IllegalArgumentException(KEYSET_TOKEN_SORT_MISMATCH);
+        }
+        if (values.stream().noneMatch(EnumName.class::isInstance)) {
+            return values;
+        }
+        List<Object> result = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (!(value instanceof EnumName)) {
+                result.add(value);
+                continue;
+            }
+            String name = ((EnumName) value).name;
+            if (entityClass == null) {
+                result.add(name);
+                continue;
+            }
+            FilterFieldMetadata field = FilterMetadataRegistry.getField(entityClass, sorts.get(i).getField());
+            if (field == null || field.getEnumClass() == null) {
+                throw new IllegalArgumentException(KEYSET_TOKEN_INVALID);
+            }
+            try {
+                result.add(Enum.valueOf((Class<Enum>) field.getEnumClass(), name));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(KEYSET_TOKEN_INVALID, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает строку, описывающую сортировки (поля и направления).
+     */
+    static String getSortSignature(List<RequestSort> sorts) {
+        if (isEmpty(sorts)) {
+            return "";
+        }
+        return sorts.stream()
+                .map(sort -> sort.getField() + ":" + (sort.getDirection() == null ? SortDirection.ASC : sort.getDirection()))
+                .collect(Collectors.joining(","));
+    }
+
+    private static String getTypeCode(Object value, String field) {
+        if (value instanceof String) {
+            return "S";
+        } else if (value instanceof Long) {
+            return "L";
+        } else if (value instanceof Integer) {
+            return "I";
+        } else if (value instanceof Short) {
+            return "H";
+        } else if (value instanceof BigDecimal) {
+            return "D";
+        } else if (value instanceof BigInteger) {
+            return "G";
+        } else if (value instanceof Double) {
+            return "F";
+        } else if (value instanceof Boolean) {
+            return "B";
+        } else if (value instanceof Timestamp) {
+            return "TS";
+        } else if (value instanceof java.sql.Date) {
+            return "SD";
+        } else if (value instanceof Date) {
+            return "T";
+        } else if (value instanceof LocalDate) {
+            return "LD";
+        } else if (value instanceof LocalDateTime) {
+            return "LT";
+        } else if (value instanceof OffsetDateTime) {
+            return "OT";
+        } else if (value instanceof Instant) {
+            return "IN";
+        } else if (value instanceof UUID) {
+            return "U";
+        } else if (value instanceof Enum) {
+            return ENUM_TYPE;
+        }
+        throw new IllegalArgumentException(MessageFormat.format(KEYSET_UNSUPPORTED_VALUE, value.getClass().getName(), field));
+    }
+
+    private static String valueToString(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant().toString();
+        } else if (value instanceof java.sql.Date) {
+            return value.toString();
+        } else if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        } else if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+
+    private static Object parseValue(String type, String value) {
+        switch (type) {
+            case "S":
+                return value;
+            case "L":
+                return Long.valueOf(value);
+            case "I":
+                return Integer.valueOf(value);
+            case "H":
+                return Short.valueOf(value);
+            case "D":
+                return new BigDecimal(value);
+            case "G":
+                return new BigInteger(value);
+            case "F":
+                return Double.valueOf(value);
+            case "B":
+                return Boolean.valueOf(value);
+            case "TS":
+                return Timestamp.from(Instant.parse(value));
+            case "SD":
+                return java.sql.Date.valueOf(value);
+            case "T":
+                return new Date(Long.parseLong(value));
+            case "LD":
+                return LocalDate.parse(value);
+            case "LT":
+                return LocalDateTime.parse(value);
+            case "OT":
+                return OffsetDateTime.parse(value);
+            case "IN":
+                return Instant.parse(value);
+            case "U":
+                return UUID.fromString(value);
+            case ENUM_TYPE:
+                return new EnumName(value);
+            default:
+                throw new IllegalArgumentException(KEYSET_TOKEN_INVALID);
+        }
+    }
+
+    /**
+     * Имя константы перечисления, класс которого еще не определен.
+     */
+    private static final class EnumName {
+        private final String name;
+
+        private EnumName(String name) {
+            this.name = name;
+        }
+    }
+}
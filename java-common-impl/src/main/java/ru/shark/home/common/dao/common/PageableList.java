@@ -8,17 +8,67 @@ import java.util.List;
 public class PageableList<T> {
     private List<T> data;
     private Long totalCount;
+    private boolean totalCountLimited;
+    private Boolean hasNext;
+    private String nextToken;
 
     public PageableList(List<T> data, Long totalCount) {
         this.data = data;
         this.totalCount = totalCount;
     }
 
+    public PageableList(List<T> data, Long totalCount, boolean totalCountLimited, Boolean hasNext) {
+        this.data = data;
+        this.totalCount = totalCount;
+        this.totalCountLimited = totalCountLimited;
+        this.hasNext = hasNext;
+    }
+
+    public PageableList(List<T> data, Long totalCount, boolean totalCountLimited, Boolean hasNext, String nextToken) {
+        this(data, totalCount, totalCountLimited, hasNext);
+        this.nextToken = nextToken;
+    }
+
     public List<T> getData() {
         return data;
     }
 
+    /**
+     * Возвращает общее количество строк или null, если подсчет не выполнялся.
+     */
     public Long getTotalCount() {
         return totalCount;
     }
+
+    /**
+     * Возвращает признак того, что строк больше, чем указано в общем количестве ("n+").
+     */
+    public boolean isTotalCountLimited() {
+        return totalCountLimited;
+    }
+
+    /**
+     * Возвращает общее количество строк в виде для отображения: "n" или "n+" при ограниченном подсчете.
+     */
+    public String getTotalCountText() {
+        if (totalCount == null) {
+            return null;
+        }
+        return totalCountLimited ? totalCount + "+" : totalCount.toString();
+    }
+
+    /**
+     * Возвращает признак наличия следующей страницы или null, если он не известен.
+     */
+    public Boolean getHasNext() {
+        return hasNext;
+    }
+
+    /**
+     * Возвращает токен продолжения для получения следующей страницы выборки по ключу
+     * ({@link RequestCriteria#setContinuationToken(String)}) или null, если следующей страницы нет.
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
 }
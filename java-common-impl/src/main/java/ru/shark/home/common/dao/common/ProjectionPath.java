@@ -0,0 +1,16 @@
+package ru.shark.home.common.dao.common;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Путь к полю сущности, значение которого выбирается в поле DTO при выборке проекции.
+ * Например, "series.name". Без аннотации путь совпадает с наименованием поля DTO.
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ProjectionPath {
+    String value();
+}
@@ -1,5 +1,7 @@
 package ru.shark.home.common.dao.common;
 
+import ru.shark.home.common.dao.util.KeysetUtils;
+
 import java.util.List;
 
 public class RequestCriteria {
@@ -8,6 +10,11 @@ public class RequestCriteria {
     private List<RequestFilter> filters;
     private RequestSearch search;
     private List<RequestSort> sorts;
+    private CountMode countMode = CountMode.ALWAYS;
+    private boolean keyset;
+    private String continuationToken;
+    private String keysetTiebreaker = KeysetUtils.DEFAULT_TIEBREAKER;
+    private List<String> fields;
 
     public RequestCriteria(int page, int size) {
         this.page = page;
@@ -53,4 +60,76 @@ public class RequestCriteria {
     public void setSorts(List<RequestSort> sorts) {
         this.sorts = sorts;
     }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    public void setCountMode(CountMode countMode) {
+        this.countMode = countMode == null ? CountMode.ALWAYS : countMode;
+    }
+
+    /**
+     * Возвращает признак выборки по ключу: вместо смещения страницы выбираются строки,
+     * следующие по сортировке за последней строкой предыдущей страницы.
+     */
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    public void setKeyset(boolean keyset) {
+        this.keyset = keyset;
+    }
+
+    /**
+     * Возвращает токен продолжения выборки по ключу, полученный с предыдущей страницей ({@link PageableList#getNextToken()}).
+     * null - первая страница.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Устанавливает токен продолжения выборки. Непустой токен включает выборку по ключу.
+     *
+     * @param continuationToken токен продолжения
+     */
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+        if (continuationToken != null) {
+            this.keyset = true;
+        }
+    }
+
+    /**
+     * Возвращает уникальное поле, сортировка по которому добавляется в режиме выборки по ключу.
+     */
+    public String getKeysetTiebreaker() {
+        return keysetTiebreaker;
+    }
+
+    public void setKeysetTiebreaker(String keysetTiebreaker) {
+        this.keysetTiebreaker = keysetTiebreaker;
+    }
+
+    /**
+     * Возвращает сортировки, применяемые к запросу. В режиме выборки по ключу к сортировкам запроса
+     * добавляется сортировка по уникальному полю, если ее нет.
+     */
+    public List<RequestSort> getEffectiveSorts() {
+        return keyset ? KeysetUtils.withTiebreaker(sorts, keysetTiebreaker) : sorts;
+    }
+
+    /**
+     * Возвращает поля, запрошенные клиентом. Если заданы, запрос выбирает только их и идентификатор
+     * (остальные поля результата не заполняются). null - все поля.
+     * При выборке по ключу поля сортировки выбираются всегда, запрос с DISTINCT выбирает все поля.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
 }
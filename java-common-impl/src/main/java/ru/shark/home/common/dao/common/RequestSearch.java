@@ -1,12 +1,19 @@
 package ru.shark.home.common.dao.common;
 
+import ru.shark.home.common.dao.util.QueryUtils;
+import ru.shark.home.common.enums.SearchMode;
+
 public class RequestSearch {
     private String value;
-    private boolean isEquals;
+    private SearchMode mode;
 
     public RequestSearch(String value, boolean isEquals) {
+        this(value, isEquals ? SearchMode.EXACT : SearchMode.CONTAINS);
+    }
+
+    public RequestSearch(String value, SearchMode mode) {
         this.value = value;
-        this.isEquals = isEquals;
+        this.mode = mode;
     }
 
     public String getValue() {
@@ -18,10 +25,32 @@ public class RequestSearch {
     }
 
     public boolean isEquals() {
-        return isEquals;
+        return SearchMode.EXACT.equals(mode);
     }
 
     public void setEquals(boolean equals) {
-        isEquals = equals;
+        mode = equals ? SearchMode.EXACT : SearchMode.CONTAINS;
+    }
+
+    /**
+     * Возвращает способ сравнения значения поиска с полями. По умолчанию поиск выполняется по вхождению.
+     */
+    public SearchMode getMode() {
+        return mode == null ? SearchMode.CONTAINS : mode;
+    }
+
+    public void setMode(SearchMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Возвращает значение параметра поиска: для поиска по началу строки символы % и _ экранируются,
+     * а значение дополняется символом %.
+     */
+    public String getParamValue() {
+        if (value != null && SearchMode.PREFIX.equals(getMode())) {
+            return QueryUtils.getPrefixPattern(value);
+        }
+        return value;
     }
 }
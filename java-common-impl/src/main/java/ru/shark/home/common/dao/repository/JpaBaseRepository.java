@@ -1,6 +1,14 @@
 package ru.shark.home.common.dao.repository;
 
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.hql.spi.NamedParameterInformation;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.Type;
 import ru.shark.home.common.dao.entity.BaseEntity;
+import ru.shark.home.common.dao.util.KeysetUtils;
+import ru.shark.home.common.dao.util.NativeQueryUtils;
 import ru.shark.home.common.dao.util.SpecificationUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -8,23 +16,41 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.support.PageableExecutionUtils;
+import ru.shark.home.common.dao.common.CountMode;
+import ru.shark.home.common.dao.common.KeysetToken;
 import ru.shark.home.common.dao.common.PageableList;
 import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.service.ConcurrentCountExecutor;
+import ru.shark.home.common.dao.specification.CriteriaParameters;
 import ru.shark.home.common.dao.specification.SpecificationRequest;
+import ru.shark.home.common.enums.CountModeType;
 import ru.shark.home.common.enums.SortDirection;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
 
 public class JpaBaseRepository<E extends BaseEntity> extends SimpleJpaRepository<E, Long> implements BaseRepository<E> {
 
+    private final EntityManager entityManager;
+    private ConcurrentCountExecutor concurrentCountExecutor;
+
     public JpaBaseRepository(JpaEntityInformation<E, ?> entityInformation, EntityManager entityManager) {
         super(entityInformation, entityManager);
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -40,6 +66,10 @@ public class JpaBaseRepository<E extends BaseEntity> extends SimpleJpaRepository
     @Override
     public PageableList<E> getWithPagination(RequestCriteria request, Specification searchSpecification, String... defaultSort) {
         Specification filterSpec = new SpecificationRequest(request);
+        if (request.isKeyset()) {
+            return getWithKeyset(request, SpecificationUtils.andSpecifications(filterSpec, searchSpecification),
+                    defaultSort);
+        }
         PageRequest pageRequest;
         Sort sort = getSortFromRequest(request.getSorts(), defaultSort);
         if (sort == null) {
@@ -47,8 +77,174 @@ public class JpaBaseRepository<E extends BaseEntity> extends SimpleJpaRepository
         } else {
             pageRequest = PageRequest.of(request.getPage(), request.getSize(), getSortFromRequest(request.getSorts(), defaultSort));
         }
-        Page<E> all = findAll(SpecificationUtils.andSpecifications(filterSpec, searchSpecification), pageRequest);
-        return new PageableList<>(all.getContent(), all.getTotalElements());
+        Specification<E> specification = SpecificationUtils.andSpecifications(filterSpec, searchSpecification);
+        CountMode countMode = request.getCountMode();
+        if (CountModeType.ALWAYS.equals(countMode.getType()) && concurrentCountExecutor == null) {
+            Page<E> all = PageableExecutionUtils.getPage(getPageContent(specification, pageRequest, countMode),
+                    pageRequest, () -> count(entityManager, specification, countMode));
+            return countMode.createList(all.getContent(), all.getTotalElements(), request.getPage(), request.getSize());
+        }
+
+        PageableList<E> result;
+        if (!countMode.isCountRequired(request.getPage())) {
+            result = new PageableList<>(getPageContent(specification, pageRequest, countMode), null);
+        } else if (concurrentCountExecutor == null) {
+            result = new PageableList<>(getPageContent(specification, pageRequest, countMode),
+                    count(entityManager, specification, countMode));
+        } else {
+            result = concurrentCountExecutor.execute(entityManager.unwrap(Session.class),
+                    () -> getPageContent(specification, pageRequest, countMode),
+                    countEm -> count(countEm, specification, countMode));
+        }
+        return countMode.createList(result.getData(), result.getTotalCount(), request.getPage(), request.getSize());
+    }
+
+    /**
+     * Устанавливает исполнителя для параллельного выполнения запросов данных и количества.
+     *
+     * @param concurrentCountExecutor исполнитель, null - последовательное выполнение
+     */
+    public void setConcurrentCountExecutor(ConcurrentCountExecutor concurrentCountExecutor) {
+        this.concurrentCountExecutor = concurrentCountExecutor;
+    }
+
+    /**
+     * Возвращает страницу выборки по ключу: вместо смещения к спецификации добавляется условие выборки строк,
+     * следующих за последней строкой предыдущей страницы, и выбирается на одну строку больше размера страницы.
+     */
+    private PageableList<E> getWithKeyset(RequestCriteria request, Specification<E> specification, String... defaultSort) {
+        List<RequestSort> sorts = KeysetUtils.withTiebreaker(!isEmpty(request.getSorts()) ? request.getSorts() :
+                getRequestSortsByDefaultSort(defaultSort), request.getKeysetTiebreaker());
+        Specification<E> orderSpecification = SpecificationUtils.keysetOrderSpecification(sorts);
+        Specification<E> dataSpecification = request.getContinuationToken() == null ?
+                SpecificationUtils.andSpecifications(specification, orderSpecification) :
+                SpecificationUtils.andSpecifications(specification, SpecificationUtils.keysetSpecification(sorts,
+                        KeysetToken.decode(request.getContinuationToken()).getValues(sorts, getDomainClass())),
+                        orderSpecification);
+        // порядок задается спецификацией, так как учитывает расположение пустых значений
+        Sort sort = Sort.unsorted();
+        CountMode countMode = request.getCountMode();
+        Supplier<List<E>> dataQuery = () -> {
+            TypedQuery<E> query;
+            try (CriteriaParameters parameters = CriteriaParameters.open()) {
+                query = parameters.bind(getQuery(dataSpecification, sort));
+            }
+            if (concurrentCountExecutor != null) {
+                concurrentCountExecutor.applyTimeout(query);
+            }
+            return query.setMaxResults(request.getSize() + 1).getResultList();
+        };
+
+        PageableList<E> result;
+        if (!countMode.isCountRequired(KeysetUtils.getPage(request))) {
+            result = new PageableList<>(dataQuery.get(), null);
+        } else if (concurrentCountExecutor == null) {
+            result = new PageableList<>(dataQuery.get(), count(entityManager, specification, countMode));
+        } else {
+            result = concurrentCountExecutor.execute(entityManager.unwrap(Session.class), dataQuery,
+                    countEm -> count(countEm, specification, countMode));
+        }
+        List<String> properties = KeysetUtils.getRowProperties(sorts, false);
+        return KeysetUtils.createPage(result.getData(), result.getTotalCount(), request, sorts,
+                row -> KeysetUtils.readValues(row, properties));
+    }
+
+    /**
+     * Возвращает строки страницы. Значения условий спецификаций передаются в запрос параметрами.
+     */
+    private List<E> getPageContent(Specification<E> specification, PageRequest pageRequest, CountMode countMode) {
+        TypedQuery<E> query;
+        try (CriteriaParameters parameters = CriteriaParameters.open()) {
+            query = parameters.bind(getQuery(specification, pageRequest));
+        }
+        if (concurrentCountExecutor != null) {
+            concurrentCountExecutor.applyTimeout(query);
+        }
+        query.setFirstResult((int) pageRequest.getOffset());
+        query.setMaxResults(countMode.getFetchSize(pageRequest.getPageSize()));
+        return query.getResultList();
+    }
+
+    /**
+     * Возвращает количество сущностей по спецификации, используя переданный менеджер сущностей.
+     * При ограниченном подсчете выбирает не более limit + 1 строк.
+     */
+    private Long count(EntityManager countEm, Specification<E> specification, CountMode countMode) {
+        try (CriteriaParameters parameters = CriteriaParameters.open()) {
+            return count(countEm, specification, countMode, parameters);
+        }
+    }
+
+    private Long count(EntityManager countEm, Specification<E> specification, CountMode countMode,
+                       CriteriaParameters parameters) {
+        CriteriaBuilder builder = countEm.getCriteriaBuilder();
+        if (CountModeType.BOUNDED.equals(countMode.getType())) {
+            CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+            applySpecification(query, specification, builder);
+            query.select(builder.literal(1));
+            return boundedCount(countEm, parameters.bind(countEm.createQuery(query)),
+                    (int) Math.min(countMode.getLimit() + 1, Integer.MAX_VALUE));
+        }
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<E> root = applySpecification(query, specification, builder);
+        query.select(query.isDistinct() ? builder.countDistinct(root) : builder.count(root));
+        query.orderBy(Collections.emptyList());
+        long total = 0;
+        for (Long count : parameters.bind(countEm.createQuery(query)).getResultList()) {
+            total += count == null ? 0 : count;
+        }
+        return total;
+    }
+
+    /**
+     * Выполняет ограниченный подсчет запросом select count(1) from (... с ограничением) q, возвращающим одну строку.
+     * Запрос строится по SQL, полученному трансляцией HQL текста запроса Criteria API, значения параметров
+     * передаются с типами Hibernate. Если диалект не поддерживает ограничение в тексте запроса,
+     * выбирается не более limit строк.
+     *
+     * @param countEm менеджер сущностей для выполнения запроса
+     * @param query   запрос строк с установленными параметрами
+     * @param limit   максимальное количество подсчитываемых строк
+     * @return количество строк
+     */
+    private Long boundedCount(EntityManager countEm, TypedQuery<Integer> query, int limit) {
+        org.hibernate.query.Query<?> hqlQuery = query.unwrap(org.hibernate.query.Query.class);
+        SessionImplementor session = countEm.unwrap(SessionImplementor.class);
+        QueryTranslator[] translators = session.getFactory().getQueryPlanCache()
+                .getHQLQueryPlan(hqlQuery.getQueryString(), false, Collections.emptyMap()).getTranslators();
+        String countSql = translators.length != 1 ? null : NativeQueryUtils.getLimitedCountSql(
+                session.getFactory().getJdbcServices().getDialect(),
+                NativeQueryUtils.restoreNamedParameters(translators[0].getSQLString(),
+                        translators[0].getParameterTranslations()), limit);
+        if (countSql == null) {
+            return (long) query.setMaxResults(limit).getResultList().size();
+        }
+        NativeQuery<?> countQuery = session.createNativeQuery(countSql);
+        for (String name : hqlQuery.getParameterMetadata().getNamedParameterNames()) {
+            Object value = hqlQuery.getParameterValue(name);
+            NamedParameterInformation information = translators[0].getParameterTranslations()
+                    .getNamedParameterInformation(name);
+            Type type = information == null ? null : information.getExpectedType();
+            if (value instanceof Collection) {
+                countQuery.setParameterList(name, (Collection<?>) value, type);
+            } else if (type == null) {
+                countQuery.setParameter(name, value);
+            } else {
+                countQuery.setParameter(name, value, type);
+            }
+        }
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+
+    private Root<E> applySpecification(CriteriaQuery<?> query, Specification<E> specification, CriteriaBuilder builder) {
+        Root<E> root = query.from(getDomainClass());
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return root;
     }
 
     private Sort getSortFromRequest(List<RequestSort> sortList, String... defaultSort) {
@@ -68,6 +264,18 @@ public class JpaBaseRepository<E extends BaseEntity> extends SimpleJpaRepository
                 .collect(Collectors.toList());
     }
 
+    private List<RequestSort> getRequestSortsByDefaultSort(String... defaultSort) {
+        List<RequestSort> list = new ArrayList<>();
+        if (isEmpty(defaultSort)) {
+            return list;
+        }
+        for (String sort : defaultSort) {
+            String[] sortChain = sort.split(" ");
+            list.add(new RequestSort(sortChain[0], sortChain.length == 1 ? null : sortChain[1]));
+        }
+        return list;
+    }
+
     private List<Sort.Order> getOrdersByDefaultSort(String... defaultSort) {
         List<Sort.Order> list = new ArrayList<>();
         for (String sort : defaultSort) {
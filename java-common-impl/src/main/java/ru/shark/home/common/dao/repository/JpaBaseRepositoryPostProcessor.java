@@ -0,0 +1,37 @@
+package ru.shark.home.common.dao.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import ru.shark.home.common.dao.service.ConcurrentCountExecutor;
+
+/**
+ * Передает репозиториям на основе {@link JpaBaseRepository} исполнителя параллельного запроса количества.
+ * Репозитории создаются фабрикой Spring Data, поэтому исполнитель устанавливается при создании прокси репозитория.
+ */
+public class JpaBaseRepositoryPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<ConcurrentCountExecutor> concurrentCountExecutor;
+
+    public JpaBaseRepositoryPostProcessor(ObjectProvider<ConcurrentCountExecutor> concurrentCountExecutor) {
+        this.concurrentCountExecutor = concurrentCountExecutor;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                        Object target;
+                        try {
+                            target = proxyFactory.getTargetSource().getTarget();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                        if (target instanceof JpaBaseRepository) {
+                            ((JpaBaseRepository<?>) target).setConcurrentCountExecutor(concurrentCountExecutor.getIfAvailable());
+                        }
+                    }));
+        }
+        return bean;
+    }
+}
@@ -3,16 +3,46 @@ package ru.shark.home.common.dao.repository.query;
 import java.util.Map;
 
 public class ParamsQuery {
+    /**
+     * Начало запроса количества строк.
+     */
+    public static final String COUNT_SELECT = "select count(1) ";
+    /**
+     * Псевдоним столбца с общим количеством строк, вычисляемым оконной функцией в запросе данных.
+     */
+    public static final String WINDOW_COUNT_COLUMN = "total_count_";
+    /**
+     * Имя параметра со списком идентификаторов в запросе выборки сущностей отложенной загрузки.
+     */
+    public static final String DEFERRED_IDS_PARAM = "deferred_ids_";
+
     private String queryString;
     private String countQueryString;
     boolean isCountNative;
+    private boolean isCountInQuery;
     private Map<String, Object> params;
+    private Map<String, Object> countParams;
+    private String idQueryString;
+    private String fetchQueryString;
 
     public ParamsQuery(String queryString, String countQueryString, boolean isCountNative, Map<String, Object> params) {
+        this(queryString, countQueryString, isCountNative, false, params);
+    }
+
+    public ParamsQuery(String queryString, String countQueryString, boolean isCountNative, boolean isCountInQuery,
+                       Map<String, Object> params) {
         this.queryString = queryString;
         this.countQueryString = countQueryString;
         this.isCountNative = isCountNative;
+        this.isCountInQuery = isCountInQuery;
         this.params = params;
+        this.countParams = params;
+    }
+
+    public ParamsQuery(String queryString, String countQueryString, boolean isCountNative, boolean isCountInQuery,
+                       Map<String, Object> params, Map<String, Object> countParams) {
+        this(queryString, countQueryString, isCountNative, isCountInQuery, params);
+        this.countParams = countParams;
     }
 
     public String getQueryString() {
@@ -23,11 +53,63 @@ public class ParamsQuery {
         return params;
     }
 
+    /**
+     * Устанавливает запросы отложенной загрузки: сначала запросом идентификаторов выбираются
+     * идентификаторы строк страницы, затем запросом выборки загружаются сущности с указанными связями.
+     *
+     * @param idQueryString    запрос идентификаторов (параметры - как у запроса данных)
+     * @param fetchQueryString запрос выборки сущностей по списку идентификаторов {@link #DEFERRED_IDS_PARAM}
+     */
+    public void setDeferredFetch(String idQueryString, String fetchQueryString) {
+        this.idQueryString = idQueryString;
+        this.fetchQueryString = fetchQueryString;
+    }
+
+    /**
+     * Возвращает признак отложенной загрузки страницы в два запроса.
+     */
+    public boolean isDeferredFetch() {
+        return idQueryString != null;
+    }
+
+    public String getIdQueryString() {
+        return idQueryString;
+    }
+
+    public String getFetchQueryString() {
+        return fetchQueryString;
+    }
+
+    /**
+     * Возвращает параметры запроса количества. Отличаются от параметров запроса данных при выборке по ключу,
+     * условие которой в запрос количества не входит.
+     */
+    public Map<String, Object> getCountParams() {
+        return countParams;
+    }
+
     public String getCountQueryString() {
         return countQueryString;
     }
 
+    /**
+     * Возвращает запрос, выбирающий по строке на каждую строку результата вместо подсчета.
+     * Используется для подсчета с ограничением количества выбираемых строк.
+     */
+    public String getLimitedCountQueryString() {
+        return countQueryString.startsWith(COUNT_SELECT) ?
+                "select 1 " + countQueryString.substring(COUNT_SELECT.length()) : countQueryString;
+    }
+
     public boolean isCountNative() {
         return isCountNative;
     }
+
+    /**
+     * Возвращает признак того, что общее количество строк выбирается запросом данных
+     * в последнем столбце {@link #WINDOW_COUNT_COLUMN}.
+     */
+    public boolean isCountInQuery() {
+        return isCountInQuery;
+    }
 }
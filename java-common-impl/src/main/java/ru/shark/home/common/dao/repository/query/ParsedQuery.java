@@ -4,6 +4,12 @@ import ru.shark.home.common.dao.repository.query.parts.FromQueryPart;
 
 import java.util.List;
 
+/**
+ * Разобранный на части запрос.
+ * Части запроса заполняются сеттерами при разборе. Разобранные экземпляры кэшируются и разделяются
+ * между потоками, поэтому после разбора их сеттеры не вызываются: измененный запрос получается копией
+ * {@link #withSearchFields(List, List)} или {@link #withSelect(String, FromQueryPart)}.
+ */
 public class ParsedQuery {
     private String selectPart;
     private FromQueryPart fromPart;
@@ -14,8 +20,8 @@ public class ParsedQuery {
     private List<String> advancedSearchFields;
 
     public ParsedQuery(List<String> searchFields, List<String> advancedSearchFields) {
-        this.searchFields = searchFields;
-        this.advancedSearchFields = advancedSearchFields;
+        this.searchFields = searchFields == null ? null : List.copyOf(searchFields);
+        this.advancedSearchFields = advancedSearchFields == null ? null : List.copyOf(advancedSearchFields);
     }
 
     public String getSelectPart() {
@@ -65,4 +71,37 @@ public class ParsedQuery {
     public List<String> getAdvancedSearchFields() {
         return advancedSearchFields;
     }
+
+    /**
+     * Возвращает копию разобранного запроса с другим набором полей поиска.
+     * Разобранные части запроса разделяются с исходным экземпляром.
+     *
+     * @param searchFields         поля для поиска
+     * @param advancedSearchFields шаблоны расширенного поиска
+     * @return разобранный запрос
+     */
+    public ParsedQuery withSearchFields(List<String> searchFields, List<String> advancedSearchFields) {
+        ParsedQuery parsedQuery = new ParsedQuery(searchFields, advancedSearchFields);
+        parsedQuery.selectPart = selectPart;
+        parsedQuery.fromPart = fromPart;
+        parsedQuery.wherePart = wherePart;
+        parsedQuery.groupPart = groupPart;
+        parsedQuery.orderPart = orderPart;
+        return parsedQuery;
+    }
+
+    /**
+     * Возвращает копию разобранного запроса с другими частями SELECT и FROM.
+     * Остальные разобранные части и поля поиска разделяются с исходным экземпляром.
+     *
+     * @param selectPart часть SELECT
+     * @param fromPart   часть FROM
+     * @return разобранный запрос
+     */
+    public ParsedQuery withSelect(String selectPart, FromQueryPart fromPart) {
+        ParsedQuery parsedQuery = withSearchFields(searchFields, advancedSearchFields);
+        parsedQuery.selectPart = selectPart;
+        parsedQuery.fromPart = fromPart;
+        return parsedQuery;
+    }
 }
@@ -1,40 +1,52 @@
 package ru.shark.home.common.dao.repository.query;
 
-import ru.shark.home.common.dao.util.ParsingUtils;
-
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-
-import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * Парсер текста запроса.
- * Разбирает запрос на элементы разделенные через " " с удалением переносов строк и повторяющихся пробелов (если они не внутри ковычек).
+ * Разбирает запрос на элементы, разделенные пробельными символами (пробелы, табуляции, переносы строк),
+ * за один проход по исходному тексту. Пробельные символы внутри одиночных кавычек сохраняются без изменений.
+ * Элементы хранятся в виде смещений в исходном тексте, строки формируются только при получении частей запроса.
  * Содержит методы для обхода разобранного запроса и хранит состояния обхода.
  * Используется для получения из исходного текста запроса составных частей (SELECT..., FROM... и т.д.).
  */
 public class QueryParser {
+    private static final int INITIAL_CAPACITY = 64;
 
     /**
-     * Номер текущего обрабатываемого элемента запроса.
+     * Исходный текст запроса.
      */
-    private int currentIdx;
+    private final String source;
 
     /**
-     * Номер элемента, до которой текст запроса уже обработан.
+     * Смещения начала элементов в исходном тексте.
      */
-    private int lastCopyIdx;
+    private int[] partStarts;
+
+    /**
+     * Смещения конца элементов (не включительно) в исходном тексте.
+     */
+    private int[] partEnds;
+
+    /**
+     * Уровни вложенности скобок после каждого элемента.
+     */
+    private int[] bracketLevels;
+
+    /**
+     * Количество элементов запроса.
+     */
+    private int partCount;
 
     /**
-     * Текущий уровень вложенности скобок.
+     * Номер текущего обрабатываемого элемента запроса.
      */
-    private int bracketLevel;
+    private int currentIdx;
 
     /**
-     * Элементы запроса.
+     * Номер элемента, до которой текст запроса уже обработан.
      */
-    private String[] parts;
+    private int lastCopyIdx;
 
     /**
      * Текущий тип части запроса.
@@ -47,22 +59,18 @@ public class QueryParser {
      * @param source текст запроса
      */
     public QueryParser(String source) {
+        this.source = source;
         currentIdx = -1;
         lastCopyIdx = 0;
-        bracketLevel = 0;
-        parts = getParts(source);
         currentPartType = QueryPartType.SELECT;
+        tokenize();
     }
 
     /**
      * Переход к следующему элементу запроса.
-     * Если элемент существует, проверяем скобки.
      */
     public void nextPart() {
         currentIdx++;
-        if (hasNext()) {
-            processBracket();
-        }
     }
 
     /**
@@ -71,7 +79,7 @@ public class QueryParser {
      * @return признак верхнего уровня
      */
     public boolean isTopLevel() {
-        return bracketLevel == 0;
+        return currentIdx < 0 || bracketLevels[currentIdx] == 0;
     }
 
     /**
@@ -80,7 +88,7 @@ public class QueryParser {
      * @return признак наличия
      */
     public boolean hasNext() {
-        return currentIdx + 1 != parts.length;
+        return currentIdx + 1 < partCount;
     }
 
     /**
@@ -89,9 +97,15 @@ public class QueryParser {
      * @return значение элемента
      */
     public String getPart() {
-        return parts[currentIdx];
+        return source.substring(partStarts[currentIdx], partEnds[currentIdx]);
     }
 
+    /**
+     * Возвращает смещение начала текущего элемента в исходном тексте запроса.
+     */
+    public int getPartOffset() {
+        return partStarts[currentIdx];
+    }
 
     /**
      * Возвращает тип текущей части запроса.
@@ -108,7 +122,7 @@ public class QueryParser {
      * 3. Тип текущей части совместим с типом проверяемой.
      */
     public boolean isPartStarted(QueryPartType type) {
-        return isTopLevel() && type.name().equalsIgnoreCase(getPart()) && type.compatibleWith(currentPartType.name());
+        return isTopLevel() && isCurrentPartEqualsIgnoreCase(type.name()) && type.compatibleWith(currentPartType.name());
     }
 
     /**
@@ -117,7 +131,7 @@ public class QueryParser {
      * @return элементы запроса объединенные через " "
      */
     public String getPreviousPart() {
-        return String.join(" ", Arrays.copyOfRange(parts, lastCopyIdx, currentIdx));
+        return joinParts(lastCopyIdx, currentIdx);
     }
 
     /**
@@ -126,7 +140,7 @@ public class QueryParser {
      * @return элементы запроса объединенные через " "
      */
     public String getLastPart() {
-        return String.join(" ", Arrays.copyOfRange(parts, lastCopyIdx, parts.length));
+        return joinParts(lastCopyIdx, partCount);
     }
 
     /**
@@ -145,36 +159,88 @@ public class QueryParser {
     }
 
     /**
-     * Обработка скобок содержащихся в текущем элементе запроса.
+     * Проверяет совпадение текущего элемента с переданным значением без учета регистра, не создавая подстроку.
+     */
+    private boolean isCurrentPartEqualsIgnoreCase(String value) {
+        int start = partStarts[currentIdx];
+        return partEnds[currentIdx] - start == value.length() &&
+                source.regionMatches(true, start, value, 0, value.length());
+    }
+
+    /**
+     * Объединяет элементы с номерами в диапазоне [from, to) через " ".
      */
-    private void processBracket() {
-        if (getPart().contains("(") || getPart().contains(")")) {
-            bracketLevel += ParsingUtils.processBrackets(getPart());
+    private String joinParts(int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        int length = to - from - 1;
+        for (int idx = from; idx < to; idx++) {
+            length += partEnds[idx] - partStarts[idx];
+        }
+        StringBuilder sb = new StringBuilder(length);
+        for (int idx = from; idx < to; idx++) {
+            if (idx != from) {
+                sb.append(' ');
+            }
+            sb.append(source, partStarts[idx], partEnds[idx]);
         }
+        return sb.toString();
     }
 
     /**
-     * Возвращает массив элементов из переданного текста запроса.
-     * Удаляем переносы строк и пробелы (кроме тех что в одиночных кавычках).
-     *
-     * @param source текст запроса
-     * @return массив элементов
+     * Разбирает исходный текст на элементы за один проход.
+     * Пробельные символы вне одиночных кавычек разделяют элементы, внутри кавычек являются частью элемента.
+     * Уровень вложенности скобок вычисляется там же, скобки внутри кавычек не учитываются.
      */
-    private String[] getParts(String source) {
-        String[] parts = source.replaceAll("\\n", "").split(" ");
+    private void tokenize() {
+        partStarts = new int[INITIAL_CAPACITY];
+        partEnds = new int[INITIAL_CAPACITY];
+        bracketLevels = new int[INITIAL_CAPACITY];
+        partCount = 0;
+        int bracketLevel = 0;
+        int partStart = -1;
         boolean isQuotaOpened = false;
-        int idx = 0;
-        List<String> partList = new ArrayList<>();
-        while (idx < parts.length) {
-            String part = parts[idx];
-            isQuotaOpened = ParsingUtils.isInQuotas(isQuotaOpened, part);
-            if (!isQuotaOpened && isBlank(part)) {
-                idx++;
+        int length = source.length();
+        for (int idx = 0; idx < length; idx++) {
+            char ch = source.charAt(idx);
+            if (isQuotaOpened) {
+                isQuotaOpened = ch != '\'';
                 continue;
             }
-            partList.add(part.trim());
-            idx++;
+            if (Character.isWhitespace(ch)) {
+                if (partStart >= 0) {
+                    addPart(partStart, idx, bracketLevel);
+                    partStart = -1;
+                }
+                continue;
+            }
+            if (partStart < 0) {
+                partStart = idx;
+            }
+            if (ch == '\'') {
+                isQuotaOpened = true;
+            } else if (ch == '(') {
+                bracketLevel++;
+            } else if (ch == ')') {
+                bracketLevel--;
+            }
+        }
+        if (partStart >= 0) {
+            addPart(partStart, length, bracketLevel);
+        }
+    }
+
+    private void addPart(int start, int end, int bracketLevel) {
+        if (partCount == partStarts.length) {
+            int capacity = partCount * 2;
+            partStarts = Arrays.copyOf(partStarts, capacity);
+            partEnds = Arrays.copyOf(partEnds, capacity);
+            bracketLevels = Arrays.copyOf(bracketLevels, capacity);
         }
-        return partList.stream().toArray(String[]::new);
+        partStarts[partCount] = start;
+        partEnds[partCount] = end;
+        bracketLevels[partCount] = bracketLevel;
+        partCount++;
     }
 }
@@ -0,0 +1,28 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import ru.shark.home.common.enums.SearchMode;
+
+import java.text.MessageFormat;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.CONTAINS_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.EXACT_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.PREFIX_TPL;
+
+/**
+ * Формирование условий поиска через lower(), поддерживаемое всеми СУБД и HQL.
+ * Условия строгого соответствия и поиска по началу строки могут выполняться по функциональному индексу lower(поле).
+ */
+public class DefaultSearchDialect implements SearchDialect {
+
+    @Override
+    public String getClause(String field, String parameter, SearchMode mode) {
+        switch (mode) {
+            case EXACT:
+                return MessageFormat.format(EXACT_TPL, field, parameter);
+            case PREFIX:
+                return MessageFormat.format(PREFIX_TPL, field, parameter);
+            default:
+                return MessageFormat.format(CONTAINS_TPL, field, parameter);
+        }
+    }
+}
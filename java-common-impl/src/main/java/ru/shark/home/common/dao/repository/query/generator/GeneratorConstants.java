@@ -1,17 +1,42 @@
 package ru.shark.home.common.dao.repository.query.generator;
 
+import static ru.shark.home.common.common.Constants.FILTER_LIST_DELIMITER;
+
 public class GeneratorConstants {
     public static final String SIMPLE_SEARCH_LEFT = "lower({0}) ";
-    public static final String SEARCH_EQ_TPL = "= lower(''{1}'')";
-    public static final String SEARCH_LIKE_TPL = "like ''%'' || lower(''{1}'') || ''%''";
+    public static final String SEARCH_PARAM = "search_value";
+    public static final String SEARCH_EQ_TPL = "= lower(:" + SEARCH_PARAM + ")";
+    public static final String SEARCH_LIKE_TPL = "like ''%'' || lower(:" + SEARCH_PARAM + ") || ''%''";
+    /**
+     * Символ экранирования % и _ в значениях условий LIKE по началу строки.
+     */
+    public static final char LIKE_ESCAPE_CHAR = '!';
+    public static final String LIKE_ESCAPE = " escape ''" + LIKE_ESCAPE_CHAR + "''";
+    public static final String SEARCH_PREFIX_TPL = "like lower(:" + SEARCH_PARAM + ")" + LIKE_ESCAPE;
+
+    public static final String EXACT_TPL = "lower({0}) = lower({1})";
+    public static final String PREFIX_TPL = "lower({0}) like lower({1})" + LIKE_ESCAPE;
+    public static final String CONTAINS_TPL = "lower({0}) like ''%'' || lower({1}) || ''%''";
+    public static final String ILIKE_CONTAINS_TPL = "{0} ilike ''%'' || {1} || ''%''";
 
     public static final String FILTER_STRING_EQ_TPL = "lower({0}) = lower(:filter_{1})";
     public static final String FILTER_NUMBER_EQ_TPL = "{0} = :filter_{1}";
     public static final String FILTER_STRING_NE_TPL = "lower({0}) <> lower(:filter_{0})";
     public static final String FILTER_NUMBER_NE_TPL = "{0} <> :filter_{0}";
-    public static final String FILTER_IN_TPL = "{0} in (:filter_{0})";
+    public static final String FILTER_IN_TPL = "{0} in (:filter_{1})";
+    /**
+     * Максимальное количество значений в одном условии IN (ограничение Oracle). Более длинные списки
+     * делятся на части, условия по которым объединяются через or: ({0} in (:filter_{1}_0) or {0} in (:filter_{1}_1) ...).
+     */
+    public static final int FILTER_IN_CHUNK_SIZE = 1000;
+    public static final String FILTER_IN_CHUNK_TPL = "{0} in (:filter_{1}_{2})";
+    public static final String FILTER_ARRAY_SUFFIX = "_array";
+    public static final String FILTER_ARRAY_IN_TPL = "{0} = any(cast(string_to_array({1}, ''" + FILTER_LIST_DELIMITER + "'') as {2}[]))";
     public static final String FILTER_STRING_LIKE_TPL = "lower({0}) like ''%'' || lower(:filter_{1}) || ''%''";
+    public static final String FILTER_STRING_PREFIX_TPL = "lower({0}) like lower(:filter_{1})" + LIKE_ESCAPE;
     public static final String FILTER_BETWEEN_TPL = "{0} between :filter_{0}_left and :filter_{0}_right";
     public static final String FILTER_LT_TPL = "{0} < :filter_{0}";
     public static final String FILTER_GT_TPL = "{0} > :filter_{0}";
+
+    public static final String KEYSET_PARAM_PREFIX = "keyset_";
 }
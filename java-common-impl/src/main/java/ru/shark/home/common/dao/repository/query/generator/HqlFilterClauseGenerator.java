@@ -15,14 +15,16 @@ import static ru.shark.home.common.common.ErrorConstants.UNKNOWN_FILTER_OPERATIO
 import static ru.shark.home.common.common.ErrorConstants.UNSUPPORTED_FILTER_OPERATION;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_BETWEEN_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_GT_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_IN_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_LT_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_NUMBER_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_NUMBER_NE_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_LIKE_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_PREFIX_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_NE_TPL;
 import static ru.shark.home.common.dao.util.QueryUtils.getFilterName;
+import static ru.shark.home.common.dao.util.QueryUtils.getInChunkCount;
+import static ru.shark.home.common.dao.util.QueryUtils.getInClause;
 
 @Component
 public class HqlFilterClauseGenerator extends BaseHqlClauseGenerator implements ClauseGenerator {
@@ -50,10 +52,13 @@ public class HqlFilterClauseGenerator extends BaseHqlClauseGenerator implements
                 return getEqClause(fromPart, filter);
             case LIKE:
                 return getLikeClause(fromPart, filter);
+            case PREFIX:
+                return getPrefixClause(fromPart, filter);
             case NE:
                 return getNeClause(fromPart, filter);
             case IN:
-                return getClause(FILTER_IN_TPL, transformField(fromPart, filter.getField()), getFilterName(filter.getField()));
+                return getInClause(transformField(fromPart, filter.getField()), getFilterName(filter.getField()),
+                        getInChunkCount(filter));
             case BETWEEN:
                 return getBetweenClause(fromPart, filter);
             case LT:
@@ -102,6 +107,21 @@ public class HqlFilterClauseGenerator extends BaseHqlClauseGenerator implements
                 FilterOperation.LIKE.name()));
     }
 
+    /**
+     * Преобразует фильтр в условие совпадения начала строки. Поддерживает строковые поля.
+     *
+     * @param fromPart данные FROM части запроса
+     * @param filter   фильтр для преобразования
+     * @return строка условия
+     */
+    private String getPrefixClause(HqlFromQueryPart fromPart, RequestFilter filter) {
+        if (filter.getFieldType() == FieldType.STRING) {
+            return MessageFormat.format(FILTER_STRING_PREFIX_TPL, transformField(fromPart, filter.getField()), getFilterName(filter.getField()));
+        }
+        throw new UnsupportedOperationException(MessageFormat.format(UNSUPPORTED_FILTER_OPERATION, filter.getFieldType().name(),
+                FilterOperation.PREFIX.name()));
+    }
+
     /**
      * Преобразует фильтр в условия "между".
      * Отличается от других необходимостью сформировать 2 параметра запроса с суффиксами _left и _right.
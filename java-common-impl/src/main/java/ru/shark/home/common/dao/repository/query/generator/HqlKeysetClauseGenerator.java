@@ -0,0 +1,33 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import org.springframework.stereotype.Component;
+import ru.shark.home.common.dao.common.KeysetToken;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.repository.query.parts.HqlFromQueryPart;
+import ru.shark.home.common.dao.util.KeysetUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Генератор условия выборки по ключу для HQL запросов. Так как сравнение кортежей в HQL поддерживается
+ * не всеми диалектами, условие всегда формируется в раскрытом виде.
+ */
+@Component
+public class HqlKeysetClauseGenerator extends BaseHqlClauseGenerator implements ClauseGenerator {
+    @Override
+    public String generate(QueryClauseRequest request) {
+        List<RequestSort> sorts = request.getRequestCriteria().getEffectiveSorts();
+        HqlFromQueryPart fromPart = (HqlFromQueryPart) request.getParsedQuery().getFromPart();
+        List<String> fields = sorts.stream()
+                .map(item -> transformField(fromPart, item.getField()))
+                .collect(Collectors.toList());
+        List<Object> values = KeysetToken.decode(request.getRequestCriteria().getContinuationToken()).getValues(sorts);
+        return KeysetUtils.getKeysetClause(fields, KeysetUtils.getDirections(sorts), values, false);
+    }
+
+    @Override
+    public boolean canHandle(QueryClauseType type, boolean isNative) {
+        return QueryClauseType.KEYSET.equals(type) && !isNative;
+    }
+}
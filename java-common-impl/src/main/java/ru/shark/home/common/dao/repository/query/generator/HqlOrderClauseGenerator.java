@@ -3,6 +3,7 @@ package ru.shark.home.common.dao.repository.query.generator;
 import org.springframework.stereotype.Component;
 import ru.shark.home.common.dao.common.RequestSort;
 import ru.shark.home.common.dao.repository.query.parts.HqlFromQueryPart;
+import ru.shark.home.common.dao.util.KeysetUtils;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -13,16 +14,18 @@ import static org.springframework.util.ObjectUtils.isEmpty;
 public class HqlOrderClauseGenerator extends BaseHqlClauseGenerator implements ClauseGenerator{
     @Override
     public String generate(QueryClauseRequest request) {
-        List<RequestSort> sorts = request.getRequestCriteria().getSorts();
+        List<RequestSort> sorts = request.getRequestCriteria().getEffectiveSorts();
         if (isEmpty(sorts)) {
             return "";
         }
 
-        return sorts.stream().map(item -> sortToClause((HqlFromQueryPart) request.getParsedQuery().getFromPart(), item)).collect(Collectors.joining(", "));
+        boolean isKeyset = request.getRequestCriteria().isKeyset();
+        return sorts.stream().map(item -> sortToClause((HqlFromQueryPart) request.getParsedQuery().getFromPart(), item, isKeyset)).collect(Collectors.joining(", "));
     }
 
-    private String sortToClause(HqlFromQueryPart fromPart, RequestSort sort) {
-        return transformField(fromPart, sort.getField()) + (sort.getDirection() == null ? " asc" : " " + sort.getDirection().name().toLowerCase());
+    private String sortToClause(HqlFromQueryPart fromPart, RequestSort sort, boolean isKeyset) {
+        return transformField(fromPart, sort.getField()) + (sort.getDirection() == null ? " asc" : " " + sort.getDirection().name().toLowerCase())
+                + (isKeyset ? KeysetUtils.getNullsOrder(sort.getDirection()) : "");
     }
 
     @Override
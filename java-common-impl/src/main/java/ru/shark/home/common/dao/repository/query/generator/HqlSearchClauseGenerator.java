@@ -10,12 +10,15 @@ import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.springframework.util.ObjectUtils.isEmpty;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_EQ_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_LIKE_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SIMPLE_SEARCH_LEFT;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
 
 @Component
 public class HqlSearchClauseGenerator extends BaseHqlClauseGenerator implements ClauseGenerator {
+    /**
+     * HQL не поддерживает ILIKE, поэтому условия формируются через lower() независимо от СУБД.
+     */
+    private static final SearchDialect DEFAULT_SEARCH_DIALECT = new DefaultSearchDialect();
+
     @Override
     public String generate(QueryClauseRequest request) {
         ParsedQuery query = request.getParsedQuery();
@@ -25,15 +28,14 @@ public class HqlSearchClauseGenerator extends BaseHqlClauseGenerator implements
         String searchClause = "";
         RequestSearch search = request.getRequestCriteria().getSearch();
         if (!isEmpty(query.getSearchFields())) {
-            String searchTemplate = search.isEquals() ? SIMPLE_SEARCH_LEFT + SEARCH_EQ_TPL : SIMPLE_SEARCH_LEFT + SEARCH_LIKE_TPL;
             searchClause = query.getSearchFields().stream()
-                    .map(field -> MessageFormat.format(searchTemplate, transformField((HqlFromQueryPart) query.getFromPart(), field), search.getValue()))
+                    .map(field -> DEFAULT_SEARCH_DIALECT.getClause(transformField((HqlFromQueryPart) query.getFromPart(), field), ":" + SEARCH_PARAM, search.getMode()))
                     .collect(Collectors.joining(" or "));
         }
         if (!isEmpty(query.getAdvancedSearchFields())) {
-            String searchTemplate = (search.isEquals() ? SEARCH_EQ_TPL : SEARCH_LIKE_TPL).replace("1", "0");
+            String searchTemplate = MessageFormat.format(SearchDialect.getAdvancedTemplate(search.getMode()), new Object[0]);
             String advancedSearchClause = query.getAdvancedSearchFields().stream()
-                    .map(item -> MessageFormat.format(item, MessageFormat.format(searchTemplate, search.getValue())))
+                    .map(item -> MessageFormat.format(item, searchTemplate))
                     .collect(Collectors.joining(" or "));
             if (isBlank(searchClause)) {
                 searchClause = advancedSearchClause;
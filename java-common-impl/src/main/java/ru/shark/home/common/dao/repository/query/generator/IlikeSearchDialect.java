@@ -0,0 +1,23 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import ru.shark.home.common.enums.SearchMode;
+
+import java.text.MessageFormat;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.ILIKE_CONTAINS_TPL;
+
+/**
+ * Формирование условий поиска для СУБД с оператором ILIKE (PostgreSQL, H2).
+ * Поиск по вхождению выполняется через ILIKE по самому полю, что позволяет использовать
+ * триграммный индекс (pg_trgm) без функционального индекса. Остальные способы сравнения формируются через lower().
+ */
+public class IlikeSearchDialect extends DefaultSearchDialect {
+
+    @Override
+    public String getClause(String field, String parameter, SearchMode mode) {
+        if (SearchMode.CONTAINS.equals(mode)) {
+            return MessageFormat.format(ILIKE_CONTAINS_TPL, field, parameter);
+        }
+        return super.getClause(field, parameter, mode);
+    }
+}
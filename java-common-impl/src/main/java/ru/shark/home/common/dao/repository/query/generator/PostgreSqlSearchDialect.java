@@ -0,0 +1,36 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import ru.shark.home.common.enums.FieldType;
+
+import java.text.MessageFormat;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_ARRAY_IN_TPL;
+
+/**
+ * Формирование условий для PostgreSQL. Дополнительно к ILIKE условие IN формируется сравнением с массивом,
+ * переданным одним строковым параметром: текст запроса не зависит от длины списка, а количество параметров
+ * не ограничено лимитом драйвера. PostgreSQL сам преобразует IN со списком в сравнение с массивом,
+ * поэтому такое условие выполняется тем же планом.
+ */
+public class PostgreSqlSearchDialect extends IlikeSearchDialect {
+
+    @Override
+    public String getArrayInClause(String field, String parameter, FieldType fieldType) {
+        String arrayType = getArrayType(fieldType);
+        return arrayType == null ? null : MessageFormat.format(FILTER_ARRAY_IN_TPL, field, parameter, arrayType);
+    }
+
+    private String getArrayType(FieldType fieldType) {
+        switch (fieldType) {
+            case INTEGER:
+                return "bigint";
+            case STRING:
+            case ENUM:
+                return "text";
+            case BOOL:
+                return "boolean";
+            default:
+                return null;
+        }
+    }
+}
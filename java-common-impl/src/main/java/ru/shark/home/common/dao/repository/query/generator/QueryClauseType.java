@@ -4,5 +4,6 @@ public enum QueryClauseType {
     SEARCH,
     FILTER,
     ORDER,
+    KEYSET,
     UNKNOWN
 }
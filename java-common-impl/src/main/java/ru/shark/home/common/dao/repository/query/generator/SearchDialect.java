@@ -0,0 +1,74 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import ru.shark.home.common.enums.FieldType;
+import ru.shark.home.common.enums.SearchMode;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_EQ_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_LIKE_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PREFIX_TPL;
+
+/**
+ * Формирование условий поиска по строке без учета регистра и условий по спискам значений с учетом возможностей СУБД.
+ */
+public interface SearchDialect {
+
+    /**
+     * Формирует условие сравнения поля со значением параметра.
+     *
+     * @param field     поле
+     * @param parameter параметр запроса (например, :search_value)
+     * @param mode      способ сравнения
+     * @return строка условия
+     */
+    String getClause(String field, String parameter, SearchMode mode);
+
+    /**
+     * Формирует условие вхождения поля в массив значений, переданный одним строковым параметром
+     * со значениями через разделитель списка фильтра.
+     *
+     * @param field     поле
+     * @param parameter параметр запроса
+     * @param fieldType тип поля
+     * @return строка условия или null, если СУБД или тип поля не поддерживает сравнение с массивом
+     */
+    default String getArrayInClause(String field, String parameter, FieldType fieldType) {
+        return null;
+    }
+
+    /**
+     * Возвращает шаблон сравнения для расширенных полей поиска. Шаблон расширенного поля сам содержит
+     * выражение поля, поэтому подставляется только правая часть сравнения, не зависящая от СУБД.
+     *
+     * @param mode способ сравнения
+     * @return правая часть условия
+     */
+    static String getAdvancedTemplate(SearchMode mode) {
+        switch (mode) {
+            case EXACT:
+                return SEARCH_EQ_TPL;
+            case PREFIX:
+                return SEARCH_PREFIX_TPL;
+            default:
+                return SEARCH_LIKE_TPL;
+        }
+    }
+
+    /**
+     * Возвращает способ формирования условий для диалекта Hibernate.
+     *
+     * @param dialect диалект Hibernate
+     * @return способ формирования условий
+     */
+    static SearchDialect of(Dialect dialect) {
+        if (dialect instanceof PostgreSQL81Dialect) {
+            return new PostgreSqlSearchDialect();
+        }
+        if (dialect instanceof H2Dialect) {
+            return new IlikeSearchDialect();
+        }
+        return new DefaultSearchDialect();
+    }
+}
@@ -1,9 +1,11 @@
 package ru.shark.home.common.dao.repository.query.generator;
 
 import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.util.QueryUtils;
 import ru.shark.home.common.enums.FieldType;
 import org.springframework.stereotype.Component;
 import ru.shark.home.common.enums.FilterOperation;
+import ru.shark.home.common.enums.SearchMode;
 
 import java.text.MessageFormat;
 import java.util.stream.Collectors;
@@ -11,19 +13,21 @@ import java.util.stream.Collectors;
 import static org.springframework.util.ObjectUtils.isEmpty;
 import static ru.shark.home.common.common.ErrorConstants.UNKNOWN_FILTER_OPERATION;
 import static ru.shark.home.common.common.ErrorConstants.UNSUPPORTED_FILTER_OPERATION;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_ARRAY_SUFFIX;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_BETWEEN_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_GT_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_IN_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_LT_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_NUMBER_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_NUMBER_NE_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_EQ_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_LIKE_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_NE_TPL;
 import static ru.shark.home.common.dao.util.QueryUtils.getFilterName;
+import static ru.shark.home.common.dao.util.QueryUtils.getInChunkCount;
 
 @Component
 public class SqlFilterClauseGenerator implements ClauseGenerator {
+    private SearchDialect searchDialect = new DefaultSearchDialect();
+
     @Override
     public String generate(QueryClauseRequest request) {
         if (isEmpty(request.getRequestCriteria().getFilters())) {
@@ -45,10 +49,12 @@ public class SqlFilterClauseGenerator implements ClauseGenerator {
                 return getEqClause(filter);
             case LIKE:
                 return getLikeClause(filter);
+            case PREFIX:
+                return getPrefixClause(filter);
             case NE:
                 return getNeClause(filter);
             case IN:
-                return getClause(FILTER_IN_TPL, filter.getField());
+                return getInClause(filter);
             case BETWEEN:
                 return getBetweenClause(filter);
             case LT:
@@ -89,12 +95,26 @@ public class SqlFilterClauseGenerator implements ClauseGenerator {
      */
     protected String getLikeClause(RequestFilter filter) {
         if (filter.getFieldType() == FieldType.STRING) {
-            return MessageFormat.format(FILTER_STRING_LIKE_TPL, filter.getField(), getFilterName(filter.getField()));
+            return searchDialect.getClause(filter.getField(), ":filter_" + getFilterName(filter.getField()), SearchMode.CONTAINS);
         }
         throw new UnsupportedOperationException(MessageFormat.format(UNSUPPORTED_FILTER_OPERATION, filter.getFieldType().name(),
                 FilterOperation.LIKE.name()));
     }
 
+    /**
+     * Преобразует фильтр в условие совпадения начала строки. Поддерживает строковые поля.
+     *
+     * @param filter фильтр для преобразования
+     * @return строка условия
+     */
+    protected String getPrefixClause(RequestFilter filter) {
+        if (filter.getFieldType() == FieldType.STRING) {
+            return searchDialect.getClause(filter.getField(), ":filter_" + getFilterName(filter.getField()), SearchMode.PREFIX);
+        }
+        throw new UnsupportedOperationException(MessageFormat.format(UNSUPPORTED_FILTER_OPERATION, filter.getFieldType().name(),
+                FilterOperation.PREFIX.name()));
+    }
+
     /**
      * Преобразует фильтр в условие неравенства.
      *
@@ -116,6 +136,21 @@ public class SqlFilterClauseGenerator implements ClauseGenerator {
         }
     }
 
+    /**
+     * Преобразует фильтр в условие вхождения в список. Если СУБД поддерживает сравнение с массивом,
+     * список передается одним параметром с суффиксом _array, иначе длинный список делится на части
+     * (см. {@link QueryUtils#getInClause(String, String, int)}).
+     *
+     * @param filter фильтр для преобразования
+     * @return строка условия
+     */
+    protected String getInClause(RequestFilter filter) {
+        String clause = searchDialect.getArrayInClause(filter.getField(),
+                ":filter_" + filter.getField() + FILTER_ARRAY_SUFFIX, filter.getFieldType());
+        return clause == null ? QueryUtils.getInClause(filter.getField(), getFilterName(filter.getField()),
+                getInChunkCount(filter)) : clause;
+    }
+
     /**
      * Преобразует фильтр в условия "между".
      * Отличается от других необходимостью сформировать 2 параметра запроса с суффиксами _left и _right.
@@ -172,6 +207,15 @@ public class SqlFilterClauseGenerator implements ClauseGenerator {
         return MessageFormat.format(template, field);
     }
 
+    /**
+     * Устанавливает способ формирования условий сравнения строк, соответствующий СУБД.
+     *
+     * @param searchDialect способ формирования условий
+     */
+    public void setSearchDialect(SearchDialect searchDialect) {
+        this.searchDialect = searchDialect;
+    }
+
     @Override
     public boolean canHandle(QueryClauseType type, boolean isNative) {
         return QueryClauseType.FILTER.equals(type) && isNative;
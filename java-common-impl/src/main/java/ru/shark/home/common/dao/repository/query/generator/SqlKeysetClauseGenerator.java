@@ -0,0 +1,67 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import org.springframework.stereotype.Component;
+import ru.shark.home.common.dao.common.KeysetToken;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.util.ColumnNullability;
+import ru.shark.home.common.dao.util.KeysetUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Генератор условия выборки по ключу для нативных запросов. Если сравнение кортежей разрешено, все сортировки
+ * имеют одинаковое направление и все поля сортировки не допускают пустых значений (по {@link ColumnNullability}),
+ * формирует сравнение кортежей, которое СУБД может выполнить одним проходом по составному индексу.
+ */
+@Component
+public class SqlKeysetClauseGenerator implements ClauseGenerator {
+    private boolean rowValueComparison;
+    private ColumnNullability columnNullability;
+
+    @Override
+    public String generate(QueryClauseRequest request) {
+        List<RequestSort> sorts = request.getRequestCriteria().getEffectiveSorts();
+        List<String> fields = sorts.stream().map(RequestSort::getField).collect(Collectors.toList());
+        List<Object> values = KeysetToken.decode(request.getRequestCriteria().getContinuationToken()).getValues(sorts);
+        return KeysetUtils.getKeysetClause(fields, KeysetUtils.getDirections(sorts), values,
+                rowValueComparison && isNotNull(request, fields));
+    }
+
+    @Override
+    public boolean canHandle(QueryClauseType type, boolean isNative) {
+        return QueryClauseType.KEYSET.equals(type) && isNative;
+    }
+
+    /**
+     * Устанавливает признак использования сравнения кортежей (по умолчанию не используется).
+     * Для СУБД без его поддержки (например, Oracle) условие должно формироваться в раскрытом виде.
+     * Сравнение кортежей применяется только при заданных сведениях о столбцах {@link #setColumnNullability}.
+     *
+     * @param rowValueComparison признак использования сравнения кортежей
+     */
+    public void setRowValueComparison(boolean rowValueComparison) {
+        this.rowValueComparison = rowValueComparison;
+    }
+
+    /**
+     * Устанавливает сведения о столбцах, не допускающих пустых значений.
+     *
+     * @param columnNullability сведения о столбцах
+     */
+    public void setColumnNullability(ColumnNullability columnNullability) {
+        this.columnNullability = columnNullability;
+    }
+
+    /**
+     * Проверяет, что все поля сортировки не допускают пустых значений: сравнение кортежей не выбирает строки
+     * с пустым значением в любом из полей.
+     */
+    private boolean isNotNull(QueryClauseRequest request, List<String> fields) {
+        if (columnNullability == null) {
+            return false;
+        }
+        String fromPart = request.getParsedQuery().getFromPart().getValue();
+        return fields.stream().allMatch(field -> columnNullability.isNotNull(fromPart, field));
+    }
+}
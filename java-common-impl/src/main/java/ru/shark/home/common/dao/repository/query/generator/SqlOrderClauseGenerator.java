@@ -2,6 +2,7 @@ package ru.shark.home.common.dao.repository.query.generator;
 
 import org.springframework.stereotype.Component;
 import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.util.KeysetUtils;
 
 import java.util.stream.Collectors;
 
@@ -11,15 +12,17 @@ import static org.springframework.util.ObjectUtils.isEmpty;
 public class SqlOrderClauseGenerator implements ClauseGenerator {
     @Override
     public String generate(QueryClauseRequest request) {
-        if (isEmpty(request.getRequestCriteria().getSorts())) {
+        if (isEmpty(request.getRequestCriteria().getEffectiveSorts())) {
             return "";
         }
 
-        return request.getRequestCriteria().getSorts().stream().map(this::sortToClause).collect(Collectors.joining(", "));
+        boolean isKeyset = request.getRequestCriteria().isKeyset();
+        return request.getRequestCriteria().getEffectiveSorts().stream().map(item -> sortToClause(item, isKeyset)).collect(Collectors.joining(", "));
     }
 
-    private String sortToClause(RequestSort sort) {
-        return sort.getField() + (sort.getDirection() == null ? " asc" : " " + sort.getDirection().name().toLowerCase());
+    private String sortToClause(RequestSort sort, boolean isKeyset) {
+        return sort.getField() + (sort.getDirection() == null ? " asc" : " " + sort.getDirection().name().toLowerCase())
+                + (isKeyset ? KeysetUtils.getNullsOrder(sort.getDirection()) : "");
     }
 
     @Override
@@ -9,12 +9,12 @@ import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.springframework.util.ObjectUtils.isEmpty;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_EQ_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_LIKE_TPL;
-import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SIMPLE_SEARCH_LEFT;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
 
 @Component
 public class SqlSearchClauseGenerator implements ClauseGenerator {
+    private SearchDialect searchDialect = new DefaultSearchDialect();
+
     @Override
     public String generate(QueryClauseRequest request) {
         ParsedQuery query = request.getParsedQuery();
@@ -24,15 +24,14 @@ public class SqlSearchClauseGenerator implements ClauseGenerator {
         String searchClause = "";
         RequestSearch search = request.getRequestCriteria().getSearch();
         if (!isEmpty(query.getSearchFields())) {
-            String searchTemplate = search.isEquals() ? SIMPLE_SEARCH_LEFT + SEARCH_EQ_TPL : SIMPLE_SEARCH_LEFT + SEARCH_LIKE_TPL;
             searchClause = query.getSearchFields().stream()
-                    .map(field -> MessageFormat.format(searchTemplate, field, search.getValue()))
+                    .map(field -> searchDialect.getClause(field, ":" + SEARCH_PARAM, search.getMode()))
                     .collect(Collectors.joining(" or "));
         }
         if (!isEmpty(query.getAdvancedSearchFields())) {
-            String searchTemplate = (search.isEquals() ? SEARCH_EQ_TPL : SEARCH_LIKE_TPL).replace("1", "0");
+            String searchTemplate = MessageFormat.format(SearchDialect.getAdvancedTemplate(search.getMode()), new Object[0]);
             String advancedSearchClause = query.getAdvancedSearchFields().stream()
-                    .map(item -> MessageFormat.format(item, MessageFormat.format(searchTemplate, search.getValue())))
+                    .map(item -> MessageFormat.format(item, searchTemplate))
                     .collect(Collectors.joining(" or "));
             if (isBlank(searchClause)) {
                 searchClause = advancedSearchClause;
@@ -44,6 +43,15 @@ public class SqlSearchClauseGenerator implements ClauseGenerator {
         return "(" + searchClause + ")";
     }
 
+    /**
+     * Устанавливает способ формирования условий поиска, соответствующий СУБД.
+     *
+     * @param searchDialect способ формирования условий поиска
+     */
+    public void setSearchDialect(SearchDialect searchDialect) {
+        this.searchDialect = searchDialect;
+    }
+
     @Override
     public boolean canHandle(QueryClauseType type, boolean isNative) {
         return QueryClauseType.SEARCH.equals(type) && isNative;
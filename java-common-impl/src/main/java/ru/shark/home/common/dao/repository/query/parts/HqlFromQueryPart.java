@@ -8,11 +8,14 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Описание FROM части запроса. Содержит полный текст части и дополнительную информацию.
  */
 public class HqlFromQueryPart extends FromQueryPart {
+    private static final Pattern FETCH_JOIN_PATTERN = Pattern.compile("\\bjoin\\s+fetch\\b", Pattern.CASE_INSENSITIVE);
+
     /**
      * Карта, где ключ - таблица, значение - информация о таблице
      */
@@ -22,15 +25,26 @@ public class HqlFromQueryPart extends FromQueryPart {
      */
     private Map<String, FromTableData> aliasColumns;
     private String mainTableAlias;
+    private String mainEntityName;
+    /**
+     * Текст части без выборки связей (join fetch заменены на join). null, если выборки связей нет.
+     */
+    private String valueWithoutFetch;
 
     public HqlFromQueryPart(String value) {
         super(value);
         tables = new LinkedHashMap<>();
         aliasColumns = new HashMap<>();
         String[] parts = value.replaceAll("[\\s]{2,}", " ").trim().split(" ");
+        if (parts.length > 1) {
+            mainEntityName = parts[1];
+        }
         if (parts.length > 2) {
             mainTableAlias = parts[2];
         }
+        if (FETCH_JOIN_PATTERN.matcher(value).find()) {
+            valueWithoutFetch = FETCH_JOIN_PATTERN.matcher(getValue()).replaceAll("join");
+        }
         int idx = 0;
         while (idx < parts.length) {
             String part = parts[idx];
@@ -51,6 +65,27 @@ public class HqlFromQueryPart extends FromQueryPart {
         return mainTableAlias;
     }
 
+    /**
+     * Возвращает имя сущности главной таблицы запроса.
+     */
+    public String getMainEntityName() {
+        return mainEntityName;
+    }
+
+    /**
+     * Возвращает признак наличия выборки связей (join fetch).
+     */
+    public boolean hasFetchJoins() {
+        return valueWithoutFetch != null;
+    }
+
+    /**
+     * Возвращает текст части, в котором выборка связей (join fetch) заменена обычным соединением.
+     */
+    public String getValueWithoutFetch() {
+        return hasFetchJoins() ? valueWithoutFetch : getValue();
+    }
+
     public String transformFieldChain(String fieldChain) {
         if (StringUtils.isBlank(fieldChain)) {
             return fieldChain;
@@ -1,37 +1,101 @@
 package ru.shark.home.common.dao.service;
 
+import ru.shark.home.common.dao.common.CountMode;
 import ru.shark.home.common.dao.common.PageableList;
 import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestSort;
 import ru.shark.home.common.dao.dto.Dto;
 import ru.shark.home.common.dao.entity.BaseEntity;
 import ru.shark.home.common.dao.repository.query.ParamsQuery;
 import ru.shark.home.common.dao.repository.query.ParsedQuery;
 import ru.shark.home.common.dao.util.ConverterUtil;
+import ru.shark.home.common.dao.util.KeysetUtils;
+import ru.shark.home.common.dao.util.NativeQueryUtils;
+import ru.shark.home.common.dao.util.ProjectionUtils;
+import ru.shark.home.common.enums.CountModeType;
 import ru.shark.home.common.services.dto.Filter;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import com.google.common.collect.Iterables;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.transform.Transformers;
+import org.hibernate.type.StandardBasicTypes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import javax.transaction.Transactional;
-import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.DEFERRED_IDS_PARAM;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.WINDOW_COUNT_COLUMN;
 
 /**
  * Базовый класс для сервисов доступа к данным.
+ * Методы чтения (поиск по идентификатору, выборка всех сущностей и запросы с пагинацией) по умолчанию выполняются
+ * в транзакции только для чтения, если вызывающий код не начал транзакцию (см. {@link ReadOnlyQueryExecutor}).
+ * Режим отключается для сервиса методом {@link #setReadOnlyQueries(boolean)}.
+ * При наличии {@link QueryResultCache} результаты запросов с пагинацией в DTO (проекции и нативные запросы),
+ * вызванных вне транзакции, кэшируются, а изменение сущностей методами сервиса удаляет из кэша результаты,
+ * читающие таблицы сущности. Страницы сущностей не кэшируются: экземпляры сущностей изменяемы и связаны
+ * с загрузившей их сессией.
  */
 @Transactional(Transactional.TxType.REQUIRED)
 public abstract class BaseDao<E extends BaseEntity> {
+    /**
+     * Количество строк, получаемых драйвером JDBC за одно обращение к БД при потоковом чтении.
+     */
+    public static final int DEFAULT_STREAM_FETCH_SIZE = 500;
+    /**
+     * Количество строк потокового чтения, после которого очищается контекст персистентности.
+     */
+    public static final int DEFAULT_STREAM_CLEAR_INTERVAL = 1000;
+    /**
+     * Количество строк пакетного сохранения, после которого выполняется сброс и очистка контекста персистентности.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    /**
+     * Максимальное количество идентификаторов в одном запросе пакетного удаления.
+     */
+    public static final int DEFAULT_DELETE_CHUNK_SIZE = 1000;
 
     private ConverterUtil converterUtil;
     private EntityManager em;
     private final Class<E> entityClass;
     private SqlQueryService sqlQueryService;
     private HqlQueryService hqlQueryService;
+    private ParsedQueryCache parsedQueryCache;
+    private ConcurrentCountExecutor concurrentCountExecutor;
+    private ReadOnlyQueryExecutor readOnlyQueryExecutor;
+    private QueryResultCache queryResultCache;
+    private boolean readOnlyQueries = true;
+    private int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+    private int streamClearInterval = DEFAULT_STREAM_CLEAR_INTERVAL;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int deleteChunkSize = DEFAULT_DELETE_CHUNK_SIZE;
 
     protected BaseDao(Class<E> entityClass) {
         this.entityClass = entityClass;
@@ -44,13 +108,154 @@ public abstract class BaseDao<E extends BaseEntity> {
      * @return сохраненная сущность
      */
     public E save(E entity) {
+        invalidateResultCache();
         return em.merge(entity);
     }
 
+    /**
+     * Пакетное сохранение сущностей. Новые сущности (без идентификатора) сохраняются через persist без
+     * предварительного чтения, существующие - через merge. Операторы группируются в пакеты JDBC размером
+     * {@link #setBatchSize(int)}, после каждого пакета контекст персистентности сбрасывается и очищается,
+     * поэтому возвращаемые сущности, кроме последнего пакета, отсоединены.
+     * Для сущностей с генерацией идентификатора IDENTITY Hibernate не объединяет вставки в пакеты.
+     *
+     * @param entities сущности для сохранения
+     * @return сохраненные сущности в порядке переданных
+     */
+    public List<E> saveAll(Collection<E> entities) {
+        if (isEmpty(entities)) {
+            return new ArrayList<>();
+        }
+        invalidateResultCache();
+        Session session = em.unwrap(Session.class);
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            List<E> result = new ArrayList<>(entities.size());
+            int count = 0;
+            for (E entity : entities) {
+                if (entity.getId() == null) {
+                    em.persist(entity);
+                    result.add(entity);
+                } else {
+                    result.add(em.merge(entity));
+                }
+                if (++count % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            return result;
+        } finally {
+            session.setJdbcBatchSize(sessionBatchSize);
+        }
+    }
+
+    /**
+     * Удаление сущностей по идентификаторам запросами delete ... where id in (:ids) по
+     * {@link #setDeleteChunkSize(int)} идентификаторов. Удаление выполняется без загрузки сущностей, поэтому
+     * каскадные операции и обработчики событий JPA не применяются. Загруженные ранее экземпляры удаленных
+     * сущностей отсоединяются от контекста персистентности.
+     *
+     * @param ids идентификаторы
+     * @return количество удаленных строк
+     */
+    public int deleteAllByIds(Collection<Long> ids) {
+        if (isEmpty(ids)) {
+            return 0;
+        }
+        invalidateResultCache();
+        em.flush();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        int count = 0;
+        for (List<Long> chunk : Iterables.partition(new LinkedHashSet<>(ids), deleteChunkSize)) {
+            for (Long id : chunk) {
+                Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+                if (managed != null) {
+                    em.detach(managed);
+                }
+            }
+            count += em.createQuery("delete from " + entityClass.getSimpleName() + " t where t.id in (:ids)")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        return count;
+    }
+
+    /**
+     * Массовое обновление сущностей, отобранных фильтрами критериев, одним запросом update.
+     *
+     * @param requestCriteria критерии отбора
+     * @param setValues       новые значения полей, ключ - поле сущности
+     * @return количество обновленных строк
+     * @see #updateByCriteria(RequestCriteria, Map, List)
+     */
+    public int updateByCriteria(RequestCriteria requestCriteria, Map<String, Object> setValues) {
+        return updateByCriteria(requestCriteria, setValues, null);
+    }
+
+    /**
+     * Массовое обновление сущностей, отобранных фильтрами и поиском критериев, одним запросом update.
+     * Перед выполнением контекст персистентности сбрасывается, после - очищается, так как загруженные
+     * сущности не отражают изменения запроса.
+     *
+     * @param requestCriteria критерии отбора
+     * @param setValues       новые значения полей, ключ - поле сущности
+     * @param searchFields    поля для поиска
+     * @return количество обновленных строк
+     */
+    public int updateByCriteria(RequestCriteria requestCriteria, Map<String, Object> setValues,
+                                List<String> searchFields) {
+        return executeBulk(hqlQueryService.generateUpdateQuery(getEntityQuery(searchFields), requestCriteria,
+                setValues));
+    }
+
+    /**
+     * Массовое удаление сущностей, отобранных фильтрами критериев, одним запросом delete.
+     *
+     * @param requestCriteria критерии отбора
+     * @return количество удаленных строк
+     * @see #deleteByCriteria(RequestCriteria, List)
+     */
+    public int deleteByCriteria(RequestCriteria requestCriteria) {
+        return deleteByCriteria(requestCriteria, null);
+    }
+
+    /**
+     * Массовое удаление сущностей, отобранных фильтрами и поиском критериев, одним запросом delete.
+     * Каскадные операции и обработчики событий JPA не применяются. Критерии без фильтров и поиска удаляют все строки.
+     *
+     * @param requestCriteria критерии отбора
+     * @param searchFields    поля для поиска
+     * @return количество удаленных строк
+     */
+    public int deleteByCriteria(RequestCriteria requestCriteria, List<String> searchFields) {
+        return executeBulk(hqlQueryService.generateDeleteQuery(getEntityQuery(searchFields), requestCriteria));
+    }
+
+    /**
+     * Возвращает разобранный запрос выборки всех сущностей для формирования массовых операций.
+     */
+    private ParsedQuery getEntityQuery(List<String> searchFields) {
+        return parsedQueryCache.get(entityClass.getName() + ".bulk", false, searchFields, null,
+                () -> hqlQueryService.parseQuery("from " + entityClass.getSimpleName() + " t", searchFields));
+    }
+
+    private int executeBulk(ParamsQuery query) {
+        invalidateResultCache();
+        em.flush();
+        int count = applyQueryParams(em.createQuery(query.getQueryString()), query.getParams()).executeUpdate();
+        em.clear();
+        return count;
+    }
+
     /**
      * Удаление сущности по идентификатору.
      */
     public void deleteById(Long id) {
+        invalidateResultCache();
         em.remove(findById(id));
     }
 
@@ -69,8 +274,9 @@ public abstract class BaseDao<E extends BaseEntity> {
      * @param id идентификатор
      * @return сущность
      */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public E findById(Long id) {
-        return em.find(entityClass, id);
+        return executeQuery(() -> em.find(entityClass, id));
     }
 
     /**
@@ -78,8 +284,101 @@ public abstract class BaseDao<E extends BaseEntity> {
      *
      * @return список сущностей
      */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public List<E> findAll() {
-        return em.createQuery("select t from " + entityClass.getSimpleName() + " t").getResultList();
+        return executeQuery(() -> em.createQuery("select t from " + entityClass.getSimpleName() + " t").getResultList());
+    }
+
+    /**
+     * Возвращает все сущности в виде потока, не загружая их в память целиком.
+     * Поток должен быть закрыт и прочитан в рамках транзакции вызывающего кода.
+     *
+     * @return поток сущностей
+     * @see #stream(String, Map)
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Stream<E> streamAll() {
+        return stream("select t from " + entityClass.getSimpleName() + " t", Collections.emptyMap());
+    }
+
+    /**
+     * Возвращает результат именованного запроса с фильтрацией, поиском и сортировкой по критериям в виде потока.
+     * Страница критериев не учитывается - читаются все строки.
+     * Поток должен быть закрыт и прочитан в рамках транзакции вызывающего кода.
+     *
+     * @param queryName       наименование запроса
+     * @param requestCriteria критерии запроса
+     * @param params          параметры запроса
+     * @param searchFields    поля для поиска
+     * @return поток строк результата
+     * @see #stream(String, Map)
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public <T> Stream<T> stream(String queryName, RequestCriteria requestCriteria, Map<String, Object> params,
+                                List<String> searchFields) {
+        ParsedQuery parsedQuery = parsedQueryCache.get(queryName, false, searchFields, null,
+                () -> hqlQueryService.parseQuery(em.unwrap(Session.class).getNamedQuery(queryName).getQueryString(),
+                        searchFields));
+        ParamsQuery query = hqlQueryService.generateParamsQuery(parsedQuery, requestCriteria, params);
+        return stream(query.getQueryString(), query.getParams());
+    }
+
+    /**
+     * Выполняет HQL запрос с последовательным чтением результата курсором. Драйвер получает строки порциями
+     * по {@link #setStreamFetchSize(int)}, сущности загружаются только для чтения и каждые
+     * {@link #setStreamClearInterval(int)} строк отсоединяются от контекста персистентности, поэтому потребление
+     * памяти не зависит от количества строк. Отсоединяются только сущности, загруженные потоком: сущности,
+     * загруженные вызывающим кодом, и их несохраненные изменения остаются в контексте.
+     * Если запрос выбирает несколько значений, строка результата - массив значений.
+     *
+     * @param queryString текст запроса
+     * @param params      параметры запроса
+     * @return поток строк результата, закрытие которого закрывает курсор
+     */
+    protected <T> Stream<T> stream(String queryString, Map<String, Object> params) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        Set<Object> readOnlyBefore = getReadOnlyEntities(session);
+        org.hibernate.query.Query<?> query = session.createQuery(queryString);
+        applyQueryParams(query, params);
+        ScrollableResults results = query.setFetchSize(streamFetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long count;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (count > 0 && count % streamClearInterval == 0) {
+                    for (Object entity : getReadOnlyEntities(session)) {
+                        if (!readOnlyBefore.contains(entity)) {
+                            session.detach(entity);
+                        }
+                    }
+                }
+                if (!results.next()) {
+                    return false;
+                }
+                count++;
+                Object[] row = results.get();
+                action.accept((T) (row.length == 1 ? row[0] : row));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+
+    /**
+     * Возвращает сущности контекста персистентности, загруженные только для чтения.
+     */
+    private static Set<Object> getReadOnlyEntities(SessionImplementor session) {
+        Set<Object> entities = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getValue().isReadOnly()) {
+                entities.add(entry.getKey());
+            }
+        }
+        return entities;
     }
 
     /**
@@ -105,45 +404,309 @@ public abstract class BaseDao<E extends BaseEntity> {
                 item.getField().equalsIgnoreCase(field)).findFirst().orElse(null);
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public PageableList<E> getWithPagination(String queryName, RequestCriteria requestCriteria,
                                              Map<String, Object> params,
                                              List<String> searchFields) {
-        String queryString = em.unwrap(Session.class).getNamedQuery(queryName).getQueryString();
-        ParsedQuery parsedQuery = hqlQueryService.parseQuery(queryString, searchFields);
+        return executeQuery(() -> doGetWithPagination(queryName, requestCriteria, params, searchFields));
+    }
+
+    private PageableList<E> doGetWithPagination(String queryName, RequestCriteria requestCriteria,
+                                                Map<String, Object> params, List<String> searchFields) {
+        ParsedQuery parsedQuery = parsedQueryCache.get(queryName, false, searchFields, null,
+                () -> hqlQueryService.parseQuery(em.unwrap(Session.class).getNamedQuery(queryName).getQueryString(),
+                        searchFields));
         ParamsQuery query = hqlQueryService.generateParamsQuery(parsedQuery, requestCriteria, params);
-        List<E> resultList = applyQueryParams(em.createQuery(query.getQueryString()),
-                query.getParams())
-                .setFirstResult(requestCriteria.getPage() * requestCriteria.getSize())
-                .setMaxResults(requestCriteria.getSize())
-                .getResultList();
-        Query countQuery;
-        if (query.isCountNative()) {
-            countQuery = em.createNativeQuery(query.getCountQueryString());
-        } else {
-            countQuery = em.createQuery(query.getCountQueryString());
-        }
-        Long count = (Long) applyQueryParams(countQuery, query.getParams())
-                .getSingleResult();
-        return new PageableList<>(resultList, count);
+        return executePagination(requestCriteria,
+                () -> query.isDeferredFetch() ? getDeferredFetchPage(query, requestCriteria) :
+                        applyPage(em.createQuery(query.getQueryString()), query, requestCriteria).getResultList(),
+                countEm -> count(countEm, query, requestCriteria.getCountMode()),
+                sorts -> KeysetUtils.getRowProperties(sorts, false));
     }
 
+    /**
+     * Выполняет именованный запрос с пагинацией, читая строки сразу в DTO без загрузки сущностей.
+     * Часть SELECT запроса заменяется выборкой полей сущности по свойствам DTO
+     * (см. {@link HqlQueryService#createProjectionQuery(ParsedQuery, Class)}), фильтры, поиск, сортировка
+     * и пагинация применяются как для {@link #getWithPagination(String, RequestCriteria, Map, List)}.
+     *
+     * @param queryName       наименование запроса
+     * @param requestCriteria критерии запроса
+     * @param params          параметры запроса
+     * @param searchFields    поля для поиска
+     * @param dtoClass        класс DTO
+     * @return пагинированный список DTO
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public <T> PageableList<T> getProjectionWithPagination(String queryName, RequestCriteria requestCriteria,
+                                                           Map<String, Object> params, List<String> searchFields,
+                                                           Class<T> dtoClass) {
+        boolean cacheable = isResultCacheable();
+        return executeQuery(() -> doGetProjectionWithPagination(queryName, requestCriteria, params, searchFields,
+                dtoClass, cacheable));
+    }
+
+    @SuppressWarnings("deprecation")
+    private <T> PageableList<T> doGetProjectionWithPagination(String queryName, RequestCriteria requestCriteria,
+                                                              Map<String, Object> params, List<String> searchFields,
+                                                              Class<T> dtoClass, boolean cacheable) {
+        ParsedQuery parsedQuery = parsedQueryCache.get(queryName + "#" + dtoClass.getName(), false, searchFields, null,
+                () -> hqlQueryService.createProjectionQuery(hqlQueryService.parseQuery(
+                        em.unwrap(Session.class).getNamedQuery(queryName).getQueryString(), searchFields), dtoClass));
+        ParamsQuery query = hqlQueryService.generateParamsQuery(parsedQuery, requestCriteria, params);
+        return getPage(cacheable, dtoClass.getName(), query, false, requestCriteria, () -> executePagination(requestCriteria,
+                () -> applyPage(em.createQuery(query.getQueryString()), query, requestCriteria)
+                        .unwrap(org.hibernate.query.Query.class)
+                        .setResultTransformer(Transformers.aliasToBean(dtoClass))
+                        .getResultList(),
+                countEm -> count(countEm, query, requestCriteria.getCountMode()),
+                sorts -> ProjectionUtils.getRowProperties(sorts, dtoClass)));
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
     public <T extends Dto> PageableList<T> getNativeWithPagination(String queryName, RequestCriteria requestCriteria, Map<String, Object> params, List<String> searchFields,
                                                                    String resultSetMappingName) {
         return getNativeWithPagination(queryName, requestCriteria, params, searchFields, null, resultSetMappingName);
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public <T extends Dto> PageableList<T> getNativeWithPagination(String queryName, RequestCriteria requestCriteria, Map<String, Object> params, List<String> searchFields, List<String> advancedSearchFields, String resultSetMappingName) {
-        String queryString = em.unwrap(Session.class).getNamedNativeQuery(queryName).getQueryString();
-        ParsedQuery parsedQuery = sqlQueryService.parseQuery(queryString, searchFields, advancedSearchFields);
+        boolean cacheable = isResultCacheable();
+        return executeQuery(() -> doGetNativeWithPagination(queryName, requestCriteria, params, searchFields,
+                advancedSearchFields, resultSetMappingName, cacheable));
+    }
+
+    private <T extends Dto> PageableList<T> doGetNativeWithPagination(String queryName, RequestCriteria requestCriteria,
+                                                                      Map<String, Object> params, List<String> searchFields,
+                                                                      List<String> advancedSearchFields,
+                                                                      String resultSetMappingName, boolean cacheable) {
+        ParsedQuery parsedQuery = parsedQueryCache.get(queryName, true, searchFields, advancedSearchFields,
+                () -> sqlQueryService.parseQuery(em.unwrap(Session.class).getNamedNativeQuery(queryName).getQueryString(),
+                        searchFields, advancedSearchFields));
         ParamsQuery query = sqlQueryService.generateParamsQuery(parsedQuery, requestCriteria, params);
-        List<T> resultList = applyQueryParams(em.createNativeQuery(query.getQueryString(), resultSetMappingName),
-                query.getParams())
-                .setFirstResult(requestCriteria.getPage() * requestCriteria.getSize())
-                .setMaxResults(requestCriteria.getSize())
+        if (query.isCountInQuery()) {
+            return getPage(cacheable, resultSetMappingName, query, true, requestCriteria,
+                    () -> getWithWindowCount(query, requestCriteria, resultSetMappingName));
+        }
+        return getPage(cacheable, resultSetMappingName, query, true, requestCriteria, () -> executePagination(requestCriteria,
+                () -> applyPage(em.createNativeQuery(query.getQueryString(), resultSetMappingName), query,
+                        requestCriteria).getResultList(),
+                countEm -> count(countEm, query, requestCriteria.getCountMode()),
+                sorts -> KeysetUtils.getRowProperties(sorts, true)));
+    }
+
+    /**
+     * Возвращает страницу из кэша результатов запросов или выполняет запрос.
+     *
+     * @param cacheable       признак использования кэша
+     * @param resultType      тип результата
+     * @param query           запрос
+     * @param isNative        признак нативного запроса
+     * @param requestCriteria критерии запроса
+     * @param loader          выполнение запроса
+     * @return пагинированный список
+     */
+    private <T> PageableList<T> getPage(boolean cacheable, String resultType, ParamsQuery query, boolean isNative,
+                                        RequestCriteria requestCriteria, Supplier<PageableList<T>> loader) {
+        return cacheable ? queryResultCache.get(resultType, query, isNative, requestCriteria, loader) : loader.get();
+    }
+
+    /**
+     * Возвращает признак использования кэша результатов запросов. Внутри транзакции кэш не используется:
+     * вызывающий код может ожидать управляемые сущности и видеть собственные незафиксированные изменения.
+     */
+    private boolean isResultCacheable() {
+        return queryResultCache != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Удаляет из кэша результатов запросов результаты, читающие таблицы сущности сервиса,
+     * ее коллекций и каскадно изменяемых связей.
+     */
+    protected void invalidateResultCache() {
+        if (queryResultCache != null) {
+            queryResultCache.invalidate(entityClass);
+        }
+    }
+
+    /**
+     * Выполняет запрос чтения исполнителем {@link ReadOnlyQueryExecutor} в транзакции только для чтения,
+     * если режим не отключен для сервиса. Без исполнителя запрос выполняется в транзакции вызывающего кода.
+     *
+     * @param query запрос
+     * @return результат запроса
+     */
+    protected <T> T executeQuery(Supplier<T> query) {
+        return readOnlyQueryExecutor == null ? query.get() : readOnlyQueryExecutor.execute(query, readOnlyQueries);
+    }
+
+    /**
+     * Выполняет запросы данных и количества с учетом способа подсчета из критериев запроса.
+     * При наличии {@link ConcurrentCountExecutor} запросы выполняются параллельно, иначе - последовательно
+     * в текущей сессии. При выборке по ключу формирует токен продолжения по последней строке страницы.
+     *
+     * @param requestCriteria критерии запроса
+     * @param dataQuery       запрос данных
+     * @param countQuery      запрос количества
+     * @param rowProperties   свойства строки результата, содержащие значения полей сортировки
+     * @return пагинированный список
+     */
+    private <T> PageableList<T> executePagination(RequestCriteria requestCriteria, Supplier<List<T>> dataQuery,
+                                                  Function<EntityManager, Long> countQuery,
+                                                  Function<List<RequestSort>, List<String>> rowProperties) {
+        CountMode countMode = requestCriteria.getCountMode();
+        PageableList<T> result;
+        if (!countMode.isCountRequired(KeysetUtils.getPage(requestCriteria))) {
+            result = new PageableList<>(dataQuery.get(), null);
+        } else if (concurrentCountExecutor == null) {
+            result = new PageableList<>(dataQuery.get(), countQuery.apply(em));
+        } else {
+            result = concurrentCountExecutor.execute(em.unwrap(Session.class), dataQuery, countQuery);
+        }
+        if (requestCriteria.isKeyset()) {
+            List<RequestSort> sorts = requestCriteria.getEffectiveSorts();
+            List<String> properties = rowProperties.apply(sorts);
+            return KeysetUtils.createPage(result.getData(), result.getTotalCount(), requestCriteria, sorts,
+                    row -> KeysetUtils.readValues(row, properties));
+        }
+        return countMode.createList(result.getData(), result.getTotalCount(), requestCriteria.getPage(),
+                requestCriteria.getSize());
+    }
+
+    /**
+     * Выполняет запрос страницы в два этапа: выбирает идентификаторы строк страницы без выборки связей,
+     * затем загружает сущности со связями по идентификаторам и упорядочивает их в порядке идентификаторов.
+     * Позволяет ограничить страницу в БД для запросов с join fetch, для которых Hibernate применяет ограничение в памяти.
+     *
+     * @param query           запрос
+     * @param requestCriteria критерии запроса
+     * @return строки страницы
+     */
+    private List<E> getDeferredFetchPage(ParamsQuery query, RequestCriteria requestCriteria) {
+        Set<Object> ids = new LinkedHashSet<>(applyPage(em.createQuery(query.getIdQueryString()), query,
+                requestCriteria).getResultList());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<E> rows = em.createQuery(query.getFetchQueryString(), entityClass)
+                .setParameter(DEFERRED_IDS_PARAM, ids)
                 .getResultList();
-        Long count = ((BigInteger) applyQueryParams(em.createNativeQuery(query.getCountQueryString()), query.getParams())
-                .getSingleResult()).longValue();
-        return new PageableList<>(resultList, count);
+        Map<Object, E> rowsById = new HashMap<>();
+        for (E row : rows) {
+            rowsById.putIfAbsent(row.getId(), row);
+        }
+        List<E> result = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            E row = rowsById.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет нативный запрос, выбирающий данные и общее количество строк одним запросом.
+     * Столбец с количеством добавляется к результату отображения и отделяется от него после выполнения.
+     * Если страница пуста, количество определяется отдельным запросом.
+     *
+     * @param query                запрос
+     * @param requestCriteria      критерии запроса
+     * @param resultSetMappingName наименование отображения результата
+     * @return пагинированный список
+     */
+    private <T> PageableList<T> getWithWindowCount(ParamsQuery query, RequestCriteria requestCriteria,
+                                                   String resultSetMappingName) {
+        Session session = em.unwrap(Session.class);
+        NativeQuery<?> nativeQuery = session.createNativeQuery(query.getQueryString());
+        Function<Object[], Object> rowMapper = NativeQueryUtils.addResultSetMapping(nativeQuery,
+                (SessionFactoryImplementor) session.getSessionFactory(), resultSetMappingName,
+                WINDOW_COUNT_COLUMN, StandardBasicTypes.LONG);
+        List<?> rows = applyPage(nativeQuery, query, requestCriteria).getResultList();
+        Long count = null;
+        List<T> data = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] values = (Object[]) row;
+            count = (Long) values[values.length - 1];
+            data.add((T) rowMapper.apply(values));
+        }
+        if (count == null) {
+            count = requestCriteria.getPage() == 0 ? 0L : count(em, query, CountMode.ALWAYS);
+        }
+        return requestCriteria.getCountMode().createList(data, count, requestCriteria.getPage(),
+                requestCriteria.getSize());
+    }
+
+    /**
+     * Выполняет запрос количества. При ограниченном подсчете подсчитывается не более limit + 1 строк
+     * запросом select count(1) from (... с ограничением) q, возвращающим одну строку.
+     *
+     * @param countEm   менеджер сущностей для выполнения запроса
+     * @param query     запрос
+     * @param countMode способ подсчета
+     * @return количество строк
+     */
+    private Long count(EntityManager countEm, ParamsQuery query, CountMode countMode) {
+        if (CountModeType.BOUNDED.equals(countMode.getType())) {
+            return boundedCount(countEm, query, (int) Math.min(countMode.getLimit() + 1, Integer.MAX_VALUE));
+        }
+        String queryString = query.getCountQueryString();
+        Query countQuery = applyQueryParams(query.isCountNative() ? countEm.createNativeQuery(queryString) :
+                countEm.createQuery(queryString), query.getCountParams());
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+
+    /**
+     * Выполняет ограниченный подсчет. HQL запрос предварительно транслируется в SQL, если значения его параметров
+     * не требуют преобразования типом Hibernate (перечисления, сущности). Иначе, а также если диалект
+     * не поддерживает ограничение в тексте запроса, выбирается не более limit строк.
+     */
+    private Long boundedCount(EntityManager countEm, ParamsQuery query, int limit) {
+        String queryString = query.getLimitedCountQueryString();
+        String countSql = null;
+        if (query.isCountNative() || isNativeParams(query.getCountParams())) {
+            SessionFactoryImplementor sessionFactory = countEm.unwrap(SessionImplementor.class).getFactory();
+            String sql = query.isCountNative() ? queryString : hqlQueryService.getTranslatedSql(sessionFactory, queryString);
+            countSql = NativeQueryUtils.getLimitedCountSql(sessionFactory.getJdbcServices().getDialect(), sql, limit);
+        }
+        if (countSql != null) {
+            return ((Number) applyQueryParams(countEm.createNativeQuery(countSql), query.getCountParams())
+                    .getSingleResult()).longValue();
+        }
+        Query countQuery = applyQueryParams(query.isCountNative() ? countEm.createNativeQuery(queryString) :
+                countEm.createQuery(queryString), query.getCountParams());
+        return (long) countQuery.setMaxResults(limit).getResultList().size();
+    }
+
+    /**
+     * Проверяет, что значения параметров HQL запроса могут быть переданы в нативный запрос без преобразования.
+     */
+    private static boolean isNativeParams(Map<String, Object> params) {
+        if (isEmpty(params)) {
+            return true;
+        }
+        for (Object value : params.values()) {
+            Iterable<?> values = value instanceof Collection ? (Collection<?>) value : Collections.singletonList(value);
+            for (Object item : values) {
+                if (item != null && (item instanceof Enum || !item.getClass().getName().startsWith("java."))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Query applyPage(Query query, ParamsQuery paramsQuery, RequestCriteria requestCriteria) {
+        if (concurrentCountExecutor != null) {
+            concurrentCountExecutor.applyTimeout(query);
+        }
+        applyQueryParams(query, paramsQuery.getParams());
+        if (requestCriteria.isKeyset()) {
+            // страница начинается условием выборки по ключу, лишняя строка определяет наличие следующей страницы
+            return query.setMaxResults(requestCriteria.getSize() + 1);
+        }
+        return query.setFirstResult(requestCriteria.getPage() * requestCriteria.getSize())
+                .setMaxResults(requestCriteria.getCountMode().getFetchSize(requestCriteria.getSize()));
     }
 
     private Query applyQueryParams(Query query, Map<String, Object> params) {
@@ -160,6 +723,43 @@ public abstract class BaseDao<E extends BaseEntity> {
         return converterUtil;
     }
 
+    /**
+     * Устанавливает количество строк, получаемых драйвером JDBC за одно обращение к БД при потоковом чтении.
+     */
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    /**
+     * Устанавливает количество строк потокового чтения, после которого очищается контекст персистентности.
+     */
+    public void setStreamClearInterval(int streamClearInterval) {
+        if (streamClearInterval <= 0) {
+            throw new IllegalArgumentException("Интервал очистки контекста должен быть больше 0");
+        }
+        this.streamClearInterval = streamClearInterval;
+    }
+
+    /**
+     * Устанавливает размер пакета JDBC и интервал сброса контекста персистентности при пакетном сохранении.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть больше 0");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Устанавливает максимальное количество идентификаторов в одном запросе пакетного удаления.
+     */
+    public void setDeleteChunkSize(int deleteChunkSize) {
+        if (deleteChunkSize <= 0) {
+            throw new IllegalArgumentException("Размер части списка идентификаторов должен быть больше 0");
+        }
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
     @Autowired
     public void setEm(EntityManager em) {
         this.em = em;
@@ -179,4 +779,32 @@ public abstract class BaseDao<E extends BaseEntity> {
     public void setHqlQueryService(HqlQueryService hqlQueryService) {
         this.hqlQueryService = hqlQueryService;
     }
+
+    @Autowired(required = false)
+    public void setConcurrentCountExecutor(ConcurrentCountExecutor concurrentCountExecutor) {
+        this.concurrentCountExecutor = concurrentCountExecutor;
+    }
+
+    /**
+     * Устанавливает признак выполнения методов чтения в транзакции только для чтения. Отключение требуется,
+     * если загруженные сущности изменяются вне транзакции вызывающего кода и изменения должны быть сохранены.
+     */
+    public void setReadOnlyQueries(boolean readOnlyQueries) {
+        this.readOnlyQueries = readOnlyQueries;
+    }
+
+    @Autowired(required = false)
+    public void setReadOnlyQueryExecutor(ReadOnlyQueryExecutor readOnlyQueryExecutor) {
+        this.readOnlyQueryExecutor = readOnlyQueryExecutor;
+    }
+
+    @Autowired(required = false)
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    @Autowired
+    public void setParsedQueryCache(ParsedQueryCache parsedQueryCache) {
+        this.parsedQueryCache = parsedQueryCache;
+    }
 }
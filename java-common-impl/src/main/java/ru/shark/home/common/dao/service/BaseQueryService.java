@@ -2,45 +2,71 @@ package ru.shark.home.common.dao.service;
 
 import ru.shark.home.common.common.Constants;
 import ru.shark.home.common.common.ErrorConstants;
+import ru.shark.home.common.dao.common.KeysetToken;
+import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
 import ru.shark.home.common.dao.repository.query.ParsedQuery;
 import ru.shark.home.common.dao.repository.query.QueryParser;
 import ru.shark.home.common.dao.repository.query.QueryPartType;
+import ru.shark.home.common.dao.repository.query.generator.GeneratorConstants;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseRequest;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseType;
+import ru.shark.home.common.dao.util.KeysetUtils;
+import ru.shark.home.common.dao.util.InListPadding;
+import ru.shark.home.common.dao.util.QueryUtils;
+import ru.shark.home.common.dao.util.SparseFieldsUtils;
 import ru.shark.home.common.enums.FieldType;
 import ru.shark.home.common.enums.FilterOperation;
 import ru.shark.home.common.util.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_ARRAY_SUFFIX;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.KEYSET_PARAM_PREFIX;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
 
 public abstract class BaseQueryService {
+    /**
+     * Типы частей запроса, начало которых ищется при разборе (SELECT всегда является первой частью).
+     */
+    private static final QueryPartType[] PARSING_TYPES = Stream.of(QueryPartType.values())
+            .filter(item -> !QueryPartType.SELECT.equals(item))
+            .toArray(QueryPartType[]::new);
+
     protected QueryClauseGenerator queryClauseGenerator;
+    protected ParamsQueryCache paramsQueryCache = new ParamsQueryCache();
+    protected InListPadding inListPadding;
 
     public ParsedQuery parseQuery(String query, List<String> searchFields, List<String> advancedSearchFields,
                                   Map<QueryPartType, BiConsumer<ParsedQuery, String>> partTypeConsumers) {
         ParsedQuery parsedQuery = new ParsedQuery(searchFields, advancedSearchFields);
         QueryParser state = new QueryParser(query);
-        List<QueryPartType> parsingTypes = Stream.of(QueryPartType.values()).filter(item -> !QueryPartType.SELECT.equals(item)).collect(Collectors.toList());
 
         while (state.hasNext()) {
             state.nextPart();
-            Optional<QueryPartType> starterPartType = parsingTypes.stream().filter(state::isPartStarted)
-                    .findAny();
-            starterPartType.ifPresent(type -> partTypeConsumers.get(state.getCurrentPartType()).accept(parsedQuery, state.changeCurrentPart(type)));
+            for (QueryPartType type : PARSING_TYPES) {
+                if (state.isPartStarted(type)) {
+                    partTypeConsumers.get(state.getCurrentPartType()).accept(parsedQuery, state.changeCurrentPart(type));
+                    break;
+                }
+            }
         }
         partTypeConsumers.get(state.getCurrentPartType()).accept(parsedQuery, state.getLastPart());
         return parsedQuery;
@@ -55,29 +81,187 @@ public abstract class BaseQueryService {
      * @return собранная базовая часть запроса
      */
     protected String getBaseQuery(ParsedQuery query, QueryClauseRequest request, boolean isNative) {
-        String searchClause = queryClauseGenerator.generate(QueryClauseType.SEARCH, isNative, request);
-        String filterClause = queryClauseGenerator.generate(QueryClauseType.FILTER, isNative, request);
+        return getBaseQuery(query, isNative, queryClauseGenerator.generate(QueryClauseType.SEARCH, isNative, request),
+                queryClauseGenerator.generate(QueryClauseType.FILTER, isNative, request));
+    }
 
+    /**
+     * Возвращает основную часть запроса данных. При продолжении выборки по ключу дополняет базовую часть
+     * условием выборки строк, следующих за последней строкой предыдущей страницы. В запрос количества это условие
+     * не входит.
+     *
+     * @param query     разобранный запрос
+     * @param request   параметры для генератора выражений
+     * @param isNative  признак нативного запроса
+     * @param baseQuery базовая часть запроса
+     * @return основная часть запроса данных
+     */
+    protected String getDataBaseQuery(ParsedQuery query, QueryClauseRequest request, boolean isNative, String baseQuery) {
+        RequestCriteria requestCriteria = request.getRequestCriteria();
+        if (!requestCriteria.isKeyset()) {
+            return baseQuery;
+        }
+        if (!isBlank(query.getGroupPart())) {
+            throw new UnsupportedOperationException(ErrorConstants.KEYSET_GROUP_NOT_SUPPORTED);
+        }
+        if (requestCriteria.getContinuationToken() == null) {
+            return baseQuery;
+        }
+        return getBaseQuery(query, isNative, queryClauseGenerator.generate(QueryClauseType.SEARCH, isNative, request),
+                queryClauseGenerator.generate(QueryClauseType.FILTER, isNative, request),
+                queryClauseGenerator.generate(QueryClauseType.KEYSET, isNative, request));
+    }
+
+    private String getBaseQuery(ParsedQuery query, boolean isNative, String... clauses) {
+        String condition = Stream.of(clauses).filter(clause -> !isBlank(clause)).collect(Collectors.joining(" and "));
         StringBuilder sb = new StringBuilder()
                 .append(query.getFromPart().getValue())
                 .append(isBlank(query.getWherePart()) ? "" : " " + query.getWherePart().trim());
-        if (!isBlank(searchClause) || !isBlank(filterClause)) {
-            if (isBlank(query.getWherePart())) {
-                sb.append(" where ");
-            } else {
-                sb.append(" and ");
+        if (!condition.isEmpty()) {
+            sb.append(isBlank(query.getWherePart()) ? " where " : " and ").append(condition);
+        }
+        sb.append(isBlank(query.getGroupPart()) ? "" : " " + query.getGroupPart().trim());
+        return sb.toString();
+    }
+
+    /**
+     * Возвращает часть SELECT запроса данных: при заданных в критериях полях - сокращенную до них и идентификатора.
+     * При выборке по ключу сохраняются также поля сортировки, по значениям которых формируется токен продолжения.
+     *
+     * @param query           разобранный запрос
+     * @param requestCriteria критерии запроса
+     * @param isNative        признак нативного запроса
+     * @return часть SELECT
+     * @see SparseFieldsUtils#pruneSelectPart(String, java.util.Collection, boolean)
+     */
+    protected String getDataSelectPart(ParsedQuery query, RequestCriteria requestCriteria, boolean isNative) {
+        String selectPart = query.getSelectPart().trim();
+        if (isEmpty(requestCriteria.getFields())) {
+            return selectPart;
+        }
+        Set<String> fields = new HashSet<>(requestCriteria.getFields());
+        if (requestCriteria.isKeyset()) {
+            for (String property : KeysetUtils.getRowProperties(requestCriteria.getEffectiveSorts(), isNative)) {
+                // строка читается по пути свойства (объект) или по последнему элементу пути (карта)
+                fields.add(property.split("\\.")[0]);
+                fields.add(property.substring(property.lastIndexOf('.') + 1));
+            }
+        }
+        return SparseFieldsUtils.pruneSelectPart(selectPart, fields, isNative);
+    }
+
+    /**
+     * Формирует итоговый запрос по шаблону (текстам запросов) и параметрам запроса.
+     * Значение поиска передается параметром {@value ru.shark.home.common.dao.repository.query.generator.GeneratorConstants#SEARCH_PARAM},
+     * если условие поиска вошло в текст запроса.
+     *
+     * @param template        шаблон запроса
+     * @param requestCriteria критерии запроса
+     * @param params          базовые параметры
+     * @return запрос с параметрами
+     */
+    protected ParamsQuery bindParams(ParamsQuery template, RequestCriteria requestCriteria, Map<String, Object> params) {
+        return bindParams(template, requestCriteria, params, null);
+    }
+
+    /**
+     * Формирует итоговый запрос по шаблону (текстам запросов) и параметрам запроса.
+     * Значения токена выборки по ключу передаются параметрами keyset_i, кроме пустых значений,
+     * для которых условие формируется без параметров.
+     *
+     * @param template        шаблон запроса
+     * @param requestCriteria критерии запроса
+     * @param params          базовые параметры
+     * @param entityClass     класс сущности для определения типов перечислений токена или null для нативных запросов
+     * @return запрос с параметрами
+     */
+    protected ParamsQuery bindParams(ParamsQuery template, RequestCriteria requestCriteria, Map<String, Object> params,
+                                     Class<?> entityClass) {
+        Map<String, Object> countParams = combineParams(requestCriteria.getFilters(), params);
+        if (requestCriteria.getSearch() != null && template.getQueryString().contains(":" + SEARCH_PARAM)) {
+            countParams = new HashMap<>(countParams);
+            countParams.put(SEARCH_PARAM, requestCriteria.getSearch().getParamValue());
+        }
+        countParams = bindArrayParams(template, requestCriteria.getFilters(), countParams);
+        countParams = bindInChunkParams(requestCriteria.getFilters(), countParams);
+        ParamsQuery result;
+        if (requestCriteria.getContinuationToken() == null) {
+            result = new ParamsQuery(template.getQueryString(), template.getCountQueryString(), template.isCountNative(),
+                    template.isCountInQuery(), countParams);
+        } else {
+            Map<String, Object> dataParams = new HashMap<>(countParams);
+            List<RequestSort> sorts = requestCriteria.getEffectiveSorts();
+            List<Object> values = KeysetToken.decode(requestCriteria.getContinuationToken()).getValues(sorts, entityClass);
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    dataParams.put(KEYSET_PARAM_PREFIX + i, values.get(i));
+                }
             }
+            result = new ParamsQuery(template.getQueryString(), template.getCountQueryString(), template.isCountNative(),
+                    template.isCountInQuery(), dataParams, countParams);
+        }
+        if (template.isDeferredFetch()) {
+            result.setDeferredFetch(template.getIdQueryString(), template.getFetchQueryString());
+        }
+        return result;
+    }
 
-            if (!isBlank(searchClause)) {
-                sb.append(searchClause);
+    /**
+     * Заменяет списки значений фильтров IN, сформированных сравнением с массивом, на строковый параметр
+     * с суффиксом _array, содержащий значения через разделитель.
+     *
+     * @param template шаблон запроса
+     * @param filters  фильтры
+     * @param params   параметры запроса
+     * @return параметры запроса
+     */
+    private Map<String, Object> bindArrayParams(ParamsQuery template, List<RequestFilter> filters, Map<String, Object> params) {
+        if (isEmpty(filters)) {
+            return params;
+        }
+        Map<String, Object> result = params;
+        for (RequestFilter filter : filters) {
+            String name = "filter_" + filter.getField();
+            if (FilterOperation.IN.equals(filter.getOperation()) && !isBlank(filter.getValue())
+                    && template.getQueryString().contains(":" + name + FILTER_ARRAY_SUFFIX)) {
+                result = result == params ? new HashMap<>(params) : result;
+                result.remove(name);
+                result.put(name + FILTER_ARRAY_SUFFIX, filter.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Заменяет списки значений фильтров IN длиннее {@link GeneratorConstants#FILTER_IN_CHUNK_SIZE} на параметры
+     * с суффиксами _0, _1 и т.д., содержащие части списка.
+     *
+     * @param filters фильтры
+     * @param params  параметры запроса
+     * @return параметры запроса
+     * @see QueryUtils#getInClause(String, String, int)
+     */
+    private Map<String, Object> bindInChunkParams(List<RequestFilter> filters, Map<String, Object> params) {
+        if (isEmpty(filters)) {
+            return params;
+        }
+        Map<String, Object> result = params;
+        for (RequestFilter filter : filters) {
+            String name = "filter_" + filter.getField();
+            Object value = params.get(name);
+            if (!FilterOperation.IN.equals(filter.getOperation()) || !(value instanceof List)
+                    || ((List<?>) value).size() <= GeneratorConstants.FILTER_IN_CHUNK_SIZE) {
+                continue;
             }
-            if (!isBlank(filterClause)) {
-                sb.append((!isBlank(searchClause) ? " and " : ""))
-                        .append(filterClause);
+            List<?> values = (List<?>) value;
+            result = result == params ? new HashMap<>(params) : result;
+            result.remove(name);
+            for (int i = 0; i * GeneratorConstants.FILTER_IN_CHUNK_SIZE < values.size(); i++) {
+                result.put(name + "_" + i, new ArrayList<>(values.subList(i * GeneratorConstants.FILTER_IN_CHUNK_SIZE,
+                        Math.min((i + 1) * GeneratorConstants.FILTER_IN_CHUNK_SIZE, values.size()))));
             }
         }
-        sb.append(isBlank(query.getGroupPart()) ? "" : " " + query.getGroupPart().trim());
-        return sb.toString();
+        return result;
     }
 
     /**
@@ -107,18 +291,23 @@ public abstract class BaseQueryService {
 
     /**
      * Приведение значение фильтра к нужному типу. Используется для фильтров с оператором отличным от BETWEEN.
-     * Преобразует единичные и списочные значения.
+     * Преобразует единичные и списочные значения. Если задан {@link InListPadding}, списочные значения
+     * дополняются до размера из ограниченного набора (длинные списки не дополняются). В значении фильтра по началу строки экранируются символы % и _,
+     * а само значение дополняется символом %.
      *
      * @param filter фильтр для обработки
      * @return значение приведенное к нужному типу
      */
     private Object prepareFilterValue(RequestFilter filter) {
         if (FilterOperation.IN.equals(filter.getOperation())) {
-            return Stream.of(filter.getValue().split(Constants.FILTER_LIST_DELIMITER))
-                    .map(value -> prepareSingleFilterValue(filter))
+            List<Object> values = Stream.of(filter.getValue().split(Constants.FILTER_LIST_DELIMITER))
+                    .map(value -> prepareSingleFilterValue(filter.getFieldType(), value))
                     .collect(Collectors.toList());
+            return inListPadding == null ? values : inListPadding.pad(values);
+        } else if (FilterOperation.PREFIX.equals(filter.getOperation())) {
+            return QueryUtils.getPrefixPattern(filter.getValue());
         } else {
-            return prepareSingleFilterValue(filter);
+            return prepareSingleFilterValue(filter.getFieldType(), filter.getValue());
         }
     }
 
@@ -161,25 +350,45 @@ public abstract class BaseQueryService {
      * Приводит строковое значение для фильтра к нужному типу, в зависимости от типа поля.
      * Для перечислений предполагается хранение их в БД в виде строки.
      *
-     * @param filter данные фильтра
+     * @param fieldType тип поля
+     * @param value     строковое значение
      * @return приведенное значение
      */
-    private Object prepareSingleFilterValue(RequestFilter filter) {
-        switch (filter.getFieldType()) {
+    private Object prepareSingleFilterValue(FieldType fieldType, String value) {
+        switch (fieldType) {
             case STRING:
             case ENUM:
-                return filter.getValue();
+                return value;
             case INTEGER:
-                return Long.parseLong(filter.getValue());
+                return Long.parseLong(value);
             case BOOL:
-                return Boolean.parseBoolean(filter.getValue());
+                return Boolean.parseBoolean(value);
             case DATE:
-                return DateUtils.parseDate(filter.getValue());
+                return DateUtils.parseDate(value);
             default:
-                throw new UnsupportedOperationException("Не поддерживаемый тип поля " + filter.getFieldType().name());
+                throw new UnsupportedOperationException("Не поддерживаемый тип поля " + fieldType.name());
         }
     }
 
+    /**
+     * Устанавливает способ дополнения списков значений условия IN.
+     *
+     * @param inListPadding способ дополнения списков, null - списки не дополняются
+     */
+    @Autowired(required = false)
+    public void setInListPadding(InListPadding inListPadding) {
+        this.inListPadding = inListPadding;
+    }
+
+    public ParamsQueryCache getParamsQueryCache() {
+        return paramsQueryCache;
+    }
+
+    @Autowired
+    public void setParamsQueryCache(ParamsQueryCache paramsQueryCache) {
+        this.paramsQueryCache = paramsQueryCache;
+    }
+
     @Autowired
     public void setQueryClauseGenerator(QueryClauseGenerator queryClauseGenerator) {
         this.queryClauseGenerator = queryClauseGenerator;
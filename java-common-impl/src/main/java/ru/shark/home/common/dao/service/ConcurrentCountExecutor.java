@@ -0,0 +1,202 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.exception.CommonException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static ru.shark.home.common.common.ErrorConstants.COUNT_QUERY_ERROR;
+import static ru.shark.home.common.common.ErrorConstants.COUNT_QUERY_TIMEOUT;
+
+/**
+ * Параллельное выполнение запросов данных и количества при пагинации.
+ * Запрос количества выполняется в переданном пуле потоков на отдельном соединении в режиме только для чтения,
+ * пока в текущем потоке выполняется запрос данных. При ошибке одного из запросов выполнение другого отменяется.
+ * Запрос количества не видит незафиксированные изменения текущей транзакции.
+ */
+public class ConcurrentCountExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCountExecutor.class);
+    public static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Executor executor;
+    private final long timeout;
+
+    /**
+     * @param entityManagerFactory фабрика для создания менеджеров сущностей запроса количества
+     * @param executor             пул потоков для выполнения запроса количества
+     * @param timeout              время ожидания выполнения запросов в миллисекундах, 0 - без ограничения
+     */
+    public ConcurrentCountExecutor(EntityManagerFactory entityManagerFactory, Executor executor, long timeout) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Выполняет запросы данных и количества параллельно.
+     *
+     * @param dataSession сессия, в которой выполняется запрос данных
+     * @param dataQuery   запрос данных, выполняется в текущем потоке
+     * @param countQuery  запрос количества, выполняется переданным менеджером сущностей в отдельном потоке
+     * @return пагинированный список
+     */
+    public <T> PageableList<T> execute(Session dataSession, Supplier<List<T>> dataQuery,
+                                       Function<EntityManager, Long> countQuery) {
+        CountTask countTask = new CountTask(countQuery);
+        FutureTask<Long> countFuture = new FutureTask<>(countTask) {
+            @Override
+            protected void done() {
+                if (!isCancelled() && isFailed(this)) {
+                    cancelQuery(dataSession);
+                }
+            }
+        };
+        executor.execute(countFuture);
+
+        List<T> data;
+        try {
+            data = dataQuery.get();
+        } catch (RuntimeException e) {
+            cancel(countFuture, countTask);
+            throw e;
+        }
+        return new PageableList<>(data, waitCount(countFuture, countTask));
+    }
+
+    /**
+     * Устанавливает запросу время ожидания выполнения.
+     *
+     * @param query запрос
+     * @return запрос
+     */
+    public Query applyTimeout(Query query) {
+        if (timeout > 0) {
+            query.setHint(QUERY_TIMEOUT_HINT, (int) timeout);
+        }
+        return query;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    private Long waitCount(FutureTask<Long> countFuture, CountTask countTask) {
+        try {
+            return timeout > 0 ? countFuture.get(timeout, TimeUnit.MILLISECONDS) : countFuture.get();
+        } catch (TimeoutException e) {
+            cancel(countFuture, countTask);
+            throw new CommonException(MessageFormat.format(COUNT_QUERY_TIMEOUT, timeout));
+        } catch (InterruptedException e) {
+            cancel(countFuture, countTask);
+            Thread.currentThread().interrupt();
+            throw new CommonException(MessageFormat.format(COUNT_QUERY_ERROR, e.getMessage()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CommonException(MessageFormat.format(COUNT_QUERY_ERROR, e.getCause().getMessage()));
+        }
+    }
+
+    private void cancel(FutureTask<Long> countFuture, CountTask countTask) {
+        countFuture.cancel(true);
+        cancelQuery(countTask.session);
+    }
+
+    private static boolean isFailed(FutureTask<Long> future) {
+        try {
+            future.get();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void cancelQuery(Session session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.cancelQuery();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Не удалось отменить выполнение запроса", e);
+        }
+    }
+
+    /**
+     * Задача выполнения запроса количества на отдельном соединении только для чтения.
+     */
+    private final class CountTask implements Callable<Long> {
+        private final Function<EntityManager, Long> countQuery;
+        private volatile Session session;
+
+        private CountTask(Function<EntityManager, Long> countQuery) {
+            this.countQuery = countQuery;
+        }
+
+        @Override
+        public Long call() {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                if (timeout > 0) {
+                    entityManager.setProperty(QUERY_TIMEOUT_HINT, (int) timeout);
+                }
+                Session countSession = entityManager.unwrap(Session.class);
+                countSession.setDefaultReadOnly(true);
+                session = countSession;
+                EntityTransaction transaction = entityManager.getTransaction();
+                transaction.begin();
+                boolean wasReadOnly = countSession.doReturningWork(connection -> {
+                    boolean readOnly = connection.isReadOnly();
+                    connection.setReadOnly(true);
+                    return readOnly;
+                });
+                try {
+                    return countQuery.apply(entityManager);
+                } finally {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    if (!wasReadOnly) {
+                        resetReadOnly(countSession);
+                    }
+                }
+            } finally {
+                session = null;
+                entityManager.close();
+            }
+        }
+
+        /**
+         * Возвращает соединению признак "только для чтения", снятый до выполнения запроса количества,
+         * чтобы соединение не вернулось в пул доступным только для чтения.
+         */
+        private void resetReadOnly(Session countSession) {
+            try {
+                countSession.doWork(connection -> connection.setReadOnly(false));
+            } catch (RuntimeException e) {
+                LOGGER.debug("Не удалось сбросить признак соединения только для чтения", e);
+            }
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package ru.shark.home.common.dao.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import org.hibernate.MappingException;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
 import org.hibernate.hql.spi.QueryTranslator;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
 import org.springframework.stereotype.Component;
 import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.repository.query.ParsedQuery;
@@ -11,21 +19,48 @@ import ru.shark.home.common.dao.repository.query.QueryPartType;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseRequest;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseType;
 import ru.shark.home.common.dao.repository.query.parts.HqlFromQueryPart;
+import ru.shark.home.common.dao.util.NativeQueryUtils;
+import ru.shark.home.common.dao.util.ProjectionUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.common.ErrorConstants.BULK_UPDATE_INVALID_FIELD;
+import static ru.shark.home.common.common.ErrorConstants.BULK_UPDATE_WITHOUT_VALUES;
+import static ru.shark.home.common.common.ErrorConstants.PROJECTION_GROUP_NOT_SUPPORTED;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.COUNT_SELECT;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.DEFERRED_IDS_PARAM;
 
 @Component
 public class HqlQueryService extends BaseQueryService implements QueryService {
 
+    public static final long DEFAULT_COUNT_SQL_CACHE_SIZE = 1000;
+    private static final Pattern FIELD_PATTERN = Pattern.compile("[A-Za-z_]\\w*(\\.[A-Za-z_]\\w*)*");
+    private static final Pattern SELECT_ALIAS_PATTERN = Pattern.compile("^\\s*select\\s+(?:distinct\\s+)?(\\w+)\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
     private EntityManager entityManager;
     private ASTQueryTranslatorFactory queryTranslatorFactory;
+    /**
+     * Кэш SQL, полученного трансляцией HQL для запросов количества. Ключ - текст HQL запроса.
+     * Действителен только для фабрики сессий, которой выполнялась трансляция.
+     */
+    private final Cache<String, String> countSqlCache = CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_COUNT_SQL_CACHE_SIZE)
+            .recordStats()
+            .build();
+    private volatile SessionFactoryImplementor countSqlSessionFactory;
     private final Map<QueryPartType, BiConsumer<ParsedQuery, String>> partTypeConsumers = Map.of(
             QueryPartType.SELECT, ParsedQuery::setSelectPart,
             QueryPartType.FROM, (parsed, part) -> parsed.setFromPart(new HqlFromQueryPart(part)),
@@ -61,30 +96,228 @@ public class HqlQueryService extends BaseQueryService implements QueryService {
 
     @Override
     public ParamsQuery generateParamsQuery(ParsedQuery query, RequestCriteria requestCriteria, Map<String, Object> params) {
+        ParamsQuery template = paramsQueryCache.get(query, requestCriteria, () -> generateQueryTemplate(query, requestCriteria));
+        return bindParams(template, requestCriteria, params,
+                requestCriteria.getContinuationToken() == null ? null : getMainEntityClass(query));
+    }
+
+    /**
+     * Возвращает класс главной сущности запроса. Используется для определения типов значений токена выборки по ключу.
+     *
+     * @param query разобранный запрос
+     * @return класс сущности или null, если сущность не найдена
+     */
+    private Class<?> getMainEntityClass(ParsedQuery query) {
+        String entityName = ((HqlFromQueryPart) query.getFromPart()).getMainEntityName();
+        if (entityName == null) {
+            return null;
+        }
+        MetamodelImplementor metamodel = entityManager.unwrap(SessionImplementor.class).getFactory().getMetamodel();
+        try {
+            return metamodel.entityPersister(metamodel.getImportedClassName(entityName)).getMappedClass();
+        } catch (MappingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Формирует разобранный запрос проекции: часть SELECT заменяется выборкой полей сущности по свойствам DTO
+     * (см. {@link ProjectionUtils#getProjectionPaths(Class)}), выборка связей (join fetch) заменяется
+     * обычным соединением. Условия, поиск, сортировка и пагинация формируются для него как для исходного запроса.
+     *
+     * @param query    разобранный запрос
+     * @param dtoClass класс DTO
+     * @return разобранный запрос проекции
+     */
+    public ParsedQuery createProjectionQuery(ParsedQuery query, Class<?> dtoClass) {
+        if (!isBlank(query.getGroupPart())) {
+            throw new UnsupportedOperationException(PROJECTION_GROUP_NOT_SUPPORTED);
+        }
+        HqlFromQueryPart fromPart = (HqlFromQueryPart) query.getFromPart();
+        HqlFromQueryPart projectionFromPart = fromPart.hasFetchJoins() ?
+                new HqlFromQueryPart(fromPart.getValueWithoutFetch()) : fromPart;
+        return query.withSelect(ProjectionUtils.getSelectPart(projectionFromPart,
+                ProjectionUtils.getProjectionPaths(dtoClass)), projectionFromPart);
+    }
+
+    /**
+     * Генерирует запрос массового обновления строк, отобранных фильтрами и поиском критериев.
+     * Сортировка и страница критериев не учитываются.
+     *
+     * @param query           разобранный запрос вида "from Entity alias"
+     * @param requestCriteria критерии запроса
+     * @param setValues       новые значения полей, ключ - поле сущности
+     * @return запрос с параметрами
+     */
+    public ParamsQuery generateUpdateQuery(ParsedQuery query, RequestCriteria requestCriteria,
+                                           Map<String, Object> setValues) {
+        if (isEmpty(setValues)) {
+            throw new IllegalArgumentException(BULK_UPDATE_WITHOUT_VALUES);
+        }
+        HqlFromQueryPart fromPart = (HqlFromQueryPart) query.getFromPart();
+        String prefix = isBlank(fromPart.getMainTableAlias()) ? "" : fromPart.getMainTableAlias() + ".";
+        Map<String, Object> params = new HashMap<>();
+        List<String> assignments = new ArrayList<>(setValues.size());
+        for (Map.Entry<String, Object> entry : setValues.entrySet()) {
+            if (!FIELD_PATTERN.matcher(entry.getKey()).matches()) {
+                throw new IllegalArgumentException(MessageFormat.format(BULK_UPDATE_INVALID_FIELD, entry.getKey()));
+            }
+            String param = "set_" + entry.getKey().replace('.', '_');
+            assignments.add(prefix + entry.getKey() + " = :" + param);
+            params.put(param, entry.getValue());
+        }
+        String baseQuery = getBaseQuery(query, new QueryClauseRequest(requestCriteria, query), false);
+        String where = baseQuery.substring(fromPart.getValue().length());
+        return bindParams(new ParamsQuery("update " + fromPart.getValue().substring("from".length()).trim() +
+                " set " + String.join(", ", assignments) + where, null, false, null), requestCriteria, params);
+    }
+
+    /**
+     * Генерирует запрос массового удаления строк, отобранных фильтрами и поиском критериев.
+     * Сортировка и страница критериев не учитываются.
+     *
+     * @param query           разобранный запрос вида "from Entity alias"
+     * @param requestCriteria критерии запроса
+     * @return запрос с параметрами
+     */
+    public ParamsQuery generateDeleteQuery(ParsedQuery query, RequestCriteria requestCriteria) {
+        String baseQuery = getBaseQuery(query, new QueryClauseRequest(requestCriteria, query), false);
+        return bindParams(new ParamsQuery("delete " + baseQuery, null, false, null), requestCriteria, null);
+    }
+
+    /**
+     * Генерирует тексты запросов данных и количества без параметров.
+     *
+     * @param query           разобранный запрос
+     * @param requestCriteria критерии запроса
+     * @return шаблон запроса
+     */
+    private ParamsQuery generateQueryTemplate(ParsedQuery query, RequestCriteria requestCriteria) {
         QueryClauseRequest request = new QueryClauseRequest(requestCriteria, query);
         String baseQuery = getBaseQuery(query, request, false);
+        String dataBaseQuery = getDataBaseQuery(query, request, false, baseQuery);
         String order = queryClauseGenerator.generate(QueryClauseType.ORDER, false, request);
         if (isBlank(order)) {
             order = isBlank(query.getOrderPart()) ? "" : " " + query.getOrderPart().trim();
         } else {
             order = " order by " + order;
         }
+        if (isDeferredFetchApplicable(query)) {
+            return generateDeferredFetchTemplate(query, baseQuery, dataBaseQuery, order);
+        }
         boolean isCountNative = !isBlank(query.getGroupPart());
-        return new ParamsQuery(query.getSelectPart().trim() + " " + baseQuery + order,
-                getCountString(isCountNative, query.getSelectPart(), baseQuery), isCountNative,
-                combineParams(requestCriteria.getFilters(), params));
+        return new ParamsQuery(getDataSelectPart(query, requestCriteria, false) + " " + dataBaseQuery + order,
+                getCountString(isCountNative, query.getSelectPart(), baseQuery), isCountNative, null);
+    }
+
+    /**
+     * Возвращает признак применимости отложенной загрузки: запрос выбирает только основную сущность
+     * и содержит выборку связей (join fetch), с которой Hibernate применяет ограничение страницы в памяти.
+     *
+     * @param query разобранный запрос
+     */
+    private boolean isDeferredFetchApplicable(ParsedQuery query) {
+        HqlFromQueryPart fromPart = (HqlFromQueryPart) query.getFromPart();
+        if (!fromPart.hasFetchJoins() || !isBlank(query.getGroupPart()) || isBlank(fromPart.getMainTableAlias())) {
+            return false;
+        }
+        if (isBlank(query.getSelectPart())) {
+            return true;
+        }
+        Matcher matcher = SELECT_ALIAS_PATTERN.matcher(query.getSelectPart());
+        return matcher.find() && matcher.group(1).equals(fromPart.getMainTableAlias());
+    }
+
+    /**
+     * Генерирует шаблон запроса с отложенной загрузкой: запрос идентификаторов страницы и запрос количества
+     * формируются без выборки связей, сущности со связями загружаются отдельным запросом по идентификаторам.
+     *
+     * @param query         разобранный запрос
+     * @param baseQuery     основная часть запроса
+     * @param dataBaseQuery основная часть запроса данных
+     * @param order         сортировка
+     * @return шаблон запроса
+     */
+    private ParamsQuery generateDeferredFetchTemplate(ParsedQuery query, String baseQuery, String dataBaseQuery,
+                                                      String order) {
+        HqlFromQueryPart fromPart = (HqlFromQueryPart) query.getFromPart();
+        String selectPart = isBlank(query.getSelectPart()) ? "select " + fromPart.getMainTableAlias() :
+                query.getSelectPart().trim();
+        String idField = fromPart.getMainTableAlias() + ".id";
+        ParamsQuery template = new ParamsQuery(selectPart + " " + dataBaseQuery + order,
+                COUNT_SELECT + withoutFetch(fromPart, baseQuery), false, null);
+        template.setDeferredFetch("select " + idField + " " + withoutFetch(fromPart, dataBaseQuery) + order,
+                selectPart + " " + fromPart.getValue() + " where " + idField + " in (:" + DEFERRED_IDS_PARAM + ")");
+        return template;
     }
 
-    private String getCountString(boolean isCountNative, String selectPart, String baseQuery) {
+    private String withoutFetch(HqlFromQueryPart fromPart, String baseQuery) {
+        return fromPart.getValueWithoutFetch() + baseQuery.substring(fromPart.getValue().length());
+    }
+
+    protected String getCountString(boolean isCountNative, String selectPart, String baseQuery) {
         if (isCountNative) {
-            SessionImplementor hibernateSession = entityManager.unwrap(SessionImplementor.class);
-            QueryTranslator queryTranslator = queryTranslatorFactory.createQueryTranslator("",
-                    selectPart.trim() + " " + baseQuery, Collections.EMPTY_MAP, hibernateSession.getFactory(),
-                    null);
+            SessionFactoryImplementor sessionFactory = entityManager.unwrap(SessionImplementor.class).getFactory();
+            return COUNT_SELECT + "from (" + getTranslatedSql(sessionFactory, selectPart.trim() + " " + baseQuery) + ") q";
+        }
+        return COUNT_SELECT + baseQuery;
+    }
+
+    /**
+     * Возвращает SQL, полученный трансляцией HQL запроса. Результат трансляции кэшируется по тексту запроса.
+     * Параметры HQL запроса остаются именованными параметрами SQL.
+     *
+     * @param sessionFactory фабрика сессий
+     * @param hql            текст HQL запроса
+     * @return текст SQL запроса
+     */
+    public String getTranslatedSql(SessionFactoryImplementor sessionFactory, String hql) {
+        bindSessionFactory(sessionFactory);
+        String sql = countSqlCache.getIfPresent(hql);
+        if (sql == null) {
+            QueryTranslator queryTranslator = queryTranslatorFactory.createQueryTranslator("", hql,
+                    Collections.EMPTY_MAP, sessionFactory, null);
             queryTranslator.compile(Collections.EMPTY_MAP, false);
-            return "select count(1) from (" + queryTranslator.getSQLString() + ") q";
+            sql = NativeQueryUtils.restoreNamedParameters(queryTranslator.getSQLString(), queryTranslator.getParameterTranslations());
+            countSqlCache.put(hql, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Привязывает кэши трансляции к фабрике сессий. При смене фабрики (например, при ее пересоздании)
+     * и при ее закрытии кэши очищаются, так как SQL зависит от модели и диалекта фабрики.
+     *
+     * @param sessionFactory фабрика сессий
+     */
+    private void bindSessionFactory(SessionFactoryImplementor sessionFactory) {
+        if (countSqlSessionFactory == sessionFactory) {
+            return;
+        }
+        synchronized (countSqlCache) {
+            if (countSqlSessionFactory != sessionFactory) {
+                invalidateTranslationCaches();
+                sessionFactory.addObserver(new SessionFactoryObserver() {
+                    @Override
+                    public void sessionFactoryClosed(SessionFactory factory) {
+                        invalidateTranslationCaches();
+                    }
+                });
+                countSqlSessionFactory = sessionFactory;
+            }
         }
-        return "select count(1) " + baseQuery;
+    }
+
+    private void invalidateTranslationCaches() {
+        countSqlCache.invalidateAll();
+        paramsQueryCache.invalidateAll();
+    }
+
+    /**
+     * Возвращает статистику кэша SQL запросов количества.
+     */
+    public CacheStats getCountSqlCacheStats() {
+        return countSqlCache.stats();
     }
 
     @PersistenceContext
@@ -94,5 +327,6 @@ public class HqlQueryService extends BaseQueryService implements QueryService {
 
     protected void setQueryTranslatorFactory(ASTQueryTranslatorFactory queryTranslatorFactory) {
         this.queryTranslatorFactory = queryTranslatorFactory;
+        invalidateTranslationCaches();
     }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package ru.shark.home.common.dao.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.exception.CommonException;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.ManagedType;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static ru.shark.home.common.common.ErrorConstants.NAMED_QUERIES_PRECOMPILE_ERROR;
+import static ru.shark.home.common.common.ErrorConstants.NAMED_QUERY_PARSE_ERROR;
+import static ru.shark.home.common.common.ErrorConstants.NAMED_QUERY_WITHOUT_FROM;
+
+/**
+ * Предварительный разбор именованных запросов при старте приложения.
+ * Находит все HQL и нативные именованные запросы, объявленные на классах модели {@link EntityManagerFactory},
+ * параллельно разбирает их и сохраняет в {@link ParsedQueryCache}. При наличии запросов, которые не удалось
+ * разобрать, прерывает запуск приложения.
+ */
+public class NamedQueryPrecompiler implements InitializingBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NamedQueryPrecompiler.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final HqlQueryService hqlQueryService;
+    private final SqlQueryService sqlQueryService;
+    private final ParsedQueryCache parsedQueryCache;
+    private final int parallelism;
+
+    /**
+     * Время разбора каждого запроса в наносекундах, ключ - имя запроса.
+     */
+    private Map<String, Long> parseTimes = Collections.emptyMap();
+
+    public NamedQueryPrecompiler(EntityManagerFactory entityManagerFactory, HqlQueryService hqlQueryService,
+                                 SqlQueryService sqlQueryService, ParsedQueryCache parsedQueryCache) {
+        this(entityManagerFactory, hqlQueryService, sqlQueryService, parsedQueryCache,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public NamedQueryPrecompiler(EntityManagerFactory entityManagerFactory, HqlQueryService hqlQueryService,
+                                 SqlQueryService sqlQueryService, ParsedQueryCache parsedQueryCache, int parallelism) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.hqlQueryService = hqlQueryService;
+        this.sqlQueryService = sqlQueryService;
+        this.parsedQueryCache = parsedQueryCache;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        precompile();
+    }
+
+    /**
+     * Разбирает все найденные именованные запросы и сохраняет их в кэш.
+     *
+     * @throws CommonException если хотя бы один запрос не удалось разобрать
+     */
+    public void precompile() {
+        List<NamedQueryData> queries = findNamedQueries();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<PrecompileResult> results;
+        try {
+            results = pool.submit(() -> queries.parallelStream()
+                    .map(this::precompile)
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommonException(MessageFormat.format(NAMED_QUERIES_PRECOMPILE_ERROR, e.getMessage()));
+        } catch (ExecutionException e) {
+            throw new CommonException(MessageFormat.format(NAMED_QUERIES_PRECOMPILE_ERROR, e.getCause().getMessage()));
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<String, Long> times = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (PrecompileResult result : results) {
+            times.put(result.name, result.time);
+            if (result.error != null) {
+                errors.add(result.error);
+            } else {
+                LOGGER.info("Именованный запрос \"{}\" разобран за {} мс", result.name,
+                        TimeUnit.NANOSECONDS.toMillis(result.time));
+            }
+        }
+        parseTimes = Collections.unmodifiableMap(times);
+        if (!errors.isEmpty()) {
+            throw new CommonException(MessageFormat.format(NAMED_QUERIES_PRECOMPILE_ERROR, String.join("; ", errors)));
+        }
+        LOGGER.info("Разобрано именованных запросов: {} за {} мс", results.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Возвращает время разбора каждого запроса в наносекундах, ключ - имя запроса.
+     */
+    public Map<String, Long> getParseTimes() {
+        return parseTimes;
+    }
+
+    private PrecompileResult precompile(NamedQueryData query) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            ParsedQuery parsedQuery = query.isNative ? sqlQueryService.parseQuery(query.query) :
+                    hqlQueryService.parseQuery(query.query);
+            if (parsedQuery.getFromPart() == null || isBlank(parsedQuery.getFromPart().getValue())) {
+                error = MessageFormat.format(NAMED_QUERY_PARSE_ERROR, query.name, NAMED_QUERY_WITHOUT_FROM);
+            } else {
+                parsedQueryCache.put(query.name, query.isNative, parsedQuery);
+            }
+        } catch (RuntimeException e) {
+            error = MessageFormat.format(NAMED_QUERY_PARSE_ERROR, query.name, e.getMessage());
+        }
+        return new PrecompileResult(query.name, System.nanoTime() - start, error);
+    }
+
+    /**
+     * Возвращает именованные запросы, объявленные на классах модели.
+     */
+    private List<NamedQueryData> findNamedQueries() {
+        List<NamedQueryData> queries = new ArrayList<>();
+        entityManagerFactory.getMetamodel().getManagedTypes().stream()
+                .map(ManagedType::getJavaType)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(type -> {
+                    for (NamedQuery query : type.getAnnotationsByType(NamedQuery.class)) {
+                        queries.add(new NamedQueryData(query.name(), query.query(), false));
+                    }
+                    for (NamedNativeQuery query : type.getAnnotationsByType(NamedNativeQuery.class)) {
+                        queries.add(new NamedQueryData(query.name(), query.query(), true));
+                    }
+                });
+        return queries;
+    }
+
+    private static final class NamedQueryData {
+        private final String name;
+        private final String query;
+        private final boolean isNative;
+
+        private NamedQueryData(String name, String query, boolean isNative) {
+            this.name = name;
+            this.query = query;
+            this.isNative = isNative;
+        }
+    }
+
+    private static final class PrecompileResult {
+        private final String name;
+        private final long time;
+        private final String error;
+
+        private PrecompileResult(String name, long time, String error) {
+            this.name = name;
+            this.time = time;
+            this.error = error;
+        }
+    }
+}
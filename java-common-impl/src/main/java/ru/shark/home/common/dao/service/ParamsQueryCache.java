@@ -0,0 +1,180 @@
+package ru.shark.home.common.dao.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.springframework.stereotype.Component;
+import ru.shark.home.common.dao.common.KeysetToken;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.util.QueryUtils;
+import ru.shark.home.common.enums.CountModeType;
+import ru.shark.home.common.enums.FilterOperation;
+
+import java.util.function.Supplier;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * Кэш сгенерированных текстов запросов данных и количества.
+ * Тексты зависят только от разобранного запроса и "формы" критериев запроса (набор полей и операций фильтров
+ * и количество частей длинных списков IN,
+ * наличие поиска, поля и направления сортировки, подсчет оконной функцией, выборка по ключу и пустые значения ее токена,
+ * запрошенные поля), но не от значений параметров. Поэтому для запросов одинаковой
+ * формы текст генерируется один раз, а при каждом обращении выполняется только формирование параметров.
+ * Разобранный запрос в ключе сравнивается по ссылке, так как экземпляры переиспользуются через {@link ParsedQueryCache}.
+ */
+@Component
+public class ParamsQueryCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 5000;
+
+    private final Cache<Key, ParamsQuery> cache;
+
+    public ParamsQueryCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ParamsQueryCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает шаблон запроса (тексты запросов без параметров) из кэша.
+     * При отсутствии генерирует его переданным способом и сохраняет в кэш.
+     *
+     * @param query           разобранный запрос
+     * @param requestCriteria критерии запроса
+     * @param generator       способ генерации шаблона
+     * @return шаблон запроса
+     */
+    public ParamsQuery get(ParsedQuery query, RequestCriteria requestCriteria, Supplier<ParamsQuery> generator) {
+        Key key = new Key(query, getShape(requestCriteria));
+        ParamsQuery template = cache.getIfPresent(key);
+        if (template == null) {
+            template = generator.get();
+            cache.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * Очищает кэш.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Возвращает количество запросов, найденных в кэше.
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * Возвращает количество запросов, сгенерированных из-за отсутствия в кэше.
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Возвращает статистику кэша.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Возвращает текущее количество элементов в кэше.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Возвращает компактную строку, описывающую форму критериев запроса.
+     *
+     * @param requestCriteria критерии запроса
+     * @return форма критериев
+     */
+    static String getShape(RequestCriteria requestCriteria) {
+        StringBuilder sb = new StringBuilder();
+        if (!isEmpty(requestCriteria.getFilters())) {
+            for (RequestFilter filter : requestCriteria.getFilters()) {
+                sb.append('f').append(filter.getField())
+                        .append('|').append(filter.getOperation())
+                        .append('|').append(filter.getFieldType());
+                if (FilterOperation.IN.equals(filter.getOperation()) && QueryUtils.getInChunkCount(filter) > 1) {
+                    // длинный список проверяется условием по каждой части
+                    sb.append('|').append(QueryUtils.getInChunkCount(filter));
+                }
+                sb.append(';');
+            }
+        }
+        if (requestCriteria.getSearch() != null) {
+            // значение поиска передается параметром, в форму входит только способ сравнения
+            sb.append('s').append(requestCriteria.getSearch().getMode().ordinal()).append(';');
+        }
+        if (CountModeType.WINDOW.equals(requestCriteria.getCountMode().getType())) {
+            sb.append("w;");
+        }
+        if (requestCriteria.isKeyset()) {
+            sb.append('k');
+            if (requestCriteria.getContinuationToken() != null) {
+                // условие выборки по ключу зависит от того, какие значения токена пусты
+                sb.append('t');
+                KeysetToken.decode(requestCriteria.getContinuationToken()).getValues(requestCriteria.getEffectiveSorts())
+                        .forEach(value -> sb.append(value == null ? '0' : '1'));
+            }
+            sb.append(';');
+        }
+        if (!isEmpty(requestCriteria.getFields())) {
+            sb.append('p').append(String.join(",", requestCriteria.getFields())).append(';');
+        }
+        if (!isEmpty(requestCriteria.getEffectiveSorts())) {
+            for (RequestSort sort : requestCriteria.getEffectiveSorts()) {
+                sb.append('o').append(sort.getField())
+                        .append('|').append(sort.getDirection())
+                        .append(';');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ключ кэша.
+     */
+    private static final class Key {
+        private final ParsedQuery query;
+        private final String shape;
+
+        private Key(ParsedQuery query, String shape) {
+            this.query = query;
+            this.shape = shape;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return query == key.query && shape.equals(key.shape);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(query) + shape.hashCode();
+        }
+    }
+}
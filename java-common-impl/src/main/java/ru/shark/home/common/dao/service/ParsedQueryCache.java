@@ -0,0 +1,156 @@
+package ru.shark.home.common.dao.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.springframework.stereotype.Component;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Кэш разобранных именованных запросов.
+ * Текст именованного запроса не меняется во время работы приложения, поэтому результат разбора
+ * сохраняется по ключу (имя запроса, признак нативного запроса, поля поиска) и переиспользуется между запросами.
+ * Закэшированные экземпляры разделяются между потоками и не должны изменяться.
+ */
+@Component
+public class ParsedQueryCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final Cache<Key, ParsedQuery> cache;
+
+    public ParsedQueryCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ParsedQueryCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает разобранный запрос из кэша. При отсутствии пытается получить его из предварительно разобранного
+     * запроса без полей поиска, иначе разбирает переданным способом. Результат сохраняется в кэш.
+     *
+     * @param queryName            имя запроса
+     * @param isNative             признак нативного запроса
+     * @param searchFields         поля для поиска
+     * @param advancedSearchFields шаблоны расширенного поиска
+     * @param parser               способ разбора запроса
+     * @return разобранный запрос
+     */
+    public ParsedQuery get(String queryName, boolean isNative, List<String> searchFields,
+                           List<String> advancedSearchFields, Supplier<ParsedQuery> parser) {
+        Key key = new Key(queryName, isNative, searchFields, advancedSearchFields);
+        ParsedQuery parsedQuery = cache.getIfPresent(key);
+        if (parsedQuery == null) {
+            ParsedQuery baseQuery = key.hasSearchFields() ?
+                    cache.asMap().get(new Key(queryName, isNative, null, null)) : null;
+            parsedQuery = baseQuery == null ? parser.get() : baseQuery.withSearchFields(searchFields, advancedSearchFields);
+            cache.put(key.copy(), parsedQuery);
+        }
+        return parsedQuery;
+    }
+
+    /**
+     * Сохраняет в кэш разобранный запрос без полей поиска.
+     * Используется для предварительного разбора запросов, варианты с полями поиска формируются из него при обращении.
+     *
+     * @param queryName   имя запроса
+     * @param isNative    признак нативного запроса
+     * @param parsedQuery разобранный запрос
+     */
+    public void put(String queryName, boolean isNative, ParsedQuery parsedQuery) {
+        cache.put(new Key(queryName, isNative, null, null), parsedQuery);
+    }
+
+    /**
+     * Очищает кэш.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Возвращает количество запросов, найденных в кэше.
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * Возвращает количество запросов, разобранных из-за отсутствия в кэше.
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Возвращает статистику кэша.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Возвращает текущее количество элементов в кэше.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Ключ кэша.
+     */
+    private static final class Key {
+        private final String queryName;
+        private final boolean isNative;
+        private final List<String> searchFields;
+        private final List<String> advancedSearchFields;
+
+        private Key(String queryName, boolean isNative, List<String> searchFields, List<String> advancedSearchFields) {
+            this.queryName = queryName;
+            this.isNative = isNative;
+            this.searchFields = searchFields;
+            this.advancedSearchFields = advancedSearchFields;
+        }
+
+        private boolean hasSearchFields() {
+            return searchFields != null || advancedSearchFields != null;
+        }
+
+        /**
+         * Возвращает копию ключа, не зависящую от изменения переданных при создании списков.
+         */
+        private Key copy() {
+            return new Key(queryName, isNative,
+                    searchFields == null ? null : List.copyOf(searchFields),
+                    advancedSearchFields == null ? null : List.copyOf(advancedSearchFields));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return isNative == key.isNative &&
+                    queryName.equals(key.queryName) &&
+                    Objects.equals(searchFields, key.searchFields) &&
+                    Objects.equals(advancedSearchFields, key.advancedSearchFields);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(queryName, isNative, searchFields, advancedSearchFields);
+        }
+    }
+}
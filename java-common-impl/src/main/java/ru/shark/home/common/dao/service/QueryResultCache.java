@@ -0,0 +1,354 @@
+package ru.shark.home.common.dao.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import org.hibernate.engine.spi.CascadeStyle;
+import org.hibernate.engine.spi.CascadingActions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш результатов запросов с пагинацией в DTO: данных страницы и количества строк.
+ * Результат сохраняется по ключу из итогового текста запроса, значений параметров и параметров страницы
+ * и помечается таблицами, из которых читает запрос. Изменение сущности через сервис доступа к данным
+ * удаляет только результаты, помеченные таблицами этой сущности, ее коллекций и связей, на которые
+ * распространяются каскадные операции сохранения и удаления. Размер кэша ограничен, результат хранится
+ * не дольше заданного времени.
+ * Отслеживаются только изменения через {@link BaseDao}. Изменения через репозитории Spring Data,
+ * напрямую через EntityManager или другими приложениями кэш не удаляют - для них требуется вызвать
+ * {@link #invalidate(Class)} или {@link #invalidateAll()}, иначе результаты устаревают до истечения времени хранения.
+ * Таблицы HQL запроса определяются Hibernate по плану запроса (включая соединения и подзапросы),
+ * таблицы нативного запроса - по именам после from и join в тексте запроса.
+ * Таблицы хранятся вместе с результатом, поэтому удаление устаревшего результата не затрагивает
+ * результат, повторно сохраненный по тому же ключу.
+ * Вызывающему коду возвращается копия списка, но сами DTO общие для всех обращений, поэтому не должны изменяться.
+ * Сущности в кэше не хранятся.
+ */
+public class QueryResultCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+    public static final long DEFAULT_TTL = 60000;
+    private static final Pattern NATIVE_TABLE_PATTERN = Pattern.compile("\\b(?:from|join)\\s+([\\w.$\"`]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final Cache<Key, Entry> cache;
+    private final Map<String, Set<Entry>> entriesByTable = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Set<String>> tablesByEntity = new ConcurrentHashMap<>();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public QueryResultCache(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * @param entityManagerFactory фабрика менеджеров сущностей для определения таблиц запросов и сущностей
+     * @param maximumSize          максимальное количество результатов в кэше
+     * @param ttl                  время хранения результата в миллисекундах
+     */
+    public QueryResultCache(EntityManagerFactory entityManagerFactory, long maximumSize, long ttl) {
+        this(entityManagerFactory, maximumSize, ttl, Ticker.systemTicker());
+    }
+
+    QueryResultCache(EntityManagerFactory entityManagerFactory, long maximumSize, long ttl, Ticker ticker) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * Возвращает результат запроса из кэша. При отсутствии выполняет запрос и сохраняет результат,
+     * если за время выполнения кэш не очищался для изменившихся сущностей.
+     *
+     * @param resultType      тип результата (например, класс DTO или отображение нативного запроса)
+     * @param query           запрос
+     * @param isNative        признак нативного запроса
+     * @param requestCriteria критерии запроса
+     * @param loader          выполнение запроса
+     * @return пагинированный список, изменение которого не затрагивает кэш
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PageableList<T> get(String resultType, ParamsQuery query, boolean isNative,
+                                   RequestCriteria requestCriteria, Supplier<PageableList<T>> loader) {
+        Key key = new Key(resultType, query, requestCriteria);
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return copy((PageableList<T>) cached.page);
+        }
+        long version = invalidationCount.get();
+        PageableList<T> result = loader.get();
+        Entry entry = new Entry(key, copy(result),
+                isNative ? getNativeTables(query.getQueryString()) : getHqlTables(query.getQueryString()));
+        for (String table : entry.tables) {
+            entriesByTable.computeIfAbsent(table, k -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+        cache.put(key, entry);
+        if (invalidationCount.get() != version) {
+            // результат мог быть прочитан до изменения данных
+            cache.asMap().remove(key, entry);
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет результаты запросов, читающих таблицы сущности, ее коллекций и каскадно изменяемых связей. Если активна транзакция, результаты удаляются
+     * повторно после ее завершения, так как до фиксации изменений кэш может быть заполнен прежними данными.
+     *
+     * @param entityClass класс сущности
+     */
+    public void invalidate(Class<?> entityClass) {
+        Set<String> tables = getEntityTables(entityClass);
+        invalidateTables(tables);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateTables(tables);
+                }
+            });
+        }
+    }
+
+    /**
+     * Очищает кэш.
+     */
+    public void invalidateAll() {
+        invalidationCount.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Возвращает количество результатов, найденных в кэше.
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * Возвращает количество запросов, выполненных из-за отсутствия результата в кэше.
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Возвращает долю обращений, для которых результат найден в кэше.
+     */
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    /**
+     * Возвращает статистику кэша.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Возвращает текущее количество результатов в кэше.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    private void invalidateTables(Set<String> tables) {
+        invalidationCount.incrementAndGet();
+        for (String table : tables) {
+            Set<Entry> entries = entriesByTable.get(table);
+            if (entries != null) {
+                for (Entry entry : new ArrayList<>(entries)) {
+                    cache.asMap().remove(entry.key, entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет таблицы удаленного результата. Уведомление об устаревшем результате может прийти после сохранения
+     * нового результата по тому же ключу, поэтому удаляется только сам устаревший результат.
+     */
+    private void onRemoval(RemovalNotification<Key, Entry> notification) {
+        Entry entry = notification.getValue();
+        for (String table : entry.tables) {
+            Set<Entry> entries = entriesByTable.get(table);
+            if (entries != null) {
+                entries.remove(entry);
+            }
+        }
+    }
+
+    private Set<String> getHqlTables(String queryString) {
+        Set<String> tables = new HashSet<>();
+        for (Object space : sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(queryString, false, Collections.emptyMap()).getQuerySpaces()) {
+            tables.add(normalizeTable(space.toString()));
+        }
+        return tables;
+    }
+
+    private Set<String> getEntityTables(Class<?> entityClass) {
+        return tablesByEntity.computeIfAbsent(entityClass, k -> {
+            Set<String> tables = new HashSet<>();
+            addEntityTables(sessionFactory.getMetamodel().entityPersister(k), tables, new HashSet<>());
+            return tables;
+        });
+    }
+
+    /**
+     * Добавляет таблицы сущности и ее коллекций, а также таблицы связей, на которые распространяется
+     * каскадное сохранение или удаление.
+     */
+    private void addEntityTables(EntityPersister persister, Set<String> tables, Set<String> visited) {
+        if (!visited.add(persister.getEntityName())) {
+            return;
+        }
+        for (Serializable space : persister.getQuerySpaces()) {
+            tables.add(normalizeTable(space.toString()));
+        }
+        MetamodelImplementor metamodel = sessionFactory.getMetamodel();
+        Type[] types = persister.getPropertyTypes();
+        CascadeStyle[] cascadeStyles = persister.getPropertyCascadeStyles();
+        for (int i = 0; i < types.length; i++) {
+            boolean cascaded = cascadeStyles[i].doCascade(CascadingActions.MERGE) ||
+                    cascadeStyles[i].doCascade(CascadingActions.PERSIST) ||
+                    cascadeStyles[i].doCascade(CascadingActions.DELETE);
+            if (types[i].isCollectionType()) {
+                CollectionPersister collection = metamodel.collectionPersister(((CollectionType) types[i]).getRole());
+                for (Serializable space : collection.getCollectionSpaces()) {
+                    tables.add(normalizeTable(space.toString()));
+                }
+                if (cascaded && collection.getElementType().isEntityType()) {
+                    addEntityTables(metamodel.entityPersister(
+                            ((EntityType) collection.getElementType()).getAssociatedEntityName()), tables, visited);
+                }
+            } else if (cascaded && types[i].isEntityType()) {
+                addEntityTables(metamodel.entityPersister(((EntityType) types[i]).getAssociatedEntityName()),
+                        tables, visited);
+            }
+        }
+    }
+
+    static Set<String> getNativeTables(String queryString) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = NATIVE_TABLE_PATTERN.matcher(queryString);
+        while (matcher.find()) {
+            tables.add(normalizeTable(matcher.group(1)));
+        }
+        return tables;
+    }
+
+    /**
+     * Приводит имя таблицы к нижнему регистру без схемы и кавычек.
+     */
+    private static String normalizeTable(String table) {
+        String name = table.replaceAll("[\"`]", "");
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    private static <T> PageableList<T> copy(PageableList<T> page) {
+        return new PageableList<>(page.getData() == null ? null : new ArrayList<>(page.getData()),
+                page.getTotalCount(), page.isTotalCountLimited(), page.getHasNext(), page.getNextToken());
+    }
+
+    /**
+     * Результат запроса с таблицами, из которых он прочитан. Сравнивается по ссылке.
+     */
+    private static final class Entry {
+        private final Key key;
+        private final PageableList<?> page;
+        private final Set<String> tables;
+
+        private Entry(Key key, PageableList<?> page, Set<String> tables) {
+            this.key = key;
+            this.page = page;
+            this.tables = tables;
+        }
+    }
+
+    /**
+     * Ключ кэша.
+     */
+    private static final class Key {
+        private final String resultType;
+        private final String queryString;
+        private final Map<String, Object> params;
+        private final int page;
+        private final int size;
+        private final String countMode;
+        private final boolean keyset;
+        private final String continuationToken;
+        private final String keysetTiebreaker;
+
+        private Key(String resultType, ParamsQuery query, RequestCriteria requestCriteria) {
+            this.resultType = resultType;
+            this.queryString = query.getQueryString();
+            this.params = query.getParams() == null ? Collections.emptyMap() : new HashMap<>(query.getParams());
+            this.page = requestCriteria.getPage();
+            this.size = requestCriteria.getSize();
+            this.countMode = requestCriteria.getCountMode().toString();
+            this.keyset = requestCriteria.isKeyset();
+            this.continuationToken = requestCriteria.getContinuationToken();
+            this.keysetTiebreaker = requestCriteria.getKeysetTiebreaker();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return page == key.page &&
+                    size == key.size &&
+                    keyset == key.keyset &&
+                    Objects.equals(resultType, key.resultType) &&
+                    queryString.equals(key.queryString) &&
+                    params.equals(key.params) &&
+                    countMode.equals(key.countMode) &&
+                    Objects.equals(continuationToken, key.continuationToken) &&
+                    Objects.equals(keysetTiebreaker, key.keysetTiebreaker);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resultType, queryString, params, page, size, countMode, keyset, continuationToken,
+                    keysetTiebreaker);
+        }
+    }
+}
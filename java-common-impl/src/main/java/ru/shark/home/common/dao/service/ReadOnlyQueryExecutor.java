@@ -0,0 +1,93 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+/**
+ * Выполнение запросов чтения сервисов доступа к данным в транзакции только для чтения.
+ * Если транзакции нет, запрос выполняется в новой транзакции только для чтения: менеджер транзакций JPA
+ * переводит соединение JDBC в режим только для чтения, а сессию Hibernate - в режим загрузки сущностей
+ * только для чтения (без снимков состояния для проверки изменений) и ручного сброса контекста (FlushMode.MANUAL).
+ * Если транзакция уже начата вызывающим кодом, запрос выполняется в ней без изменения ее режима,
+ * поэтому сущности, загруженные в транзакции чтения-записи, остаются изменяемыми.
+ * Если менеджер сущностей открыт вне транзакции и переживает ее (open-in-view), сущности загружаются изменяемыми:
+ * они остаются в контексте персистентности после транзакции, и изменения сущностей, загруженных только для чтения,
+ * не были бы сохранены при последующем сохранении в том же контексте.
+ */
+public class ReadOnlyQueryExecutor {
+    private final TransactionTemplate readOnlyTemplate;
+    private final TransactionTemplate readWriteTemplate;
+    private final boolean readOnly;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @param transactionManager менеджер транзакций
+     * @param readOnly           признак выполнения запросов в транзакции только для чтения,
+     *                           false - в транзакции чтения-записи
+     */
+    public ReadOnlyQueryExecutor(PlatformTransactionManager transactionManager, boolean readOnly) {
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.readWriteTemplate = new TransactionTemplate(transactionManager);
+        this.readWriteTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        this.readOnly = readOnly;
+        this.entityManagerFactory = transactionManager instanceof JpaTransactionManager ?
+                ((JpaTransactionManager) transactionManager).getEntityManagerFactory() : null;
+    }
+
+    /**
+     * Выполняет запрос в текущей транзакции или в новой транзакции.
+     *
+     * @param query    запрос
+     * @param readOnly признак выполнения в транзакции только для чтения, учитывается только при включенном
+     *                 режиме только для чтения исполнителя
+     * @return результат запроса
+     */
+    public <T> T execute(Supplier<T> query, boolean readOnly) {
+        if (!this.readOnly || !readOnly) {
+            return readWriteTemplate.execute(status -> query.get());
+        }
+        EntityManager boundEntityManager = getEntityManagerOutsideTransaction();
+        if (boundEntityManager == null) {
+            return readOnlyTemplate.execute(status -> query.get());
+        }
+        Session session = boundEntityManager.unwrap(Session.class);
+        boolean defaultReadOnly = session.isDefaultReadOnly();
+        try {
+            return readOnlyTemplate.execute(status -> {
+                session.setDefaultReadOnly(defaultReadOnly);
+                return query.get();
+            });
+        } finally {
+            session.setDefaultReadOnly(defaultReadOnly);
+        }
+    }
+
+    /**
+     * Возвращает признак выполнения запросов в транзакции только для чтения.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Возвращает менеджер сущностей, привязанный к потоку вне транзакции, или null.
+     */
+    private EntityManager getEntityManagerOutsideTransaction() {
+        if (entityManagerFactory == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        return holder == null ? null : holder.getEntityManager();
+    }
+}
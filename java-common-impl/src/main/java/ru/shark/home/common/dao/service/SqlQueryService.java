@@ -8,16 +8,21 @@ import ru.shark.home.common.dao.repository.query.QueryPartType;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseRequest;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseType;
 import ru.shark.home.common.dao.repository.query.parts.SqlFromQueryPart;
+import ru.shark.home.common.enums.CountModeType;
 
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.COUNT_SELECT;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.WINDOW_COUNT_COLUMN;
 
 @Component
 public class SqlQueryService extends BaseQueryService implements QueryService {
-
+    private static final Pattern SELECT_DISTINCT_PATTERN = Pattern.compile("^\\s*select\\s+distinct\\b",
+            Pattern.CASE_INSENSITIVE);
 
     private final Map<QueryPartType, BiConsumer<ParsedQuery, String>> partTypeConsumers = Map.of(
             QueryPartType.SELECT, ParsedQuery::setSelectPart,
@@ -49,8 +54,21 @@ public class SqlQueryService extends BaseQueryService implements QueryService {
 
     @Override
     public ParamsQuery generateParamsQuery(ParsedQuery query, RequestCriteria requestCriteria, Map<String, Object> params) {
+        ParamsQuery template = paramsQueryCache.get(query, requestCriteria, () -> generateQueryTemplate(query, requestCriteria));
+        return bindParams(template, requestCriteria, params);
+    }
+
+    /**
+     * Генерирует тексты запросов данных и количества без параметров.
+     *
+     * @param query           разобранный запрос
+     * @param requestCriteria критерии запроса
+     * @return шаблон запроса
+     */
+    private ParamsQuery generateQueryTemplate(ParsedQuery query, RequestCriteria requestCriteria) {
         QueryClauseRequest request = new QueryClauseRequest(requestCriteria, query);
         String baseQuery = getBaseQuery(query, request, true);
+        String dataBaseQuery = getDataBaseQuery(query, request, true, baseQuery);
         String order = queryClauseGenerator.generate(QueryClauseType.ORDER, true, request);
 
         if (isBlank(order)) {
@@ -59,9 +77,26 @@ public class SqlQueryService extends BaseQueryService implements QueryService {
             order = " order by " + order;
         }
 
-        return new ParamsQuery(query.getSelectPart().trim() + " " + baseQuery + order,
-                isBlank(query.getGroupPart()) ? ("select count(1) " + baseQuery) :
-                        "select count(1) from (" + query.getSelectPart().trim() + " " + baseQuery + ") q", true,
-                combineParams(requestCriteria.getFilters(), params));
+        String countQuery = isBlank(query.getGroupPart()) ? (COUNT_SELECT + baseQuery) :
+                COUNT_SELECT + "from (" + query.getSelectPart().trim() + " " + baseQuery + ") q";
+        String selectPart = getDataSelectPart(query, requestCriteria, true);
+        if (isWindowCountApplicable(query, requestCriteria)) {
+            return new ParamsQuery(selectPart + ", count(*) over() as " + WINDOW_COUNT_COLUMN +
+                    " " + dataBaseQuery + order, countQuery, true, true, null);
+        }
+        return new ParamsQuery(selectPart + " " + dataBaseQuery + order, countQuery, true, null);
+    }
+
+    /**
+     * Возвращает признак возможности подсчета общего количества строк оконной функцией в запросе данных.
+     * Для запросов с DISTINCT не применяется, так как оконная функция вычисляется до исключения дубликатов.
+     * При выборке по ключу не применяется, так как условие продолжения выборки сократило бы общее количество.
+     *
+     * @param query           разобранный запрос
+     * @param requestCriteria критерии запроса
+     */
+    private boolean isWindowCountApplicable(ParsedQuery query, RequestCriteria requestCriteria) {
+        return CountModeType.WINDOW.equals(requestCriteria.getCountMode().getType()) && !requestCriteria.isKeyset() &&
+                !SELECT_DISTINCT_PATTERN.matcher(query.getSelectPart()).find();
     }
 }
@@ -0,0 +1,101 @@
+package ru.shark.home.common.dao.specification;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Значения параметров запроса, построенного по спецификациям.
+ * Пока набор открыт в текущем потоке, спецификации вместо литералов добавляют в запрос параметры,
+ * а значения запоминаются и передаются в запрос после его создания. Текст запроса при этом зависит только
+ * от набора условий, поэтому запросы с разными значениями используют один план из кэша Hibernate.
+ * Вне открытого набора значения подставляются литералами, как при построении запроса сторонним кодом.
+ */
+public class CriteriaParameters implements AutoCloseable {
+    private static final ThreadLocal<CriteriaParameters> CURRENT = new ThreadLocal<>();
+
+    private final Map<ParameterExpression<?>, Object> values = new LinkedHashMap<>();
+    private final CriteriaParameters previous;
+
+    private CriteriaParameters(CriteriaParameters previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Открывает набор параметров в текущем потоке.
+     *
+     * @return набор параметров, закрываемый после создания запроса
+     */
+    public static CriteriaParameters open() {
+        CriteriaParameters parameters = new CriteriaParameters(CURRENT.get());
+        CURRENT.set(parameters);
+        return parameters;
+    }
+
+    /**
+     * Возвращает выражение значения условия: параметр, если в текущем потоке открыт набор параметров,
+     * иначе литерал.
+     *
+     * @param criteriaBuilder построитель запроса
+     * @param type            тип значения
+     * @param value           значение
+     * @return выражение значения
+     */
+    public static <T> Expression<T> value(CriteriaBuilder criteriaBuilder, Class<T> type, T value) {
+        CriteriaParameters current = CURRENT.get();
+        if (current == null) {
+            return criteriaBuilder.literal(value);
+        }
+        ParameterExpression<T> parameter = criteriaBuilder.parameter(type);
+        current.values.put(parameter, value);
+        return parameter;
+    }
+
+    /**
+     * Возвращает выражение значения условия с типом выражения, с которым сравнивается значение.
+     * Числовое значение приводится к числовому типу выражения.
+     *
+     * @param criteriaBuilder построитель запроса
+     * @param target          выражение, с которым сравнивается значение
+     * @param value           значение
+     * @return выражение значения
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Expression<T> value(CriteriaBuilder criteriaBuilder, Expression<? extends T> target, Object value) {
+        Class<T> type = (Class<T>) ClassUtils.resolvePrimitiveIfNecessary(target.getJavaType());
+        if (value instanceof Number && Number.class.isAssignableFrom(type) && !type.isInstance(value)) {
+            value = NumberUtils.convertNumberToTargetClass((Number) value, (Class<? extends Number>) type);
+        }
+        return value(criteriaBuilder, type, type.cast(value));
+    }
+
+    /**
+     * Передает запомненные значения в запрос.
+     *
+     * @param query запрос, созданный по спецификациям
+     * @return запрос
+     */
+    @SuppressWarnings("unchecked")
+    public <Q extends Query> Q bind(Q query) {
+        values.forEach((parameter, value) -> query.setParameter((ParameterExpression<Object>) parameter, value));
+        return query;
+    }
+
+    /**
+     * Закрывает набор параметров, восстанавливая ранее открытый набор.
+     */
+    @Override
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.shark.home.common.dao.specification;
+
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.Bindable;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+/**
+ * Соединения запроса по путям к полям. Для каждой связи в пути используется одно соединение:
+ * уже добавленное в запрос соединение по связи переиспользуется, отсутствующее добавляется как внутреннее.
+ * Для идентификатора связанной сущности соединение не добавляется, значение читается из внешнего ключа.
+ * Соединения хранятся в самом запросе, поэтому условия и сортировки, построенные разными спецификациями
+ * одного запроса, ссылаются на одни и те же соединения, а строки не размножаются повторными соединениями.
+ */
+public class JoinRegistry {
+
+    /**
+     * Возвращает путь к полю произвольной вложенности (например, series.theme.name).
+     *
+     * @param from  корень или соединение запроса
+     * @param field путь к полю через точку
+     * @return путь к полю
+     */
+    @SuppressWarnings("unchecked")
+    public static <Y> Path<Y> getPath(From<?, ?> from, String field) {
+        String[] attributeChain = field.split("\\.");
+        Path<?> path = from;
+        for (int i = 0; i < attributeChain.length - 1; i++) {
+            Path<?> attributePath = path.get(attributeChain[i]);
+            boolean idOnly = i == attributeChain.length - 2 && isId(attributePath, attributeChain[i + 1]);
+            path = path instanceof From && isAssociation(attributePath) && !idOnly ?
+                    getJoin((From<?, ?>) path, attributeChain[i]) : attributePath;
+        }
+        return (Path<Y>) path.get(attributeChain[attributeChain.length - 1]);
+    }
+
+    /**
+     * Возвращает соединение по связи: ранее добавленное в запрос соединение любого типа или новое внутреннее.
+     *
+     * @param from      корень или соединение запроса
+     * @param attribute наименование связи
+     * @return соединение
+     */
+    public static Join<?, ?> getJoin(From<?, ?> from, String attribute) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return join;
+            }
+        }
+        return from.join(attribute, JoinType.INNER);
+    }
+
+    private static boolean isId(Path<?> path, String attribute) {
+        Bindable<?> model = path.getModel();
+        if (!(model instanceof SingularAttribute) || !(((SingularAttribute<?, ?>) model).getType() instanceof EntityType)) {
+            return false;
+        }
+        EntityType<?> type = (EntityType<?>) ((SingularAttribute<?, ?>) model).getType();
+        return type.hasSingleIdAttribute() && type.getId(type.getIdType().getJavaType()).getName().equals(attribute);
+    }
+
+    private static boolean isAssociation(Path<?> path) {
+        Bindable<?> model = path.getModel();
+        return model instanceof Attribute && (((Attribute<?, ?>) model).isAssociation() ||
+                ((Attribute<?, ?>) model).isCollection());
+    }
+}
@@ -2,18 +2,20 @@ package ru.shark.home.common.dao.specification;
 
 import ru.shark.home.common.dao.common.RequestFilter;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.util.ReflectionUtils;
 import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.util.FilterFieldMetadata;
+import ru.shark.home.common.dao.util.FilterMetadataRegistry;
+import ru.shark.home.common.dao.util.QueryUtils;
 import ru.shark.home.common.enums.FieldType;
 
 import javax.persistence.criteria.*;
-import java.lang.reflect.Field;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
 import static ru.shark.home.common.common.ErrorConstants.*;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.LIKE_ESCAPE_CHAR;
 
 public class SpecificationRequest implements Specification {
     private List<RequestFilter> filters;
@@ -43,6 +45,8 @@ public class SpecificationRequest implements Specification {
                 return buildEqualsPredicate(filter, root, criteriaBuilder);
             case LIKE:
                 return buildLikePredicate(filter, root, criteriaBuilder);
+            case PREFIX:
+                return buildPrefixPredicate(filter, root, criteriaBuilder);
             default:
                 throw new IllegalArgumentException(MessageFormat.format(INVALID_FILTER_OPERATION,
                         filter.getOperation().getValue()));
@@ -51,24 +55,27 @@ public class SpecificationRequest implements Specification {
 
     private Predicate buildEqualsPredicate(RequestFilter filter, Root root, CriteriaBuilder criteriaBuilder) {
         if (FieldType.STRING.equals(filter.getFieldType())) {
-            return criteriaBuilder.equal(criteriaBuilder.lower(root.get(filter.getField())),
-                    filter.getValue().toLowerCase());
+            return criteriaBuilder.equal(criteriaBuilder.lower(getFieldPath(root, filter.getField())),
+                    CriteriaParameters.value(criteriaBuilder, String.class, filter.getValue().toLowerCase()));
         } else {
-            return criteriaBuilder.equal(getFieldPath(root, filter.getField()), getValue(filter, root));
+            Path path = getFieldPath(root, filter.getField());
+            return criteriaBuilder.equal(path, CriteriaParameters.value(criteriaBuilder, path, getValue(filter, root)));
         }
     }
 
     private Predicate buildLikePredicate(RequestFilter filter, Root root, CriteriaBuilder criteriaBuilder) {
-        return criteriaBuilder.like(criteriaBuilder.lower(root.get(filter.getField())),
-                "%" + filter.getValue().toLowerCase() + "%");
+        return criteriaBuilder.like(criteriaBuilder.lower(getFieldPath(root, filter.getField())),
+                CriteriaParameters.value(criteriaBuilder, String.class, "%" + filter.getValue().toLowerCase() + "%"));
+    }
+
+    private Predicate buildPrefixPredicate(RequestFilter filter, Root root, CriteriaBuilder criteriaBuilder) {
+        return criteriaBuilder.like(criteriaBuilder.lower(getFieldPath(root, filter.getField())),
+                CriteriaParameters.value(criteriaBuilder, String.class,
+                        QueryUtils.getPrefixPattern(filter.getValue().toLowerCase())), LIKE_ESCAPE_CHAR);
     }
 
     private Path getFieldPath(From root, String field) {
-        if (field.contains(".")) {
-            String[] attributeChain = field.split("\\.");
-            return root.get(attributeChain[0]).get(attributeChain[1]);
-        }
-        return root.get(field);
+        return JoinRegistry.getPath(root, field);
     }
 
     protected Object getValue(RequestFilter filter, Root root) {
@@ -90,13 +97,10 @@ public class SpecificationRequest implements Specification {
     }
 
     protected Object getEnumValue(String field, Root root, String source) {
-        Class entityClass = root.getJavaType();
-        Field filterField = ReflectionUtils.findField(entityClass, field);
-        if (filterField == null) {
+        FilterFieldMetadata metadata = FilterMetadataRegistry.getField(root.getJavaType(), field);
+        if (metadata == null) {
             throw new IllegalArgumentException(MessageFormat.format(UNKNOWN_FILTER_FIELD, field));
         }
-
-        Class<? extends Enum> type = (Class<? extends Enum>) filterField.getType();
-        return Enum.valueOf(type, source);
+        return metadata.parse(source);
     }
 }
@@ -0,0 +1,130 @@
+package ru.shark.home.common.dao.util;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сведения о столбцах таблиц сущностей, не допускающих пустых значений (идентификаторы и свойства,
+ * отмеченные в отображении как обязательные). Используются для определения того, что поле сортировки
+ * нативного запроса не может быть пустым. Столбцы таблиц, присоединенных внешним соединением,
+ * а также поля, таблицу которых не удалось определить, считаются допускающими пустые значения.
+ */
+public class ColumnNullability {
+    private static final Pattern TABLE_PATTERN = Pattern.compile("\\b(?:(left|right|full)\\s+)?(?:outer\\s+)?" +
+            "(?:inner\\s+|cross\\s+)?(from|join)\\s+([\\w.\"`]+)(?:\\s+(?:as\\s+)?([\\w\"`]+))?", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> KEYWORDS = Set.of("on", "where", "left", "right", "full", "inner", "cross",
+            "outer", "join", "group", "order", "having", "natural", "using", "union");
+    /**
+     * Признак таблицы, столбцы которой могут быть пустыми независимо от отображения.
+     */
+    private static final String NULLABLE_TABLE = "";
+
+    private final Map<String, Set<String>> notNullColumns;
+
+    /**
+     * @param notNullColumns карта, где ключ - таблица, значение - столбцы, не допускающие пустых значений
+     *                       (в нижнем регистре без схемы и кавычек)
+     */
+    public ColumnNullability(Map<String, Set<String>> notNullColumns) {
+        this.notNullColumns = notNullColumns;
+    }
+
+    /**
+     * Формирует сведения по отображению сущностей Hibernate. Свойства подклассов с наследованием
+     * не учитываются, так как в общей таблице иерархии их столбцы могут быть пустыми.
+     *
+     * @param entityManagerFactory фабрика менеджеров сущностей
+     * @return сведения о столбцах
+     */
+    public static ColumnNullability of(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Map<String, Set<String>> columns = new HashMap<>();
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister instanceof AbstractEntityPersister) || persister.getEntityMetamodel().isInherited()) {
+                continue;
+            }
+            AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+            Set<String> tableColumns = columns.computeIfAbsent(normalize(entityPersister.getTableName()),
+                    k -> new HashSet<>());
+            for (String column : entityPersister.getIdentifierColumnNames()) {
+                tableColumns.add(normalize(column));
+            }
+            String[] names = entityPersister.getPropertyNames();
+            Type[] types = entityPersister.getPropertyTypes();
+            boolean[] nullability = entityPersister.getPropertyNullability();
+            for (int i = 0; i < names.length; i++) {
+                String[] propertyColumns = entityPersister.getPropertyColumnNames(i);
+                if (nullability[i] || types[i].isComponentType() || propertyColumns.length != 1) {
+                    continue;
+                }
+                columns.computeIfAbsent(normalize(entityPersister.getPropertyTableName(names[i])), k -> new HashSet<>())
+                        .add(normalize(propertyColumns[0]));
+            }
+        }
+        return new ColumnNullability(columns);
+    }
+
+    /**
+     * Проверяет, что поле нативного запроса не может быть пустым.
+     *
+     * @param fromPart FROM часть запроса
+     * @param field    поле в виде алиас.столбец или столбец (если в запросе одна таблица)
+     * @return признак поля, не допускающего пустых значений
+     */
+    public boolean isNotNull(String fromPart, String field) {
+        Map<String, String> tables = getTables(fromPart);
+        int dot = field.lastIndexOf('.');
+        String table = dot < 0 ? (tables.size() == 1 ? tables.values().iterator().next() : null) :
+                tables.get(normalize(field.substring(0, dot)));
+        if (table == null || NULLABLE_TABLE.equals(table)) {
+            return false;
+        }
+        return notNullColumns.getOrDefault(table, Collections.emptySet()).contains(normalize(field.substring(dot + 1)));
+    }
+
+    /**
+     * Возвращает карту, где ключ - алиас (или имя таблицы без алиаса), значение - таблица. Таблицы внешних соединений
+     * и неоднозначные алиасы отмечаются {@link #NULLABLE_TABLE}. При правом или полном соединении пустыми могут быть
+     * столбцы всех таблиц, поэтому все таблицы отмечаются так же.
+     */
+    private static Map<String, String> getTables(String fromPart) {
+        Map<String, String> tables = new HashMap<>();
+        boolean allNullable = false;
+        Matcher matcher = TABLE_PATTERN.matcher(fromPart);
+        while (matcher.find()) {
+            String outer = matcher.group(1);
+            allNullable |= outer != null && !"left".equalsIgnoreCase(outer);
+            String table = normalize(matcher.group(3));
+            String alias = matcher.group(4) == null || KEYWORDS.contains(matcher.group(4).toLowerCase()) ?
+                    table : normalize(matcher.group(4));
+            String value = outer != null ? NULLABLE_TABLE : table;
+            String previous = tables.put(alias, value);
+            if (previous != null && !previous.equals(value)) {
+                tables.put(alias, NULLABLE_TABLE);
+            }
+        }
+        if (allNullable) {
+            tables.replaceAll((alias, table) -> NULLABLE_TABLE);
+        }
+        return tables;
+    }
+
+    /**
+     * Приводит имя таблицы или столбца к нижнему регистру без схемы и кавычек.
+     */
+    private static String normalize(String name) {
+        String value = name.replaceAll("[\"`]", "");
+        return value.substring(value.lastIndexOf('.') + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,417 @@
+package ru.shark.home.common.dao.util;
+
+import org.dozer.Mapper;
+import org.hibernate.proxy.HibernateProxyHelper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static ru.shark.home.common.common.ErrorConstants.MAPPING_ERROR;
+import static ru.shark.home.common.common.ErrorConstants.MAPPING_NOT_SUPPORTED;
+
+/**
+ * Механизм преобразования, не использующий рефлексию при каждом вызове. Для каждой пары
+ * (класс источника, класс результата) один раз строится план: конструктор результата и пары "чтение - запись"
+ * одноименных свойств, скомпилированные в лямбды через {@link LambdaMetafactory}.
+ * Поддерживаются простые значения, перечисления (в том числе в строку и из строки), даты, вложенные объекты
+ * и коллекции (List, Set) с параметризованным типом элементов. Повторные и циклические ссылки внутри одного
+ * преобразования отображаются в один и тот же объект результата.
+ * Пары классов, которые план описать не может (несовпадение типов свойств, отсутствие конструктора без параметров,
+ * массивы, карты), а также пары с классами из {@link #setFallbackTypes(Collection)}, преобразуются резервным
+ * механизмом (Dozer). Классы с собственными настройками отображения Dozer необходимо перечислить в резервных типах.
+ */
+public class CompiledMappingEngine implements MappingEngine {
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigDecimal.class, BigInteger.class, UUID.class, Class.class);
+    private static final ValueConverter IDENTITY = (value, context) -> value;
+    private static final ValueConverter DATE_COPY = (value, context) -> ((Date) value).clone();
+    private static final ValueConverter ENUM_TO_STRING = (value, context) -> ((Enum<?>) value).name();
+
+    private final Mapper fallback;
+    private final Map<ClassPair, Optional<MappingPlan>> plans = new ConcurrentHashMap<>();
+    private Set<Class<?>> fallbackTypes = Collections.emptySet();
+
+    /**
+     * @param fallback резервный механизм преобразования (может отсутствовать)
+     */
+    public CompiledMappingEngine(Mapper fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public <T> T map(Object source, Class<T> targetClass) {
+        if (source == null) {
+            return null;
+        }
+        return targetClass.cast(map(source, targetClass, new MappingContext()));
+    }
+
+    /**
+     * Возвращает признак преобразования пары классов скомпилированным планом (без резервного механизма).
+     *
+     * @param sourceClass класс источника
+     * @param targetClass класс результата
+     * @return true, если для пары построен план
+     */
+    public boolean isCompiled(Class<?> sourceClass, Class<?> targetClass) {
+        return getPlan(sourceClass, targetClass).isPresent();
+    }
+
+    /**
+     * Задает классы, преобразование которых всегда выполняется резервным механизмом
+     * (например, классы с собственными настройками отображения Dozer).
+     */
+    public void setFallbackTypes(Collection<Class<?>> fallbackTypes) {
+        this.fallbackTypes = new HashSet<>(fallbackTypes);
+        this.plans.clear();
+    }
+
+    private Object map(Object source, Class<?> targetClass, MappingContext context) {
+        Object mapped = context.get(source, targetClass);
+        if (mapped != null) {
+            return mapped;
+        }
+        Class<?> sourceClass = HibernateProxyHelper.getClassWithoutInitializingProxy(source);
+        Optional<MappingPlan> plan = getPlan(sourceClass, targetClass);
+        if (plan.isPresent()) {
+            return plan.get().map(source, context);
+        }
+        if (fallback == null) {
+            throw new UnsupportedOperationException(MessageFormat.format(MAPPING_NOT_SUPPORTED,
+                    sourceClass.getName(), targetClass.getName()));
+        }
+        return fallback.map(source, targetClass);
+    }
+
+    private Optional<MappingPlan> getPlan(Class<?> sourceClass, Class<?> targetClass) {
+        // план строится без рекурсии: вложенные пары разрешаются при преобразовании
+        return plans.computeIfAbsent(new ClassPair(sourceClass, targetClass), this::createPlan);
+    }
+
+    private Optional<MappingPlan> createPlan(ClassPair pair) {
+        if (!isBean(pair.source) || !isBean(pair.target) || Modifier.isAbstract(pair.target.getModifiers())
+                || fallbackTypes.contains(pair.source) || fallbackTypes.contains(pair.target)) {
+            return Optional.empty();
+        }
+        try {
+            MethodHandles.Lookup sourceLookup = MethodHandles.privateLookupIn(pair.source, MethodHandles.lookup());
+            MethodHandles.Lookup targetLookup = MethodHandles.privateLookupIn(pair.target, MethodHandles.lookup());
+            List<PropertyMapping> properties = new ArrayList<>();
+            for (PropertyDescriptor targetProperty : BeanUtils.getPropertyDescriptors(pair.target)) {
+                Method writeMethod = targetProperty.getWriteMethod();
+                PropertyDescriptor sourceProperty = BeanUtils.getPropertyDescriptor(pair.source, targetProperty.getName());
+                if (writeMethod == null || sourceProperty == null || sourceProperty.getReadMethod() == null) {
+                    continue;
+                }
+                Method readMethod = sourceProperty.getReadMethod();
+                ValueConverter converter = getConverter(ResolvableType.forMethodReturnType(readMethod, pair.source),
+                        ResolvableType.forMethodParameter(writeMethod, 0, pair.target));
+                if (converter == null) {
+                    return Optional.empty();
+                }
+                properties.add(new PropertyMapping(createGetter(sourceLookup, readMethod),
+                        createSetter(targetLookup, writeMethod), converter,
+                        writeMethod.getParameterTypes()[0].isPrimitive()));
+            }
+            return Optional.of(new MappingPlan(pair.target, createConstructor(targetLookup, pair.target), properties));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ValueConverter getConverter(ResolvableType sourceType, ResolvableType targetType) {
+        Class<?> sourceClass = sourceType.resolve();
+        Class<?> targetClass = targetType.resolve();
+        if (sourceClass == null || targetClass == null) {
+            return null;
+        }
+        sourceClass = ClassUtils.resolvePrimitiveIfNecessary(sourceClass);
+        targetClass = ClassUtils.resolvePrimitiveIfNecessary(targetClass);
+        if (isImmutable(sourceClass) && targetClass.isAssignableFrom(sourceClass)) {
+            return IDENTITY;
+        } else if (Date.class.isAssignableFrom(sourceClass) && targetClass.isAssignableFrom(sourceClass)) {
+            return DATE_COPY;
+        } else if (sourceClass.isEnum() && targetClass.isEnum()) {
+            Class<Enum> enumClass = (Class<Enum>) targetClass;
+            return (value, context) -> Enum.valueOf(enumClass, ((Enum<?>) value).name());
+        } else if (sourceClass.isEnum() && String.class.equals(targetClass)) {
+            return ENUM_TO_STRING;
+        } else if (String.class.equals(sourceClass) && targetClass.isEnum()) {
+            Class<Enum> enumClass = (Class<Enum>) targetClass;
+            return (value, context) -> Enum.valueOf(enumClass, (String) value);
+        } else if (Collection.class.isAssignableFrom(sourceClass) && Collection.class.isAssignableFrom(targetClass)) {
+            return getCollectionConverter(sourceType, targetType, targetClass);
+        } else if (isBean(sourceClass) && isBean(targetClass)) {
+            Class<?> nestedClass = targetClass;
+            return (value, context) -> map(value, nestedClass, context);
+        }
+        return null;
+    }
+
+    private ValueConverter getCollectionConverter(ResolvableType sourceType, ResolvableType targetType,
+                                                  Class<?> targetClass) {
+        IntFunction<Collection<Object>> factory;
+        if (targetClass.isAssignableFrom(ArrayList.class)) {
+            factory = ArrayList::new;
+        } else if (targetClass.isAssignableFrom(LinkedHashSet.class)) {
+            factory = LinkedHashSet::new;
+        } else {
+            return null;
+        }
+        ValueConverter elementConverter = getConverter(sourceType.asCollection().getGeneric(),
+                targetType.asCollection().getGeneric());
+        if (elementConverter == null) {
+            return null;
+        }
+        return (value, context) -> {
+            Collection<?> source = (Collection<?>) value;
+            Collection<Object> result = factory.apply(source.size());
+            for (Object element : source) {
+                result.add(element == null ? null : elementConverter.convert(element, context));
+            }
+            return result;
+        };
+    }
+
+    private static boolean isBean(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isEnum() && !type.isInterface()
+                && !type.getName().startsWith("java.");
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE_TYPES.contains(type) || type.isEnum() || type.getName().startsWith("java.time.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> createConstructor(MethodHandles.Lookup lookup, Class<?> type)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> invoke(generic);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(MethodHandles.Lookup lookup, Method method)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup.unreflect(method);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle,
+                    MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType()),
+                            method.getDeclaringClass()));
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            // лямбда не может быть создана (например, метод объявлен в недоступном классе) - вызывается дескриптор
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return bean -> invoke(generic, bean);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(MethodHandles.Lookup lookup, Method method)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup.unreflect(method);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(),
+                            ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0])));
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> invoke(generic, bean, value);
+        }
+    }
+
+    private static Object invoke(MethodHandle handle, Object... args) {
+        try {
+            return handle.invokeWithArguments(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Преобразование значения свойства.
+     */
+    @FunctionalInterface
+    private interface ValueConverter {
+        Object convert(Object value, MappingContext context);
+    }
+
+    /**
+     * План преобразования пары классов.
+     */
+    private static final class MappingPlan {
+        private final Class<?> targetClass;
+        private final Supplier<Object> constructor;
+        private final PropertyMapping[] properties;
+
+        private MappingPlan(Class<?> targetClass, Supplier<Object> constructor, List<PropertyMapping> properties) {
+            this.targetClass = targetClass;
+            this.constructor = constructor;
+            this.properties = properties.toArray(new PropertyMapping[0]);
+        }
+
+        private Object map(Object source, MappingContext context) {
+            Object target = constructor.get();
+            context.put(source, targetClass, target);
+            for (PropertyMapping property : properties) {
+                try {
+                    property.copy(source, target, context);
+                } catch (ClassCastException | IllegalArgumentException e) {
+                    throw new IllegalStateException(MessageFormat.format(MAPPING_ERROR,
+                            source.getClass().getName(), targetClass.getName(), e.getMessage()), e);
+                }
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Преобразование одного свойства.
+     */
+    private static final class PropertyMapping {
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+        private final ValueConverter converter;
+        private final boolean primitive;
+
+        private PropertyMapping(Function<Object, Object> getter, BiConsumer<Object, Object> setter,
+                                ValueConverter converter, boolean primitive) {
+            this.getter = getter;
+            this.setter = setter;
+            this.converter = converter;
+            this.primitive = primitive;
+        }
+
+        private void copy(Object source, Object target, MappingContext context) {
+            Object value = getter.apply(source);
+            if (value == null) {
+                if (!primitive) {
+                    setter.accept(target, null);
+                }
+                return;
+            }
+            setter.accept(target, converter.convert(value, context));
+        }
+    }
+
+    /**
+     * Объекты, уже преобразованные в рамках одного вызова.
+     */
+    private static final class MappingContext {
+        private Map<MappedKey, Object> mapped;
+
+        private Object get(Object source, Class<?> targetClass) {
+            return mapped == null ? null : mapped.get(new MappedKey(source, targetClass));
+        }
+
+        private void put(Object source, Class<?> targetClass, Object target) {
+            if (mapped == null) {
+                mapped = new HashMap<>();
+            }
+            mapped.put(new MappedKey(source, targetClass), target);
+        }
+    }
+
+    /**
+     * Ключ преобразованного объекта: исходный объект сравнивается по ссылке.
+     */
+    private static final class MappedKey {
+        private final Object source;
+        private final Class<?> targetClass;
+
+        private MappedKey(Object source, Class<?> targetClass) {
+            this.source = source;
+            this.targetClass = targetClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            MappedKey key = (MappedKey) o;
+            return source == key.source && targetClass.equals(key.targetClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + targetClass.hashCode();
+        }
+    }
+
+    /**
+     * Пара классов (источник, результат).
+     */
+    private static final class ClassPair {
+        private final Class<?> source;
+        private final Class<?> target;
+
+        private ClassPair(Class<?> source, Class<?> target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClassPair pair = (ClassPair) o;
+            return source.equals(pair.source) && target.equals(pair.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, target);
+        }
+    }
+}
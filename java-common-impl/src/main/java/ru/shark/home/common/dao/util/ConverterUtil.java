@@ -14,10 +14,14 @@ import static org.springframework.util.ObjectUtils.isEmpty;
 
 /**
  * Класс для преобразоваия сущностей и dto друг в друга.
+ * Преобразование выполняется заданным механизмом {@link MappingEngine}, а при его отсутствии - Dozer.
+ * Большие списки при наличии {@link ParallelConversionExecutor} преобразуются параллельно.
  */
 @Component
 public class ConverterUtil {
     private Mapper mapper;
+    private MappingEngine mappingEngine;
+    private ParallelConversionExecutor parallelConversionExecutor;
 
     /**
      * Преобразование списка сущностей в список DTO.
@@ -31,10 +35,7 @@ public class ConverterUtil {
             return new ArrayList<>();
         }
 
-        List<D> dtoList = new ArrayList<>();
-        for (E entity : entityList) {
-            dtoList.add(mapper.map(entity, dtoClass));
-        }
+        List<D> dtoList = convertList(entityList, dtoClass, true);
 
         return dtoList;
     }
@@ -52,10 +53,7 @@ public class ConverterUtil {
             return new PageableList<>(new ArrayList<>(), 0L);
         }
 
-        List<D> dtoList = new ArrayList<>();
-        for (E entity : entityList.getData()) {
-            dtoList.add(mapper.map(entity, dtoClass));
-        }
+        List<D> dtoList = convertList(entityList.getData(), dtoClass, true);
 
         return new PageableList<>(dtoList, entityList.getTotalCount());
     }
@@ -72,10 +70,7 @@ public class ConverterUtil {
             return new ArrayList<>();
         }
 
-        List<E> entityList = new ArrayList<>();
-        for (D dto : dtoList) {
-            entityList.add(mapper.map(dto, entityClass));
-        }
+        List<E> entityList = convertList(dtoList, entityClass, false);
 
         return entityList;
     }
@@ -92,7 +87,7 @@ public class ConverterUtil {
             return null;
         }
 
-        return mapper.map(entity, dtoClass);
+        return map(entity, dtoClass);
     }
 
     /**
@@ -106,11 +101,38 @@ public class ConverterUtil {
             return null;
         }
 
-        return mapper.map(dto, entityClass);
+        return map(dto, entityClass);
+    }
+
+    private <S, T> List<T> convertList(List<S> source, Class<T> targetClass, boolean entities) {
+        if (parallelConversionExecutor != null && parallelConversionExecutor.isApplicable(source.size(), entities)) {
+            return parallelConversionExecutor.convert(source, item -> map(item, targetClass));
+        }
+
+        List<T> result = new ArrayList<>(source.size());
+        for (S item : source) {
+            result.add(map(item, targetClass));
+        }
+
+        return result;
+    }
+
+    private <T> T map(Object source, Class<T> targetClass) {
+        return mappingEngine != null ? mappingEngine.map(source, targetClass) : mapper.map(source, targetClass);
     }
 
     @Autowired
     public void setMapper(Mapper mapper) {
         this.mapper = mapper;
     }
-}
\ No newline at end of file
+
+    @Autowired(required = false)
+    public void setMappingEngine(MappingEngine mappingEngine) {
+        this.mappingEngine = mappingEngine;
+    }
+
+    @Autowired(required = false)
+    public void setParallelConversionExecutor(ParallelConversionExecutor parallelConversionExecutor) {
+        this.parallelConversionExecutor = parallelConversionExecutor;
+    }
+}
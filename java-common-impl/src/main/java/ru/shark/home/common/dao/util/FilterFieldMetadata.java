@@ -0,0 +1,51 @@
+package ru.shark.home.common.dao.util;
+
+import ru.shark.home.common.enums.FieldType;
+
+import java.lang.reflect.Field;
+import java.util.function.Function;
+
+/**
+ * Метаданные поля, используемого в фильтрах: тип поля фильтра, класс перечисления и способ разбора значения.
+ */
+public class FilterFieldMetadata {
+    private final Field field;
+    private final FieldType fieldType;
+    private final Class<? extends Enum> enumClass;
+    private final Function<String, Object> parser;
+
+    FilterFieldMetadata(Field field, FieldType fieldType, Class<? extends Enum> enumClass, Function<String, Object> parser) {
+        this.field = field;
+        this.fieldType = fieldType;
+        this.enumClass = enumClass;
+        this.parser = parser;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Возвращает тип поля фильтра или null, если тип поля не поддерживается в фильтрах.
+     */
+    public FieldType getFieldType() {
+        return fieldType;
+    }
+
+    /**
+     * Возвращает класс перечисления для поля типа {@link FieldType#ENUM}.
+     */
+    public Class<? extends Enum> getEnumClass() {
+        return enumClass;
+    }
+
+    /**
+     * Приводит строковое значение фильтра к типу поля.
+     *
+     * @param value строковое значение
+     * @return значение типа поля
+     */
+    public Object parse(String value) {
+        return parser == null ? value : parser.apply(value);
+    }
+}
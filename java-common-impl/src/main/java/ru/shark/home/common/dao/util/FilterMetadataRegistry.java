@@ -0,0 +1,86 @@
+package ru.shark.home.common.dao.util;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import ru.shark.home.common.dao.common.EntityClass;
+import ru.shark.home.common.enums.FieldType;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр метаданных полей для фильтров. Каждый класс разбирается один раз при первом обращении
+ * в неизменяемую карту полей (с учетом полей родительских классов), поэтому определение поля по пути
+ * выполняется поиском в картах по каждому элементу пути без обхода классов через рефлексию.
+ * Для корневого класса учитывается аннотация {@link EntityClass}: поля ищутся в указанном классе сущности.
+ */
+public class FilterMetadataRegistry {
+    private static final Map<Class<?>, Class<?>> ROOT_CLASSES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, FilterFieldMetadata>> FIELDS = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает метаданные поля по пути через точку.
+     *
+     * @param clazz класс DTO или сущности
+     * @param path  путь к полю
+     * @return метаданные поля или null, если поле не найдено
+     */
+    public static FilterFieldMetadata getField(Class<?> clazz, String path) {
+        if (clazz == null) {
+            return null;
+        }
+        Class<?> checkClass = ROOT_CLASSES.computeIfAbsent(clazz, FilterMetadataRegistry::getRootClass);
+        FilterFieldMetadata metadata = null;
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('.', start);
+            String element = end < 0 ? path.substring(start) : path.substring(start, end);
+            metadata = checkClass == null ? null : getFields(checkClass).get(element);
+            if (metadata == null || end < 0) {
+                return metadata;
+            }
+            checkClass = metadata.getField().getType();
+            start = end + 1;
+        }
+        return metadata;
+    }
+
+    private static Map<String, FilterFieldMetadata> getFields(Class<?> clazz) {
+        return FIELDS.computeIfAbsent(clazz, FilterMetadataRegistry::createFields);
+    }
+
+    private static Class<?> getRootClass(Class<?> clazz) {
+        EntityClass annotation = AnnotationUtils.findAnnotation(clazz, EntityClass.class);
+        return annotation != null && annotation.clazz() != null ? annotation.clazz() : clazz;
+    }
+
+    private static Map<String, FilterFieldMetadata> createFields(Class<?> clazz) {
+        Map<String, FilterFieldMetadata> fields = new HashMap<>();
+        for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                fields.putIfAbsent(field.getName(), createMetadata(field));
+            }
+        }
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FilterFieldMetadata createMetadata(Field field) {
+        Class<?> type = field.getType();
+        if (field.isEnumConstant() || type.isEnum()) {
+            Class<? extends Enum> enumClass = (Class<? extends Enum>) type;
+            return new FilterFieldMetadata(field, FieldType.ENUM, enumClass, value -> Enum.valueOf(enumClass, value));
+        }
+        switch (type.getSimpleName().toUpperCase()) {
+            case "STRING":
+                return new FilterFieldMetadata(field, FieldType.STRING, null, null);
+            case "INTEGER":
+            case "LONG":
+                return new FilterFieldMetadata(field, FieldType.INTEGER, null, Long::parseLong);
+            default:
+                return new FilterFieldMetadata(field, null, null, null);
+        }
+    }
+}
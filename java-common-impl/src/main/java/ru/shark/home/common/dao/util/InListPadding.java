@@ -0,0 +1,62 @@
+package ru.shark.home.common.dao.util;
+
+import ru.shark.home.common.dao.repository.query.generator.GeneratorConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Дополнение списков значений условия IN до размеров из ограниченного набора. Для каждой длины списка
+ * формируется свой текст SQL и план запроса, поэтому список дополняется повторением последнего значения
+ * до ближайшей степени двойки, но не более порога. Списки длиннее порога не дополняются.
+ * Повторяющиеся значения не меняют результат условия IN.
+ * Порог не превышает размера части списка {@link GeneratorConstants#FILTER_IN_CHUNK_SIZE} (ограничение Oracle
+ * на количество значений в IN), поэтому дополнение не делает допустимый список недопустимым. Для HQL
+ * и нативных запросов то же самое выполняет Hibernate при hibernate.query.in_clause_parameter_padding=true
+ * с учетом ограничения диалекта.
+ */
+public class InListPadding {
+    public static final int DEFAULT_THRESHOLD = GeneratorConstants.FILTER_IN_CHUNK_SIZE;
+
+    private final int threshold;
+
+    /**
+     * @param threshold максимальный размер дополненного списка (не более {@link GeneratorConstants#FILTER_IN_CHUNK_SIZE})
+     */
+    public InListPadding(int threshold) {
+        this.threshold = Math.min(Math.max(threshold, 1), GeneratorConstants.FILTER_IN_CHUNK_SIZE);
+    }
+
+    /**
+     * Возвращает размер, до которого дополняется список.
+     *
+     * @param size размер списка
+     * @return размер дополненного списка
+     */
+    public int getPaddedSize(int size) {
+        if (size <= 1 || size >= threshold) {
+            return size;
+        }
+        return Math.min(Integer.highestOneBit(size - 1) << 1, threshold);
+    }
+
+    /**
+     * Дополняет список повторением последнего значения.
+     *
+     * @param values список значений
+     * @return дополненный список
+     */
+    public <T> List<T> pad(List<T> values) {
+        int paddedSize = getPaddedSize(values.size());
+        if (paddedSize == values.size()) {
+            return values;
+        }
+        List<T> result = new ArrayList<>(paddedSize);
+        result.addAll(values);
+        T last = values.get(values.size() - 1);
+        while (result.size() < paddedSize) {
+            result.add(last);
+        }
+        return result;
+    }
+}
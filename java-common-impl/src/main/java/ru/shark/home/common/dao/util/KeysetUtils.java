@@ -0,0 +1,210 @@
+package ru.shark.home.common.dao.util;
+
+import org.apache.commons.text.CaseUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import ru.shark.home.common.dao.common.KeysetToken;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.enums.SortDirection;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_UNSUPPORTED_ROW;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.KEYSET_PARAM_PREFIX;
+
+/**
+ * Вспомогательные методы выборки по ключу (keyset pagination).
+ */
+public class KeysetUtils {
+    /**
+     * Уникальное поле, сортировка по которому добавляется по умолчанию.
+     */
+    public static final String DEFAULT_TIEBREAKER = "id";
+
+    /**
+     * Возвращает сортировки с добавленной в конец сортировкой по уникальному полю, если ее нет.
+     *
+     * @param sorts      сортировки
+     * @param tiebreaker уникальное поле
+     * @return сортировки, однозначно упорядочивающие строки
+     */
+    public static List<RequestSort> withTiebreaker(List<RequestSort> sorts, String tiebreaker) {
+        if (!isEmpty(sorts) && sorts.stream().anyMatch(sort -> tiebreaker.equals(sort.getField()))) {
+            return sorts;
+        }
+        List<RequestSort> result = isEmpty(sorts) ? new ArrayList<>(1) : new ArrayList<>(sorts);
+        result.add(new RequestSort(tiebreaker, SortDirection.ASC.name()));
+        return result;
+    }
+
+    /**
+     * Формирует условие выборки строк, следующих по сортировке за строкой со значениями параметров keyset_i.
+     * Пустое значение считается наибольшим: при сортировке по возрастанию строки с пустым значением идут последними,
+     * по убыванию - первыми (см. {@link #getNullsOrder(SortDirection)}). Для пустых значений параметры не передаются,
+     * а условие сравнения заменяется проверкой is null / is not null.
+     * Если все направления сортировки совпадают, значения не пусты и разрешено сравнение кортежей,
+     * формируется условие вида (a, b, id) &gt; (:keyset_0, :keyset_1, :keyset_2), иначе - равнозначное ему
+     * раскрытое условие (a &gt; :keyset_0 or a is null or (a = :keyset_0 and b &gt; :keyset_1) or ...).
+     * Сравнение кортежей не учитывает пустые значения в строках, поэтому допустимо только для непустых полей.
+     *
+     * @param fields     поля сортировки в виде для запроса
+     * @param directions направления сортировки
+     * @param values     значения полей сортировки последней строки предыдущей страницы
+     * @param rowValue   признак возможности сравнения кортежей (все поля не допускают пустых значений)
+     * @return условие
+     */
+    public static String getKeysetClause(List<String> fields, List<SortDirection> directions, List<Object> values,
+                                         boolean rowValue) {
+        if (rowValue && fields.size() > 1 && directions.stream().distinct().count() == 1
+                && values.stream().allMatch(Objects::nonNull)) {
+            List<String> params = new ArrayList<>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                params.add(":" + KEYSET_PARAM_PREFIX + i);
+            }
+            return "(" + String.join(", ", fields) + ") " + getOperator(directions.get(0)) +
+                    " (" + String.join(", ", params) + ")";
+        }
+        List<String> clauses = new ArrayList<>(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            String next = getNextClause(fields.get(i), directions.get(i), values.get(i), i);
+            if (next == null) {
+                continue;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                sb.append(fields.get(j));
+                if (values.get(j) == null) {
+                    sb.append(" is null and ");
+                } else {
+                    sb.append(" = :").append(KEYSET_PARAM_PREFIX).append(j).append(" and ");
+                }
+            }
+            sb.append(next);
+            clauses.add(i == 0 ? sb.toString() : "(" + sb + ")");
+        }
+        return clauses.isEmpty() ? "1 = 0" : "(" + String.join(" or ", clauses) + ")";
+    }
+
+    /**
+     * Возвращает расположение пустых значений при сортировке выборки по ключу, соответствующее условию
+     * {@link #getKeysetClause(List, List, List, boolean)}. Совпадает с расположением по умолчанию в PostgreSQL и Oracle,
+     * поэтому не мешает использованию индекса.
+     *
+     * @param direction направление сортировки
+     * @return " nulls last" для сортировки по возрастанию, " nulls first" - по убыванию
+     */
+    public static String getNullsOrder(SortDirection direction) {
+        return SortDirection.DESC.equals(direction) ? " nulls first" : " nulls last";
+    }
+
+    /**
+     * Возвращает направления сортировок (по умолчанию - по возрастанию).
+     */
+    public static List<SortDirection> getDirections(List<RequestSort> sorts) {
+        return sorts.stream()
+                .map(sort -> sort.getDirection() == null ? SortDirection.ASC : sort.getDirection())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Возвращает свойства строки результата, содержащие значения полей сортировки.
+     * Для HQL запроса поле сортировки является путем к свойству сущности. Для нативного запроса
+     * используется имя столбца без псевдонима таблицы, приведенное к camelCase.
+     *
+     * @param sorts    сортировки
+     * @param isNative признак нативного запроса
+     * @return свойства строки
+     */
+    public static List<String> getRowProperties(List<RequestSort> sorts, boolean isNative) {
+        return sorts.stream()
+                .map(sort -> isNative ? getColumnProperty(sort.getField()) : sort.getField())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Возвращает значения свойств строки результата. Поддерживаются объекты (сущности и DTO) и карты.
+     *
+     * @param row        строка результата
+     * @param properties свойства
+     * @return значения свойств
+     */
+    public static List<Object> readValues(Object row, List<String> properties) {
+        List<Object> values = new ArrayList<>(properties.size());
+        if (row instanceof Map) {
+            for (String property : properties) {
+                values.add(((Map<?, ?>) row).get(property.substring(property.lastIndexOf('.') + 1)));
+            }
+            return values;
+        }
+        if (row == null || row instanceof Object[] || row.getClass().getName().startsWith("java.")) {
+            throw new UnsupportedOperationException(MessageFormat.format(KEYSET_UNSUPPORTED_ROW,
+                    row == null ? null : row.getClass().getName()));
+        }
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(row);
+        for (String property : properties) {
+            values.add(wrapper.getPropertyValue(property));
+        }
+        return values;
+    }
+
+    /**
+     * Формирует страницу выборки по ключу. Строки выбираются с запасом в одну строку: ее наличие означает
+     * наличие следующей страницы, для которой формируется токен продолжения по последней строке страницы.
+     *
+     * @param data            выбранные строки (не более size + 1)
+     * @param count           результат запроса количества или null, если запрос не выполнялся
+     * @param requestCriteria критерии запроса
+     * @param sorts           сортировки запроса
+     * @param keyReader       функция получения значений полей сортировки строки
+     * @return пагинированный список
+     */
+    public static <T> PageableList<T> createPage(List<T> data, Long count, RequestCriteria requestCriteria,
+                                                 List<RequestSort> sorts, Function<T, List<Object>> keyReader) {
+        int size = requestCriteria.getSize();
+        boolean hasNext = data.size() > size;
+        List<T> pageData = hasNext ? data.subList(0, size) : data;
+        PageableList<T> list = requestCriteria.getCountMode().createList(pageData, count, 0, size);
+        String nextToken = hasNext ? KeysetToken.encode(sorts, keyReader.apply(pageData.get(pageData.size() - 1))) :
+                null;
+        return new PageableList<>(pageData, list.getTotalCount(), list.isTotalCountLimited(), hasNext, nextToken);
+    }
+
+    /**
+     * Возвращает номер страницы для определения необходимости подсчета: 0 для первой страницы выборки по ключу.
+     */
+    public static int getPage(RequestCriteria requestCriteria) {
+        if (!requestCriteria.isKeyset()) {
+            return requestCriteria.getPage();
+        }
+        return requestCriteria.getContinuationToken() == null ? 0 : 1;
+    }
+
+    /**
+     * Возвращает условие "значение поля следует за значением параметра" или null, если таких значений нет.
+     */
+    private static String getNextClause(String field, SortDirection direction, Object value, int index) {
+        boolean isDesc = SortDirection.DESC.equals(direction);
+        if (value == null) {
+            return isDesc ? field + " is not null" : null;
+        }
+        String clause = field + ' ' + getOperator(direction) + " :" + KEYSET_PARAM_PREFIX + index;
+        return isDesc ? clause : "(" + clause + " or " + field + " is null)";
+    }
+
+    private static String getOperator(SortDirection direction) {
+        return SortDirection.DESC.equals(direction) ? "<" : ">";
+    }
+
+    private static String getColumnProperty(String field) {
+        String column = field.substring(field.lastIndexOf('.') + 1);
+        return column.indexOf('_') < 0 ? column : CaseUtils.toCamelCase(column, false, '_');
+    }
+}
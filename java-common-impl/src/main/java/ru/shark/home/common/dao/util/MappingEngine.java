@@ -0,0 +1,16 @@
+package ru.shark.home.common.dao.util;
+
+/**
+ * Механизм преобразования объектов, используемый {@link ConverterUtil}.
+ */
+public interface MappingEngine {
+
+    /**
+     * Преобразует объект в новый экземпляр заданного класса.
+     *
+     * @param source      исходный объект
+     * @param targetClass класс результата
+     * @return результат преобразования
+     */
+    <T> T map(Object source, Class<T> targetClass);
+}
@@ -0,0 +1,177 @@
+package ru.shark.home.common.dao.util;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.pagination.LimitHandler;
+import org.hibernate.engine.ResultSetMappingDefinition;
+import org.hibernate.engine.query.spi.sql.NativeSQLQueryConstructorReturn;
+import org.hibernate.engine.query.spi.sql.NativeSQLQueryReturn;
+import org.hibernate.engine.query.spi.sql.NativeSQLQueryScalarReturn;
+import org.hibernate.engine.spi.RowSelection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.spi.NamedParameterInformation;
+import org.hibernate.hql.spi.ParameterTranslations;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.dao.repository.query.ParamsQuery.COUNT_SELECT;
+
+public class NativeQueryUtils {
+
+    /**
+     * Устанавливает нативному запросу отображение результата и дополнительный последний столбец.
+     * Hibernate не поддерживает совместное использование {@link javax.persistence.ConstructorResult} и скалярных
+     * столбцов, поэтому для такого отображения столбцы выбираются как скалярные, а объект создается
+     * возвращаемой функцией.
+     *
+     * @param query          нативный запрос
+     * @param sessionFactory фабрика сессий
+     * @param mappingName    наименование отображения результата
+     * @param column         псевдоним дополнительного столбца
+     * @param type           тип дополнительного столбца
+     * @return функция, преобразующая строку результата (с дополнительным столбцом) в результат отображения
+     */
+    public static Function<Object[], Object> addResultSetMapping(NativeQuery<?> query,
+                                                                 SessionFactoryImplementor sessionFactory,
+                                                                 String mappingName, String column, Type type) {
+        ResultSetMappingDefinition mapping = sessionFactory.getNamedQueryRepository()
+                .getResultSetMappingDefinition(mappingName);
+        if (mapping == null) {
+            throw new MappingException("Unknown SqlResultSetMapping [" + mappingName + "]");
+        }
+        NativeSQLQueryReturn[] returns = mapping.getQueryReturns();
+        if (returns.length == 1 && returns[0] instanceof NativeSQLQueryConstructorReturn) {
+            NativeSQLQueryConstructorReturn constructorReturn = (NativeSQLQueryConstructorReturn) returns[0];
+            for (NativeSQLQueryScalarReturn columnReturn : constructorReturn.getColumnReturns()) {
+                if (columnReturn.getType() == null) {
+                    query.addScalar(columnReturn.getColumnAlias());
+                } else {
+                    query.addScalar(columnReturn.getColumnAlias(), columnReturn.getType());
+                }
+            }
+            query.addScalar(column, type);
+            return new ConstructorRowMapper(constructorReturn.getTargetClass());
+        }
+        query.setResultSetMapping(mappingName);
+        query.addScalar(column, type);
+        return row -> row.length == 2 ? row[0] : Arrays.copyOf(row, row.length - 1);
+    }
+
+    /**
+     * Заменяет позиционные параметры JDBC в транслированном SQL на именованные параметры исходного HQL запроса,
+     * чтобы нативный запрос принимал те же параметры, что и HQL запрос.
+     *
+     * @param sql          текст SQL запроса
+     * @param translations сведения о параметрах HQL запроса
+     * @return текст SQL запроса с именованными параметрами
+     */
+    public static String restoreNamedParameters(String sql, ParameterTranslations translations) {
+        if (translations == null || isEmpty(translations.getNamedParameterInformationMap())) {
+            return sql;
+        }
+        Map<Integer, String> names = new HashMap<>();
+        for (NamedParameterInformation parameter : translations.getNamedParameterInformationMap().values()) {
+            for (int location : parameter.getSourceLocations()) {
+                names.put(location, parameter.getSourceName());
+            }
+        }
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean inQuotes = false;
+        int position = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inQuotes = !inQuotes;
+            }
+            if (c == '?' && !inQuotes) {
+                String name = names.get(position++);
+                sb.append(name == null ? "?" : ":" + name);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Формирует запрос количества строк с ограничением: select count(1) from (sql с ограничением limit строк) q.
+     * Ограничение добавляется обработчиком диалекта Hibernate, его параметры подставляются значениями,
+     * поэтому запрос возвращает одну строку и принимает те же параметры, что и исходный.
+     *
+     * @param dialect диалект Hibernate
+     * @param sql     текст SQL запроса
+     * @param limit   максимальное количество подсчитываемых строк
+     * @return текст запроса или null, если диалект не поддерживает ограничение в тексте запроса
+     */
+    public static String getLimitedCountSql(Dialect dialect, String sql, int limit) {
+        LimitHandler limitHandler = dialect.getLimitHandler();
+        if (!limitHandler.supportsLimit()) {
+            return null;
+        }
+        RowSelection selection = new RowSelection();
+        selection.setFirstRow(0);
+        selection.setMaxRows(limit);
+        String limitedSql = limitHandler.processSql(sql, selection);
+        int start = limitedSql.indexOf(sql);
+        if (start < 0) {
+            return null;
+        }
+        String value = String.valueOf(limit);
+        return COUNT_SELECT + "from (" + limitedSql.substring(0, start).replace("?", value) + sql +
+                limitedSql.substring(start + sql.length()).replace("?", value) + ") q";
+    }
+
+    /**
+     * Создает объекты конструктором целевого класса по значениям строки без последнего столбца.
+     * Конструктор определяется по первой строке.
+     */
+    private static final class ConstructorRowMapper implements Function<Object[], Object> {
+        private final Class<?> targetClass;
+        private Constructor<?> constructor;
+
+        private ConstructorRowMapper(Class<?> targetClass) {
+            this.targetClass = targetClass;
+        }
+
+        @Override
+        public Object apply(Object[] row) {
+            Object[] args = Arrays.copyOf(row, row.length - 1);
+            if (constructor == null) {
+                constructor = findConstructor(args);
+            }
+            try {
+                return constructor.newInstance(args);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Could not instantiate " + targetClass.getName(), e);
+            }
+        }
+
+        private Constructor<?> findConstructor(Object[] args) {
+            for (Constructor<?> candidate : targetClass.getConstructors()) {
+                Class<?>[] types = candidate.getParameterTypes();
+                if (types.length == args.length && isApplicable(types, args)) {
+                    return candidate;
+                }
+            }
+            throw new MappingException("Could not locate appropriate constructor on class : " + targetClass.getName());
+        }
+
+        private boolean isApplicable(Class<?>[] types, Object[] args) {
+            for (int i = 0; i < types.length; i++) {
+                if (args[i] != null ? !ClassUtils.isAssignable(args[i].getClass(), types[i]) : types[i].isPrimitive()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
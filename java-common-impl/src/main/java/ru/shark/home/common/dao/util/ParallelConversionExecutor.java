@@ -0,0 +1,145 @@
+package ru.shark.home.common.dao.util;
+
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Параллельное преобразование больших списков. Список длиннее порога делится на части,
+ * которые преобразуются в выделенном пуле ForkJoinPool. Результат имеет размер исходного списка
+ * и сохраняет порядок элементов.
+ * Ленивые связи управляемых сущностей нельзя читать вне потока, которому принадлежит сессия,
+ * поэтому возможность параллельного преобразования сущностей определяется политикой {@link EntityPolicy}.
+ * DTO преобразуются параллельно всегда.
+ */
+public class ParallelConversionExecutor {
+    public static final int DEFAULT_THRESHOLD = 5000;
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * Политика параллельного преобразования сущностей.
+     */
+    public enum EntityPolicy {
+        /**
+         * Сущности преобразуются параллельно, только если к текущему потоку не привязан контекст персистентности
+         * (сущности отсоединены). Внутри транзакции или открытой сессии преобразование выполняется последовательно.
+         */
+        DETACHED_ONLY,
+        /**
+         * Сущности преобразуются параллельно всегда. Допустимо, если все читаемые связи сущностей загружены заранее.
+         */
+        ALWAYS,
+        /**
+         * Сущности всегда преобразуются последовательно.
+         */
+        NEVER
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int chunkSize;
+    private final EntityPolicy entityPolicy;
+
+    /**
+     * @param pool         пул для преобразования частей списка
+     * @param threshold    размер списка, начиная с которого преобразование выполняется параллельно
+     * @param chunkSize    размер части списка
+     * @param entityPolicy политика параллельного преобразования сущностей
+     */
+    public ParallelConversionExecutor(ForkJoinPool pool, int threshold, int chunkSize, EntityPolicy entityPolicy) {
+        this.pool = pool;
+        this.threshold = Math.max(threshold, 1);
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.entityPolicy = entityPolicy;
+    }
+
+    /**
+     * Проверяет возможность параллельного преобразования списка.
+     *
+     * @param size     размер списка
+     * @param entities признак списка сущностей
+     * @return true, если список следует преобразовывать параллельно
+     */
+    public boolean isApplicable(int size, boolean entities) {
+        if (size < threshold || size <= chunkSize) {
+            return false;
+        }
+        if (!entities) {
+            return true;
+        }
+        switch (entityPolicy) {
+            case ALWAYS:
+                return true;
+            case DETACHED_ONLY:
+                return !isPersistenceContextBound();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Преобразует список по частям в пуле.
+     *
+     * @param source    исходный список
+     * @param converter преобразование элемента
+     * @return список результатов в порядке исходного списка
+     */
+    public <S, T> List<T> convert(List<S> source, Function<S, T> converter) {
+        List<S> items = source instanceof RandomAccess ? source : new ArrayList<>(source);
+        List<T> result = new ArrayList<>(Collections.nCopies(items.size(), null));
+        pool.invoke(new ConversionTask<>(items, result, converter, 0, items.size()));
+        return result;
+    }
+
+    /**
+     * Останавливает пул.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static boolean isPersistenceContextBound() {
+        return TransactionSynchronizationManager.getResourceMap().values().stream()
+                .anyMatch(EntityManagerHolder.class::isInstance);
+    }
+
+    /**
+     * Преобразование диапазона списка. Диапазоны больше размера части делятся пополам.
+     * Элементы результата заполняются по индексам, поэтому порядок сохраняется без дополнительной сортировки.
+     */
+    private final class ConversionTask<S, T> extends RecursiveAction {
+        private final List<S> source;
+        private final List<T> result;
+        private final Function<S, T> converter;
+        private final int from;
+        private final int to;
+
+        private ConversionTask(List<S> source, List<T> result, Function<S, T> converter, int from, int to) {
+            this.source = source;
+            this.result = result;
+            this.converter = converter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    result.set(i, converter.apply(source.get(i)));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConversionTask<>(source, result, converter, from, middle),
+                    new ConversionTask<>(source, result, converter, middle, to));
+        }
+    }
+}
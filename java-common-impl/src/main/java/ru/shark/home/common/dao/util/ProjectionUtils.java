@@ -0,0 +1,104 @@
+package ru.shark.home.common.dao.util;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+import ru.shark.home.common.dao.common.ProjectionPath;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.repository.query.parts.HqlFromQueryPart;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static ru.shark.home.common.common.ErrorConstants.PROJECTION_SORT_FIELD_NOT_FOUND;
+import static ru.shark.home.common.common.ErrorConstants.PROJECTION_WITHOUT_FIELDS;
+
+/**
+ * Вспомогательные методы выборки проекций: строк запроса, читаемых сразу в DTO без загрузки сущностей.
+ */
+public class ProjectionUtils {
+    private static final Map<Class<?>, Map<String, String>> PROJECTION_PATHS = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает пути к полям сущности для свойств DTO. В проекцию входят свойства простых типов,
+     * доступные для записи. Путь задается аннотацией {@link ProjectionPath} на поле DTO,
+     * без нее совпадает с наименованием свойства.
+     *
+     * @param dtoClass класс DTO
+     * @return карта, где ключ - свойство DTO, значение - путь к полю сущности
+     */
+    public static Map<String, String> getProjectionPaths(Class<?> dtoClass) {
+        return PROJECTION_PATHS.computeIfAbsent(dtoClass, ProjectionUtils::createProjectionPaths);
+    }
+
+    /**
+     * Формирует часть SELECT запроса проекции: поля сущности с псевдонимами по свойствам DTO.
+     * Пути с соединением, присутствующим в части FROM, заменяются на поле его псевдонима,
+     * остальные указываются от псевдонима главной таблицы.
+     *
+     * @param fromPart часть FROM запроса
+     * @param paths    пути к полям сущности по свойствам DTO
+     * @return часть SELECT
+     */
+    public static String getSelectPart(HqlFromQueryPart fromPart, Map<String, String> paths) {
+        String mainAlias = fromPart.getMainTableAlias();
+        List<String> columns = new ArrayList<>(paths.size());
+        for (Map.Entry<String, String> entry : paths.entrySet()) {
+            String path = entry.getValue();
+            String field = fromPart.transformFieldChain(path);
+            if (field.equals(path) && !isBlank(mainAlias)) {
+                field = mainAlias + "." + path;
+            }
+            columns.add(field + " as " + entry.getKey());
+        }
+        return "select " + String.join(", ", columns);
+    }
+
+    /**
+     * Возвращает свойства DTO, содержащие значения полей сортировки, для выборки по ключу.
+     *
+     * @param sorts    сортировки
+     * @param dtoClass класс DTO
+     * @return свойства DTO в порядке сортировок
+     */
+    public static List<String> getRowProperties(List<RequestSort> sorts, Class<?> dtoClass) {
+        Map<String, String> paths = getProjectionPaths(dtoClass);
+        List<String> properties = new ArrayList<>(sorts.size());
+        for (RequestSort sort : sorts) {
+            String property = paths.entrySet().stream()
+                    .filter(entry -> entry.getValue().equals(sort.getField()))
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElse(paths.containsKey(sort.getField()) ? sort.getField() : null);
+            if (property == null) {
+                throw new IllegalArgumentException(MessageFormat.format(PROJECTION_SORT_FIELD_NOT_FOUND,
+                        sort.getField(), dtoClass.getName()));
+            }
+            properties.add(property);
+        }
+        return properties;
+    }
+
+    private static Map<String, String> createProjectionPaths(Class<?> dtoClass) {
+        Map<String, String> paths = new LinkedHashMap<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(dtoClass)) {
+            if (descriptor.getWriteMethod() == null || !BeanUtils.isSimpleValueType(descriptor.getPropertyType())) {
+                continue;
+            }
+            Field field = ReflectionUtils.findField(dtoClass, descriptor.getName());
+            ProjectionPath projectionPath = field == null ? null : field.getAnnotation(ProjectionPath.class);
+            paths.put(descriptor.getName(), projectionPath == null ? descriptor.getName() : projectionPath.value());
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException(MessageFormat.format(PROJECTION_WITHOUT_FIELDS, dtoClass.getName()));
+        }
+        return Collections.unmodifiableMap(paths);
+    }
+}
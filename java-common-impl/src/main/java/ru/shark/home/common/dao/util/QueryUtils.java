@@ -1,13 +1,80 @@
 package ru.shark.home.common.dao.util;
 
 import org.apache.commons.text.CaseUtils;
+import ru.shark.home.common.dao.common.RequestFilter;
 
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static ru.shark.home.common.common.Constants.FILTER_LIST_DELIMITER;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_IN_CHUNK_SIZE;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_IN_CHUNK_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_IN_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.LIKE_ESCAPE_CHAR;
+
 public class QueryUtils {
 
     public static String getFilterName(String field) {
         return CaseUtils.toCamelCase(Arrays.stream(field.split("(?=\\p{Upper})")).collect(Collectors.joining(".")), false, '.');
     }
+
+    /**
+     * Формирует шаблон LIKE поиска по началу строки: экранирует в значении символы %, _ и символ экранирования
+     * {@link ru.shark.home.common.dao.repository.query.generator.GeneratorConstants#LIKE_ESCAPE_CHAR}
+     * и дополняет его символом %.
+     *
+     * @param value значение
+     * @return шаблон LIKE
+     */
+    public static String getPrefixPattern(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE_CHAR) {
+                sb.append(LIKE_ESCAPE_CHAR);
+            }
+            sb.append(c);
+        }
+        return sb.append('%').toString();
+    }
+
+    /**
+     * Возвращает количество частей, на которые делится список значений фильтра IN
+     * (не более {@link ru.shark.home.common.dao.repository.query.generator.GeneratorConstants#FILTER_IN_CHUNK_SIZE}
+     * значений в части).
+     *
+     * @param filter фильтр
+     * @return количество частей
+     */
+    public static int getInChunkCount(RequestFilter filter) {
+        if (isBlank(filter.getValue())) {
+            return 1;
+        }
+        int size = filter.getValue().split(FILTER_LIST_DELIMITER).length;
+        return Math.max((size + FILTER_IN_CHUNK_SIZE - 1) / FILTER_IN_CHUNK_SIZE, 1);
+    }
+
+    /**
+     * Формирует условие вхождения в список. Список из нескольких частей проверяется условиями IN по каждой части,
+     * объединенными через or, параметры частей имеют суффиксы _0, _1 и т.д.
+     *
+     * @param field      поле в виде для запроса
+     * @param filterName имя фильтра в имени параметра
+     * @param chunkCount количество частей списка
+     * @return условие
+     */
+    public static String getInClause(String field, String filterName, int chunkCount) {
+        if (chunkCount <= 1) {
+            return MessageFormat.format(FILTER_IN_TPL, field, filterName);
+        }
+        List<String> clauses = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            clauses.add(MessageFormat.format(FILTER_IN_CHUNK_TPL, field, filterName, String.valueOf(i)));
+        }
+        return "(" + String.join(" or ", clauses) + ")";
+    }
 }
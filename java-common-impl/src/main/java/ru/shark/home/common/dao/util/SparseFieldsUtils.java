@@ -0,0 +1,109 @@
+package ru.shark.home.common.dao.util;
+
+import org.apache.commons.text.CaseUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Вспомогательные методы выборки только запрошенных клиентом полей строки результата.
+ */
+public class SparseFieldsUtils {
+    /**
+     * Поле, которое выбирается всегда.
+     */
+    public static final String ID_FIELD = "id";
+    private static final Pattern SELECT_PATTERN = Pattern.compile("^\\s*select\\s+(distinct\\s+)?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALIAS_PATTERN = Pattern.compile("\\s+as\\s+(\\w+)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COLUMN_PATTERN = Pattern.compile("^(?:\\w+\\.)?(\\w+)$");
+    private static final Pattern CONSTRUCTOR_PATTERN = Pattern.compile("^new\\s", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Сокращает часть SELECT до запрошенных полей и идентификатора. Имя поля элемента выборки определяется
+     * по псевдониму, а для нативного запроса без псевдонима - по имени столбца, приведенному к camelCase.
+     * В нативном запросе незапрошенные элементы заменяются на null с тем же именем, чтобы отображение результата
+     * (resultSetMapping) оставалось применимым. В HQL запросе незапрошенные элементы с псевдонимом исключаются,
+     * элементы без псевдонима (например, выборка сущности) и выражения конструктора не изменяются.
+     * Часть SELECT DISTINCT не сокращается, так как исключение элементов меняет количество уникальных строк.
+     *
+     * @param selectPart часть SELECT
+     * @param fields     запрошенные поля
+     * @param isNative   признак нативного запроса
+     * @return часть SELECT
+     */
+    public static String pruneSelectPart(String selectPart, Collection<String> fields, boolean isNative) {
+        Matcher selectMatcher = SELECT_PATTERN.matcher(selectPart);
+        if (!selectMatcher.find()) {
+            return selectPart;
+        }
+        if (selectMatcher.group(1) != null) {
+            return selectPart;
+        }
+        String prefix = selectPart.substring(0, selectMatcher.end()).trim();
+        String items = selectPart.substring(selectMatcher.end()).trim();
+        if (CONSTRUCTOR_PATTERN.matcher(items).find()) {
+            return selectPart;
+        }
+        List<String> result = new ArrayList<>();
+        for (String item : splitItems(items)) {
+            String name = getItemName(item, isNative);
+            if (name == null || ID_FIELD.equals(name) || fields.contains(name)) {
+                result.add(item);
+            } else if (isNative) {
+                result.add("null as " + getOutputName(item));
+            }
+        }
+        if (result.isEmpty()) {
+            return selectPart;
+        }
+        return prefix + " " + String.join(", ", result);
+    }
+
+    /**
+     * Делит перечень элементов выборки по запятым верхнего уровня (вне скобок и строковых литералов).
+     */
+    static List<String> splitItems(String items) {
+        List<String> result = new ArrayList<>();
+        int depth = 0;
+        boolean inQuotes = false;
+        int start = 0;
+        for (int i = 0; i < items.length(); i++) {
+            char c = items.charAt(i);
+            if (c == '\'') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && c == '(') {
+                depth++;
+            } else if (!inQuotes && c == ')') {
+                depth--;
+            } else if (!inQuotes && depth == 0 && c == ',') {
+                result.add(items.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        result.add(items.substring(start).trim());
+        return result;
+    }
+
+    private static String getItemName(String item, boolean isNative) {
+        String outputName = ALIAS_PATTERN.matcher(item).find() || isNative ? getOutputName(item) : null;
+        if (isBlank(outputName)) {
+            return null;
+        }
+        return outputName.indexOf('_') < 0 ? outputName : CaseUtils.toCamelCase(outputName, false, '_');
+    }
+
+    private static String getOutputName(String item) {
+        Matcher aliasMatcher = ALIAS_PATTERN.matcher(item);
+        if (aliasMatcher.find()) {
+            return aliasMatcher.group(1);
+        }
+        Matcher columnMatcher = COLUMN_PATTERN.matcher(item.trim());
+        return columnMatcher.find() ? columnMatcher.group(1) : null;
+    }
+}
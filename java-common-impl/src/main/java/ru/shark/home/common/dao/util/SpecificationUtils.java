@@ -3,11 +3,19 @@ package ru.shark.home.common.dao.util;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.ObjectUtils;
 import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.common.RequestSort;
 import ru.shark.home.common.dao.entity.BaseEntity;
+import ru.shark.home.common.dao.specification.CriteriaParameters;
+import ru.shark.home.common.dao.specification.JoinRegistry;
+import ru.shark.home.common.enums.SortDirection;
 
 import javax.persistence.criteria.*;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.LIKE_ESCAPE_CHAR;
 
 public class SpecificationUtils {
     public static <T extends BaseEntity> Specification<T> andSpecifications(final Specification<T>... specifications) {
@@ -26,81 +34,159 @@ public class SpecificationUtils {
     }
 
     public static <T extends BaseEntity> Specification<T> searchSpecification(RequestSearch search, String... attributes) {
-        return new Specification<T>() {
-            @Override
-            public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                return new Specification<T>() {
-                    @Override
-                    public Predicate toPredicate(Root root, CriteriaQuery query, CriteriaBuilder criteriaBuilder) {
-                        if (search == null || isBlank(search.getValue()) || ObjectUtils.isEmpty(attributes)) {
-                            return null;
-                        }
-                        Specification<BaseEntity> combineSpec = null;
-                        for (int i = 0; i < attributes.length; i++) {
-                            Specification<BaseEntity> spec = search.isEquals() ?
-                                    equalAttribute(attributes[i], search.getValue()) :
-                                    likeAttribute(attributes[i], search.getValue());
-                            if (i == 0) {
-                                combineSpec = Specification.where(spec);
-                            } else {
-                                combineSpec = combineSpec.or(spec);
-                            }
-                        }
-
-                        return combineSpec.toPredicate(root, query, criteriaBuilder);
-                    }
-                }.toPredicate(root, query, criteriaBuilder);
+        return (root, query, criteriaBuilder) -> {
+            if (search == null || isBlank(search.getValue()) || ObjectUtils.isEmpty(attributes)) {
+                return null;
             }
+            Specification<T> combineSpec = null;
+            for (int i = 0; i < attributes.length; i++) {
+                Specification<T> spec;
+                switch (search.getMode()) {
+                    case EXACT:
+                        spec = equalAttribute(attributes[i], search.getValue());
+                        break;
+                    case PREFIX:
+                        spec = prefixAttribute(attributes[i], search.getValue());
+                        break;
+                    default:
+                        spec = likeAttribute(attributes[i], search.getValue());
+                }
+                combineSpec = i == 0 ? Specification.where(spec) : combineSpec.or(spec);
+            }
+
+            return combineSpec.toPredicate(root, query, criteriaBuilder);
         };
     }
 
     public static <T extends BaseEntity> Specification<T> likeAttribute(String attribute, String value) {
-        return new Specification<T>() {
-            @Override
-            public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                return new Specification<T>() {
-                    @Override
-                    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                        if (isBlank(value)) {
-                            return null;
-                        }
-                        Path path = null;
-                        if (attribute.contains(".")) {
-                            String[] attributeChain = attribute.split("\\.");
-                            path = root.get(attributeChain[0]).get(attributeChain[1]);
-                        } else {
-                            path = root.get(attribute);
-                        }
-
-                        return criteriaBuilder.like(criteriaBuilder.lower(path), "%" + value.toLowerCase() + "%");
-                    }
-                }.toPredicate(root, query, criteriaBuilder);
+        return (root, query, criteriaBuilder) -> {
+            if (isBlank(value)) {
+                return null;
+            }
+            Path<String> path = getPath(root, attribute);
+
+            return criteriaBuilder.like(criteriaBuilder.lower(path),
+                    CriteriaParameters.value(criteriaBuilder, String.class, "%" + value.toLowerCase() + "%"));
+        };
+    }
+
+    /**
+     * Возвращает спецификацию поиска по началу строки без учета регистра. Символы % и _ значения экранируются.
+     *
+     * @param attribute путь к атрибуту
+     * @param value     значение
+     * @return спецификация
+     */
+    public static <T extends BaseEntity> Specification<T> prefixAttribute(String attribute, String value) {
+        return (root, query, criteriaBuilder) -> {
+            if (isBlank(value)) {
+                return null;
             }
+            Path<String> path = getPath(root, attribute);
+
+            return criteriaBuilder.like(criteriaBuilder.lower(path), CriteriaParameters.value(criteriaBuilder, String.class,
+                    QueryUtils.getPrefixPattern(value.toLowerCase())), LIKE_ESCAPE_CHAR);
         };
     }
 
     public static <T extends BaseEntity> Specification<T> equalAttribute(String attribute, Object value) {
-        return new Specification<T>() {
-            @Override
-            public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                return new Specification<T>() {
-                    @Override
-                    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                        if (ObjectUtils.isEmpty(value)) {
-                            return null;
-                        }
-                        Path path = null;
-                        if (attribute.contains(".")) {
-                            String[] attributeChain = attribute.split("\\.");
-                            path = root.get(attributeChain[0]).get(attributeChain[1]);
-                        } else {
-                            path = root.get(attribute);
-                        }
-
-                        return criteriaBuilder.equal(path, value);
-                    }
-                }.toPredicate(root, query, criteriaBuilder);
+        return (root, query, criteriaBuilder) -> {
+            if (ObjectUtils.isEmpty(value)) {
+                return null;
+            }
+
+            Path<Object> path = getPath(root, attribute);
+
+            return criteriaBuilder.equal(path, CriteriaParameters.value(criteriaBuilder, path, value));
+        };
+    }
+
+    /**
+     * Возвращает спецификацию выборки строк, следующих по сортировке за строкой с переданными значениями полей:
+     * (a &gt; v0) or (a = v0 and b &gt; v1) or ... с учетом направления каждой сортировки.
+     * Для полей, допускающих пустые значения, пустое значение считается наибольшим
+     * (как в {@link KeysetUtils#getKeysetClause(List, List, List, boolean)}), порядок задается
+     * спецификацией {@link #keysetOrderSpecification(List)}.
+     *
+     * @param sorts  сортировки, однозначно упорядочивающие строки
+     * @param values значения полей сортировки последней строки предыдущей страницы
+     * @return спецификация
+     */
+    public static <T extends BaseEntity> Specification<T> keysetSpecification(List<RequestSort> sorts, List<Object> values) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>(sorts.size());
+            for (int i = 0; i < sorts.size(); i++) {
+                Expression<Comparable> path = getPath(root, sorts.get(i).getField());
+                Predicate next = getKeysetNextPredicate(criteriaBuilder, path, sorts.get(i).getDirection(), values.get(i));
+                if (next == null) {
+                    continue;
+                }
+                List<Predicate> conditions = new ArrayList<>(i + 1);
+                for (int j = 0; j < i; j++) {
+                    Path<Object> equalPath = getPath(root, sorts.get(j).getField());
+                    conditions.add(values.get(j) == null ? criteriaBuilder.isNull(equalPath) :
+                            criteriaBuilder.equal(equalPath, CriteriaParameters.value(criteriaBuilder, equalPath, values.get(j))));
+                }
+                conditions.add(next);
+                predicates.add(criteriaBuilder.and(conditions.toArray(new Predicate[0])));
             }
+            return predicates.isEmpty() ? criteriaBuilder.disjunction() : criteriaBuilder.or(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Возвращает спецификацию, задающую сортировку выборки по ключу. Для полей, допускающих пустые значения,
+     * строки с пустым значением располагаются последними при сортировке по возрастанию и первыми - по убыванию,
+     * так как Criteria API не позволяет указать nulls first/last.
+     *
+     * @param sorts сортировки, однозначно упорядочивающие строки
+     * @return спецификация
+     */
+    public static <T extends BaseEntity> Specification<T> keysetOrderSpecification(List<RequestSort> sorts) {
+        return (root, query, criteriaBuilder) -> {
+            List<Order> orders = new ArrayList<>(sorts.size() * 2);
+            for (RequestSort sort : sorts) {
+                Path<Object> path = getPath(root, sort.getField());
+                boolean isDesc = SortDirection.DESC.equals(sort.getDirection());
+                if (isNullable(path)) {
+                    Expression<Integer> nullsOrder = criteriaBuilder.<Integer>selectCase()
+                            .when(criteriaBuilder.isNull(path), 1).otherwise(0);
+                    orders.add(isDesc ? criteriaBuilder.desc(nullsOrder) : criteriaBuilder.asc(nullsOrder));
+                }
+                orders.add(isDesc ? criteriaBuilder.desc(path) : criteriaBuilder.asc(path));
+            }
+            query.orderBy(orders);
+            return null;
+        };
+    }
+
+    /**
+     * Возвращает условие "значение поля следует за переданным значением" или null, если таких значений нет.
+     */
+    private static Predicate getKeysetNextPredicate(CriteriaBuilder criteriaBuilder, Expression<Comparable> path,
+                                                    SortDirection direction, Object value) {
+        boolean isDesc = SortDirection.DESC.equals(direction);
+        boolean isNullable = isNullable((Path<?>) path);
+        if (value == null) {
+            return isDesc && isNullable ? criteriaBuilder.isNotNull(path) : null;
+        }
+        Expression<Comparable> parameter = CriteriaParameters.value(criteriaBuilder, path, value);
+        if (isDesc) {
+            return criteriaBuilder.lessThan(path, parameter);
+        }
+        Predicate greater = criteriaBuilder.greaterThan(path, parameter);
+        return isNullable ? criteriaBuilder.or(greater, criteriaBuilder.isNull(path)) : greater;
+    }
+
+    /**
+     * Проверяет, допускает ли поле пустые значения (связи соединяются внутренним соединением,
+     * поэтому учитывается только последний атрибут пути).
+     */
+    private static boolean isNullable(Path<?> path) {
+        return !(path.getModel() instanceof SingularAttribute) || ((SingularAttribute<?, ?>) path.getModel()).isOptional();
+    }
+
+    private static <Y> Path<Y> getPath(Root<?> root, String attribute) {
+        return JoinRegistry.getPath(root, attribute);
+    }
 }
@@ -2,11 +2,17 @@ package ru.shark.home.common.datamanager;
 
 import ru.shark.home.common.dao.entity.BaseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.dto.Dto;
 import ru.shark.home.common.dao.service.BaseDao;
 import ru.shark.home.common.dao.util.ConverterUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Базовый класс для промежуточного слоя между dao и хранением данных.
@@ -31,6 +37,32 @@ public abstract class BaseDataManager<E extends BaseEntity, D extends Dto> {
         return entityToDto(dao.save(dtoToEntity(dto)));
     }
 
+    /**
+     * Пакетно сохраняет сущности.
+     *
+     * @param dtos данные для сохранения
+     * @return сохраненные данные в порядке переданных
+     * @see BaseDao#saveAll(Collection)
+     */
+    public List<D> saveAll(Collection<D> dtos) {
+        List<E> entities = new ArrayList<>(dtos.size());
+        for (D dto : dtos) {
+            entities.add(dtoToEntity(dto));
+        }
+        return converterUtil.entityListToDtoList(dao.saveAll(entities), dtoClass);
+    }
+
+    /**
+     * Удаляет сущности по идентификаторам.
+     *
+     * @param ids идентификаторы сущностей
+     * @return количество удаленных сущностей
+     * @see BaseDao#deleteAllByIds(Collection)
+     */
+    public int deleteAllByIds(Collection<Long> ids) {
+        return dao.deleteAllByIds(ids);
+    }
+
     /**
      * Удаляем сущность по идентификатору.
      *
@@ -59,6 +91,33 @@ public abstract class BaseDataManager<E extends BaseEntity, D extends Dto> {
         return converterUtil.entityListToDtoList(dao.findAll(), dtoClass);
     }
 
+    /**
+     * Возвращает все сущности в виде потока DTO. Сущности читаются курсором и преобразуются по мере чтения,
+     * поэтому таблица не загружается в память целиком.
+     * Поток должен быть закрыт и прочитан в рамках транзакции вызывающего кода.
+     *
+     * @return поток DTO
+     */
+    public Stream<D> streamAll() {
+        return dao.streamAll().map(this::entityToDto);
+    }
+
+    /**
+     * Выполняет именованный запрос с пагинацией, читая строки сразу в DTO без загрузки и преобразования сущностей.
+     * Подходит для списков только для чтения.
+     *
+     * @param queryName       наименование запроса
+     * @param requestCriteria критерии запроса
+     * @param params          параметры запроса
+     * @param searchFields    поля для поиска
+     * @return пагинированный список DTO
+     * @see BaseDao#getProjectionWithPagination(String, RequestCriteria, Map, List, Class)
+     */
+    public PageableList<D> getProjectionWithPagination(String queryName, RequestCriteria requestCriteria,
+                                                       Map<String, Object> params, List<String> searchFields) {
+        return dao.getProjectionWithPagination(queryName, requestCriteria, params, searchFields, dtoClass);
+    }
+
     protected D entityToDto(E entity) {
         return converterUtil.entityToDto(entity, dtoClass);
     }
@@ -0,0 +1,32 @@
+package ru.shark.home.common.enums;
+
+/**
+ * Способ подсчета общего количества строк при пагинации.
+ */
+public enum CountModeType {
+    /**
+     * Подсчет при каждом запросе.
+     */
+    ALWAYS,
+    /**
+     * Без подсчета.
+     */
+    NEVER,
+    /**
+     * Подсчет только для первой страницы.
+     */
+    FIRST_PAGE_ONLY,
+    /**
+     * Подсчет не более заданного количества строк.
+     */
+    BOUNDED,
+    /**
+     * Без подсчета, наличие следующей страницы определяется выборкой на одну строку больше размера страницы.
+     */
+    SIZE_PLUS_ONE,
+    /**
+     * Подсчет оконной функцией count(*) over() в запросе данных (только для нативных запросов,
+     * для остальных выполняется как {@link #ALWAYS}).
+     */
+    WINDOW
+}
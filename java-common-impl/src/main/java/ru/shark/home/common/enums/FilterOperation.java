@@ -3,6 +3,7 @@ package ru.shark.home.common.enums;
 public enum FilterOperation {
     EQ("="),
     LIKE("~"),
+    PREFIX("^"),
     BETWEEN("btw"),
     NE("!="),
     IN("in"),
@@ -0,0 +1,20 @@
+package ru.shark.home.common.enums;
+
+/**
+ * Способ сравнения значения поиска или фильтра со значением поля.
+ * Сравнение выполняется без учета регистра.
+ */
+public enum SearchMode {
+    /**
+     * Поле содержит значение.
+     */
+    CONTAINS,
+    /**
+     * Поле начинается со значения. Условие может выполняться по индексу, в том числе функциональному по lower().
+     */
+    PREFIX,
+    /**
+     * Поле совпадает со значением.
+     */
+    EXACT
+}
@@ -1,21 +1,25 @@
 package ru.shark.home.common.services;
 
-import ru.shark.home.common.dao.common.EntityClass;
 import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.common.RequestFilter;
 import ru.shark.home.common.dao.common.RequestSearch;
 import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.util.FilterFieldMetadata;
+import ru.shark.home.common.dao.util.FilterMetadataRegistry;
+import ru.shark.home.common.dao.util.ProjectionUtils;
 import ru.shark.home.common.services.dto.PageRequest;
-import org.springframework.core.annotation.AnnotationUtils;
-import org.springframework.util.ReflectionUtils;
+import ru.shark.home.common.services.dto.Search;
 import ru.shark.home.common.enums.FieldType;
 
 import java.lang.reflect.Field;
 import java.text.MessageFormat;
-import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
+import static ru.shark.home.common.common.ErrorConstants.FIELD_NOT_ALLOWED;
+import static ru.shark.home.common.common.ErrorConstants.UNKNOWN_FILTER_FIELD;
 import static ru.shark.home.common.common.ErrorConstants.UNSUPPORTED_FILTER_FIELD_TYPE;
 
 public class BaseLogicService {
@@ -23,7 +27,9 @@ public class BaseLogicService {
     protected RequestCriteria getCriteria(PageRequest request, Class dtoClass) {
         RequestCriteria criteria = new RequestCriteria(request.getPage(), request.getSize());
         if (request.getSearch() != null) {
-            criteria.setSearch(new RequestSearch(request.getSearch().getValue(), request.getSearch().isEquals()));
+            Search search = request.getSearch();
+            criteria.setSearch(search.getMode() == null ? new RequestSearch(search.getValue(), search.isEquals()) :
+                    new RequestSearch(search.getValue(), search.getMode()));
         }
         if (!isEmpty(request.getFilters())) {
             criteria.setFilters(request.getFilters().stream()
@@ -38,43 +44,63 @@ public class BaseLogicService {
                     .collect(Collectors.toList()));
         }
 
+        if (!isEmpty(request.getFields())) {
+            criteria.setFields(getFields(request.getFields(), dtoClass));
+        }
+
         return criteria;
     }
 
-    protected FieldType getFieldType(Class dtoClass, String fieldName) {
-        Field field = findField(dtoClass, fieldName);
-
-        if (field.isEnumConstant() || field.getType().isEnum()) {
-            return FieldType.ENUM;
+    /**
+     * Проверяет запрошенные клиентом поля по метаданным DTO.
+     *
+     * @param fields   запрошенные поля
+     * @param dtoClass класс DTO
+     * @return запрошенные поля без повторов
+     * @throws IllegalArgumentException если поле отсутствует в DTO или недоступно для выборки
+     */
+    protected List<String> getFields(List<String> fields, Class dtoClass) {
+        Set<String> allowedFields = getAllowedFields(dtoClass);
+        for (String field : fields) {
+            if (!allowedFields.contains(field)) {
+                throw new IllegalArgumentException(MessageFormat.format(FIELD_NOT_ALLOWED, field));
+            }
         }
+        return fields.stream().distinct().collect(Collectors.toList());
+    }
 
-        switch (field.getType().getSimpleName().toUpperCase()) {
-            case "STRING":
-                return FieldType.STRING;
-            case "INTEGER":
-            case "LONG":
-                return FieldType.INTEGER;
-            default:
-                throw new IllegalArgumentException(MessageFormat.format(UNSUPPORTED_FILTER_FIELD_TYPE, field.getType().getSimpleName()));
-        }
+    /**
+     * Возвращает поля DTO, которые клиент может запросить: свойства простых типов, доступные для записи.
+     * Может быть переопределен для ограничения перечня.
+     *
+     * @param dtoClass класс DTO
+     * @return доступные поля
+     */
+    protected Set<String> getAllowedFields(Class dtoClass) {
+        return ProjectionUtils.getProjectionPaths(dtoClass).keySet();
     }
 
-    protected Field findField(Class<?> clazz, String fieldName) {
-        if (clazz == null) {
-            return null;
-        }
-        Class<?> checkClass = clazz;
-        EntityClass annotation = AnnotationUtils.findAnnotation(clazz, EntityClass.class);
-        if (annotation != null && annotation.clazz() != null) {
-            checkClass = annotation.clazz();
+    /**
+     * Возвращает тип поля фильтра по метаданным DTO (см. {@link FilterMetadataRegistry}).
+     *
+     * @param dtoClass  класс DTO
+     * @param fieldName путь к полю
+     * @return тип поля
+     */
+    protected FieldType getFieldType(Class dtoClass, String fieldName) {
+        FilterFieldMetadata metadata = FilterMetadataRegistry.getField(dtoClass, fieldName);
+        if (metadata == null) {
+            throw new IllegalArgumentException(MessageFormat.format(UNKNOWN_FILTER_FIELD, fieldName));
         }
-        Field field = null;
-        String[] split = fieldName.split("\\.");
-        for (String element : split) {
-            field = ReflectionUtils.findField(checkClass, element);
-            checkClass = Optional.ofNullable(field).map(Field::getType).orElse(null);
+        if (metadata.getFieldType() == null) {
+            throw new IllegalArgumentException(MessageFormat.format(UNSUPPORTED_FILTER_FIELD_TYPE,
+                    metadata.getField().getType().getSimpleName()));
         }
+        return metadata.getFieldType();
+    }
 
-        return field;
+    protected Field findField(Class<?> clazz, String fieldName) {
+        FilterFieldMetadata metadata = FilterMetadataRegistry.getField(clazz, fieldName);
+        return metadata == null ? null : metadata.getField();
     }
 }
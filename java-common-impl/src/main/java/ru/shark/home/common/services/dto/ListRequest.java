@@ -6,6 +6,7 @@ public class ListRequest {
     private List<Filter> filters;
     private Search search;
     private List<Sort> sorts;
+    private List<String> fields;
 
     public List<Filter> getFilters() {
         return filters;
@@ -30,4 +31,12 @@ public class ListRequest {
     public void setSorts(List<Sort> sorts) {
         this.sorts = sorts;
     }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
 }
@@ -1,8 +1,11 @@
 package ru.shark.home.common.services.dto;
 
+import ru.shark.home.common.enums.SearchMode;
+
 public class Search {
     private String value;
     private boolean equals;
+    private SearchMode mode;
 
     public Search() {
 
@@ -17,6 +20,11 @@ public class Search {
         this.equals = isEquals;
     }
 
+    public Search(String value, SearchMode mode) {
+        this.value = value;
+        this.mode = mode;
+    }
+
     public String getValue() {
         return value;
     }
@@ -32,4 +40,15 @@ public class Search {
     public void setEquals(boolean equals) {
         this.equals = equals;
     }
+
+    /**
+     * Возвращает способ сравнения значения поиска с полями. Если не задан, определяется признаком {@link #isEquals()}.
+     */
+    public SearchMode getMode() {
+        return mode;
+    }
+
+    public void setMode(SearchMode mode) {
+        this.mode = mode;
+    }
 }
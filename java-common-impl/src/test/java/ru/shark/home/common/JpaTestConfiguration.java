@@ -0,0 +1,17 @@
+package ru.shark.home.common;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.repository.JpaBaseRepository;
+import ru.shark.home.common.dao.repository.TestSetRepository;
+
+/**
+ * Конфигурация тестов, работающих с JPA на встроенной БД.
+ */
+@TestConfiguration
+@AutoConfigurationPackage(basePackageClasses = TestSetEntity.class)
+@EnableJpaRepositories(basePackageClasses = TestSetRepository.class, repositoryBaseClass = JpaBaseRepository.class)
+public class JpaTestConfiguration {
+}
@@ -0,0 +1,63 @@
+package ru.shark.home.common.dao.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class CountModeTest {
+
+    @Test
+    public void createListWithAlways() {
+        // WHEN
+        PageableList<Integer> result = CountMode.ALWAYS.createList(List.of(1, 2), 5L, 1, 2);
+
+        // THEN
+        Assertions.assertEquals(5L, result.getTotalCount());
+        Assertions.assertEquals("5", result.getTotalCountText());
+        Assertions.assertTrue(result.getHasNext());
+        Assertions.assertFalse(result.isTotalCountLimited());
+    }
+
+    @Test
+    public void createListWithBounded() {
+        // GIVEN
+        CountMode countMode = CountMode.bounded(3);
+
+        // WHEN
+        PageableList<Integer> limited = countMode.createList(List.of(1, 2), 4L, 0, 2);
+        PageableList<Integer> exact = countMode.createList(List.of(1, 2), 3L, 1, 2);
+
+        // THEN
+        Assertions.assertEquals(3L, limited.getTotalCount());
+        Assertions.assertEquals("3+", limited.getTotalCountText());
+        Assertions.assertTrue(limited.isTotalCountLimited());
+        Assertions.assertTrue(limited.getHasNext());
+        Assertions.assertEquals("3", exact.getTotalCountText());
+        Assertions.assertFalse(exact.getHasNext());
+    }
+
+    @Test
+    public void createListWithSizePlusOne() {
+        // WHEN
+        PageableList<Integer> withNext = CountMode.SIZE_PLUS_ONE.createList(List.of(1, 2, 3), null, 0, 2);
+        PageableList<Integer> last = CountMode.SIZE_PLUS_ONE.createList(List.of(1), null, 1, 2);
+
+        // THEN
+        Assertions.assertEquals(List.of(1, 2), withNext.getData());
+        Assertions.assertTrue(withNext.getHasNext());
+        Assertions.assertNull(withNext.getTotalCount());
+        Assertions.assertEquals(List.of(1), last.getData());
+        Assertions.assertFalse(last.getHasNext());
+    }
+
+    @Test
+    public void isCountRequired() {
+        Assertions.assertTrue(CountMode.ALWAYS.isCountRequired(3));
+        Assertions.assertTrue(CountMode.bounded(10).isCountRequired(3));
+        Assertions.assertTrue(CountMode.FIRST_PAGE_ONLY.isCountRequired(0));
+        Assertions.assertFalse(CountMode.FIRST_PAGE_ONLY.isCountRequired(1));
+        Assertions.assertFalse(CountMode.NEVER.isCountRequired(0));
+        Assertions.assertFalse(CountMode.SIZE_PLUS_ONE.isCountRequired(0));
+    }
+}
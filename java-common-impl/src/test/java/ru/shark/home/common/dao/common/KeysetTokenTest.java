@@ -0,0 +1,110 @@
+package ru.shark.home.common.dao.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.shark.home.common.enums.FieldType;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_TOKEN_INVALID;
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_TOKEN_SORT_MISMATCH;
+
+public class KeysetTokenTest {
+
+    @Test
+    public void encodeAndDecode() {
+        // GIVEN
+        List<RequestSort> sorts = List.of(new RequestSort("name", "DESC"), new RequestSort("price", "ASC"),
+                new RequestSort("created", null), new RequestSort("date", null), new RequestSort("type", null),
+                new RequestSort("id", null));
+        Timestamp created = Timestamp.valueOf("2021-01-02 03:04:05.123456789");
+        List<Object> values = List.of("set \"1\"", new BigDecimal("10.50"), created, LocalDate.of(2021, 1, 2),
+                FieldType.STRING, 5L);
+
+        // WHEN
+        String token = KeysetToken.encode(sorts, values);
+        List<Object> result = KeysetToken.decode(token).getValues(sorts, SortRow.class);
+
+        // THEN
+        Assertions.assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        Assertions.assertEquals(values, result);
+    }
+
+    @Test
+    public void getValuesWithEnumWithoutEntityClass() {
+        // GIVEN
+        List<RequestSort> sorts = List.of(new RequestSort("type", "ASC"), new RequestSort("id", "ASC"));
+        String token = KeysetToken.encode(sorts, List.of(FieldType.STRING, 1L));
+
+        // WHEN
+        List<Object> result = KeysetToken.decode(token).getValues(sorts);
+
+        // THEN
+        Assertions.assertEquals(List.of("STRING", 1L), result);
+    }
+
+    @Test
+    public void getValuesWithEnumOfNotEnumField() {
+        // GIVEN
+        List<RequestSort> sorts = List.of(new RequestSort("name", "ASC"), new RequestSort("id", "ASC"));
+        KeysetToken keysetToken = KeysetToken.decode(KeysetToken.encode(sorts, List.of(FieldType.STRING, 1L)));
+
+        // WHEN
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> keysetToken.getValues(sorts, SortRow.class));
+
+        // THEN
+        Assertions.assertEquals(KEYSET_TOKEN_INVALID, exception.getMessage());
+    }
+
+    @Test
+    public void getValuesWithOtherSort() {
+        // GIVEN
+        String token = KeysetToken.encode(List.of(new RequestSort("name", "ASC"), new RequestSort("id", "ASC")),
+                List.of("set1", 1L));
+        KeysetToken keysetToken = KeysetToken.decode(token);
+
+        // WHEN
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> keysetToken.getValues(List.of(new RequestSort("name", "DESC"), new RequestSort("id", "ASC"))));
+
+        // THEN
+        Assertions.assertEquals(KEYSET_TOKEN_SORT_MISMATCH, exception.getMessage());
+    }
+
+    @Test
+    public void decodeInvalidToken() {
+        // WHEN
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> KeysetToken.decode("not a token"));
+
+        // THEN
+        Assertions.assertEquals(KEYSET_TOKEN_INVALID, exception.getMessage());
+    }
+
+    @Test
+    public void encodeAndDecodeNullValue() {
+        // GIVEN
+        List<RequestSort> sorts = List.of(new RequestSort("name", "ASC"), new RequestSort("id", "ASC"));
+        List<Object> values = Arrays.asList(null, 1L);
+
+        // WHEN
+        List<Object> result = KeysetToken.decode(KeysetToken.encode(sorts, values)).getValues(sorts);
+
+        // THEN
+        Assertions.assertEquals(values, result);
+    }
+
+    private static class SortRow {
+        private String name;
+        private BigDecimal price;
+        private Timestamp created;
+        private LocalDate date;
+        private FieldType type;
+        private Long id;
+    }
+}
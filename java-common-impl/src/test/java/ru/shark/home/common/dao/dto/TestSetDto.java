@@ -0,0 +1,32 @@
+package ru.shark.home.common.dao.dto;
+
+public class TestSetDto extends BaseDto {
+    private String name;
+    private String code;
+
+    public TestSetDto() {
+        // empty constructor
+    }
+
+    public TestSetDto(Long id, String name, String code) {
+        setId(id);
+        this.name = name;
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
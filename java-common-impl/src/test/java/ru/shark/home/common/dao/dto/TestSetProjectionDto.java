@@ -0,0 +1,34 @@
+package ru.shark.home.common.dao.dto;
+
+import ru.shark.home.common.dao.common.ProjectionPath;
+
+public class TestSetProjectionDto extends BaseDto {
+    private String name;
+    private Integer year;
+    @ProjectionPath("series.name")
+    private String seriesName;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public String getSeriesName() {
+        return seriesName;
+    }
+
+    public void setSeriesName(String seriesName) {
+        this.seriesName = seriesName;
+    }
+}
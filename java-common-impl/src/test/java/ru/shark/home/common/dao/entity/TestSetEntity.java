@@ -0,0 +1,96 @@
+package ru.shark.home.common.dao.entity;
+
+import ru.shark.home.common.dao.dto.TestSetDto;
+
+import javax.persistence.Column;
+import javax.persistence.ColumnResult;
+import javax.persistence.ConstructorResult;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQuery;
+import javax.persistence.SqlResultSetMapping;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "TEST_SET")
+@NamedQuery(name = TestSetEntity.LIST, query = "select s from TestSetEntity s join s.series se")
+@NamedQuery(name = TestSetEntity.FETCH_LIST, query = "select s from TestSetEntity s join fetch s.series se")
+@NamedQuery(name = TestSetEntity.SERIES_STATS, query = "select se.id, se.name, count(s.id) " +
+        "from TestSetEntity s join s.series se group by se.id, se.name")
+@NamedNativeQuery(name = TestSetEntity.NATIVE_LIST, query = "select s.id, s.name, s.code from test_set s " +
+        "join test_series se on se.id = s.series_id")
+@SqlResultSetMapping(name = TestSetEntity.DTO_MAPPING, classes = @ConstructorResult(targetClass = TestSetDto.class,
+        columns = {
+                @ColumnResult(name = "id", type = Long.class),
+                @ColumnResult(name = "name", type = String.class),
+                @ColumnResult(name = "code", type = String.class)
+        }))
+public class TestSetEntity extends BaseEntity {
+    public static final String LIST = "TestSetEntity.list";
+    public static final String FETCH_LIST = "TestSetEntity.fetchList";
+    public static final String SERIES_STATS = "TestSetEntity.seriesStats";
+    public static final String NATIVE_LIST = "TestSetEntity.nativeList";
+    public static final String DTO_MAPPING = "TestSetDtoMapping";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+    @Column(name = "NAME")
+    private String name;
+    @Column(name = "CODE")
+    private String code;
+    @Column(name = "RELEASE_YEAR")
+    private Integer year;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "SERIES_ID")
+    private TestSeriesEntity series;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public TestSeriesEntity getSeries() {
+        return series;
+    }
+
+    public void setSeries(TestSeriesEntity series) {
+        this.series = series;
+    }
+}
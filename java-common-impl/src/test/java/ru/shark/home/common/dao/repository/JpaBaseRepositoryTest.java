@@ -0,0 +1,259 @@
+package ru.shark.home.common.dao.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import ru.shark.home.common.dao.common.CountMode;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.util.SpecificationUtils;
+import ru.shark.home.common.enums.FieldType;
+import ru.shark.home.common.enums.SearchMode;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_TOKEN_SORT_MISMATCH;
+
+public class JpaBaseRepositoryTest extends BaseJpaTest {
+
+    @Autowired
+    private TestSetRepository testSetRepository;
+
+    @BeforeEach
+    public void initMethod() {
+        TestSeriesEntity series = createSeries("series", createTheme("theme"));
+        for (int i = 1; i <= 5; i++) {
+            createSet("set" + i, String.valueOf(i), 2020, series);
+        }
+        em.flush();
+    }
+
+    @Test
+    public void getWithPagination() {
+        // GIVEN
+        RequestCriteria criteria = prepareCriteria(0, 2);
+        criteria.setFilters(List.of(new RequestFilter("year", FieldType.INTEGER, "=", "2020")));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetRepository.getWithPagination(criteria);
+
+        // THEN
+        Assertions.assertEquals(2, result.getData().size());
+        Assertions.assertEquals(5L, result.getTotalCount());
+        Assertions.assertTrue(result.getHasNext());
+    }
+
+    @Test
+    public void getWithPaginationWithBoundedCount() {
+        // GIVEN
+        RequestCriteria criteria = prepareCriteria(0, 2);
+        criteria.setCountMode(CountMode.bounded(3));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetRepository.getWithPagination(criteria);
+
+        // THEN
+        Assertions.assertEquals(2, result.getData().size());
+        Assertions.assertEquals("3+", result.getTotalCountText());
+    }
+
+    @Test
+    public void getWithPaginationWithBoundedCountAndFilter() {
+        // GIVEN
+        RequestCriteria criteria = prepareCriteria(0, 2);
+        criteria.setFilters(List.of(new RequestFilter("name", FieldType.STRING, "^", "SET")));
+        criteria.setCountMode(CountMode.bounded(10));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetRepository.getWithPagination(criteria);
+
+        // THEN
+        Assertions.assertEquals(5L, result.getTotalCount());
+        Assertions.assertFalse(result.isTotalCountLimited());
+    }
+
+    @Test
+    public void getWithPaginationWithSizePlusOne() {
+        // GIVEN
+        RequestCriteria criteria = prepareCriteria(2, 2);
+        criteria.setCountMode(CountMode.SIZE_PLUS_ONE);
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetRepository.getWithPagination(criteria);
+
+        // THEN
+        Assertions.assertEquals("set5", result.getData().get(0).getName());
+        Assertions.assertFalse(result.getHasNext());
+        Assertions.assertNull(result.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithFirstPageOnly() {
+        // GIVEN
+        RequestCriteria first = prepareCriteria(0, 2);
+        first.setCountMode(CountMode.FIRST_PAGE_ONLY);
+        RequestCriteria second = prepareCriteria(1, 2);
+        second.setCountMode(CountMode.FIRST_PAGE_ONLY);
+
+        // WHEN
+        PageableList<TestSetEntity> firstResult = testSetRepository.getWithPagination(first);
+        PageableList<TestSetEntity> secondResult = testSetRepository.getWithPagination(second);
+
+        // THEN
+        Assertions.assertEquals(5L, firstResult.getTotalCount());
+        Assertions.assertNull(secondResult.getTotalCount());
+        Assertions.assertEquals(2, secondResult.getData().size());
+    }
+
+    @Test
+    public void getWithPaginationWithKeyset() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("year", "ASC")));
+        criteria.setKeyset(true);
+        criteria.setCountMode(CountMode.FIRST_PAGE_ONLY);
+
+        // WHEN
+        List<String> names = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        PageableList<TestSetEntity> result;
+        do {
+            result = testSetRepository.getWithPagination(criteria);
+            result.getData().forEach(item -> names.add(item.getName()));
+            counts.add(result.getTotalCount());
+            criteria.setContinuationToken(result.getNextToken());
+        } while (result.getNextToken() != null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set2", "set3", "set4", "set5"), names);
+        Assertions.assertEquals(5L, counts.get(0));
+        Assertions.assertNull(counts.get(2));
+        Assertions.assertEquals(3, counts.size());
+    }
+
+    @Test
+    public void getWithPaginationWithKeysetAndNestedSort() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 3);
+        criteria.setSorts(List.of(new RequestSort("series.name", "DESC"), new RequestSort("name", "DESC")));
+        criteria.setKeyset(true);
+
+        // WHEN
+        PageableList<TestSetEntity> first = testSetRepository.getWithPagination(criteria);
+        criteria.setContinuationToken(first.getNextToken());
+        PageableList<TestSetEntity> second = testSetRepository.getWithPagination(criteria);
+
+        // THEN
+        Assertions.assertEquals("set5", first.getData().get(0).getName());
+        Assertions.assertEquals(List.of("set2", "set1"), List.of(second.getData().get(0).getName(),
+                second.getData().get(1).getName()));
+        Assertions.assertFalse(second.getHasNext());
+    }
+
+    @Test
+    public void getWithPaginationWithKeysetAndNullValues() {
+        // GIVEN
+        TestSeriesEntity series = em.createQuery("select s from TestSeriesEntity s", TestSeriesEntity.class).getSingleResult();
+        createSet("set6", "6", null, series);
+        createSet("set7", "7", 2021, series);
+        em.flush();
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("year", "DESC")));
+        criteria.setKeyset(true);
+        criteria.setCountMode(CountMode.NEVER);
+        List<String> names = new ArrayList<>();
+
+        // WHEN
+        PageableList<TestSetEntity> result;
+        do {
+            result = testSetRepository.getWithPagination(criteria);
+            result.getData().forEach(item -> names.add(item.getName()));
+            criteria.setContinuationToken(result.getNextToken());
+        } while (result.getNextToken() != null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set6", "set7", "set1", "set2", "set3", "set4", "set5"), names);
+    }
+
+    @Test
+    public void getWithPaginationWithKeysetAndOtherSort() {
+        // GIVEN
+        RequestCriteria criteria = prepareCriteria(0, 2);
+        criteria.setKeyset(true);
+        String token = testSetRepository.getWithPagination(criteria).getNextToken();
+        criteria.setSorts(List.of(new RequestSort("code", "ASC")));
+        criteria.setContinuationToken(token);
+
+        // WHEN
+        InvalidDataAccessApiUsageException exception = Assertions.assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> testSetRepository.getWithPagination(criteria));
+
+        // THEN
+        Assertions.assertEquals(KEYSET_TOKEN_SORT_MISMATCH, exception.getCause().getMessage());
+    }
+
+    @Test
+    public void getWithPaginationWithPrefixSearch() {
+        // GIVEN
+        RequestCriteria criteria = prepareCriteria(0, 10);
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetRepository.getWithPagination(criteria,
+                SpecificationUtils.searchSpecification(new RequestSearch("SET1", SearchMode.PREFIX), "name"));
+        PageableList<TestSetEntity> wildcardResult = testSetRepository.getWithPagination(criteria,
+                SpecificationUtils.searchSpecification(new RequestSearch("set_", SearchMode.PREFIX), "name"));
+
+        // THEN
+        Assertions.assertEquals(List.of("set1"), List.of(result.getData().get(0).getName()));
+        Assertions.assertEquals(1L, result.getTotalCount());
+        Assertions.assertEquals(0L, wildcardResult.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithFilterAndSearchReusesQueryPlan() {
+        // GIVEN
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        List<Long> counts = new ArrayList<>();
+
+        try {
+            // WHEN
+            for (int i = 1; i <= 5; i++) {
+                RequestCriteria criteria = prepareCriteria(0, 2);
+                criteria.setFilters(List.of(new RequestFilter("year", FieldType.INTEGER, "=", String.valueOf(2019 + i)),
+                        new RequestFilter("code", FieldType.STRING, "=", String.valueOf(i))));
+                counts.add(testSetRepository.getWithPagination(criteria, SpecificationUtils.searchSpecification(
+                        new RequestSearch("set" + i, false), "name")).getTotalCount());
+                if (i == 1) {
+                    // план запроса мог быть закэширован другими тестами, поэтому учитываются только повторные выполнения
+                    statistics.clear();
+                }
+            }
+
+            // THEN
+            Assertions.assertEquals(List.of(1L, 0L, 0L, 0L, 0L), counts);
+            Assertions.assertEquals(0, statistics.getQueryPlanCacheMissCount());
+            Assertions.assertEquals(4, statistics.getQueryPlanCacheHitCount());
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    private RequestCriteria prepareCriteria(int page, int size) {
+        RequestCriteria criteria = new RequestCriteria(page, size);
+        criteria.setSorts(List.of(new RequestSort("name", "ASC")));
+        return criteria;
+    }
+}
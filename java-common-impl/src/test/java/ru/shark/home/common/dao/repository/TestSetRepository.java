@@ -0,0 +1,6 @@
+package ru.shark.home.common.dao.repository;
+
+import ru.shark.home.common.dao.entity.TestSetEntity;
+
+public interface TestSetRepository extends BaseRepository<TestSetEntity> {
+}
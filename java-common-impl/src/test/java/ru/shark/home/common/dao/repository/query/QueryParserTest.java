@@ -0,0 +1,70 @@
+package ru.shark.home.common.dao.repository.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QueryParserTest {
+
+    @Test
+    public void getLastPartWithWhitespaces() {
+        // GIVEN
+        String query = "select\ts.id,\r\n  s.name   from SetEntity s\n";
+
+        // WHEN
+        QueryParser parser = new QueryParser(query);
+
+        // THEN
+        Assertions.assertEquals("select s.id, s.name from SetEntity s", parser.getLastPart());
+    }
+
+    @Test
+    public void getLastPartWithLiteral() {
+        // GIVEN
+        String query = "select s from SetEntity s where s.name = 'a \t b\r\n  c' and s.code = 'it''s  ok'";
+
+        // WHEN
+        QueryParser parser = new QueryParser(query);
+
+        // THEN
+        Assertions.assertEquals(query, parser.getLastPart());
+    }
+
+    @Test
+    public void isPartStarted() {
+        // GIVEN
+        QueryParser parser = new QueryParser("select s from SetEntity s where s.id in (select 1 from SetEntity s1 where s1.name = ') from') order by s.id");
+
+        // WHEN
+        StringBuilder parts = new StringBuilder();
+        while (parser.hasNext()) {
+            parser.nextPart();
+            for (QueryPartType type : QueryPartType.values()) {
+                if (type != QueryPartType.SELECT && parser.isPartStarted(type)) {
+                    parts.append(parser.changeCurrentPart(type)).append("|");
+                    break;
+                }
+            }
+        }
+        parts.append(parser.getLastPart());
+
+        // THEN
+        Assertions.assertEquals("select s|from SetEntity s|where s.id in (select 1 from SetEntity s1 where s1.name = ') from')|order by s.id",
+                parts.toString());
+    }
+
+    @Test
+    public void getPartOffset() {
+        // GIVEN
+        String query = "select s\n  from SetEntity s";
+        QueryParser parser = new QueryParser(query);
+
+        // WHEN
+        parser.nextPart();
+        parser.nextPart();
+        parser.nextPart();
+
+        // THEN
+        Assertions.assertEquals("from", parser.getPart());
+        Assertions.assertEquals(query.indexOf("from"), parser.getPartOffset());
+    }
+}
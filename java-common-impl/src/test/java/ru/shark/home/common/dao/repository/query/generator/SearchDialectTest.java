@@ -0,0 +1,89 @@
+package ru.shark.home.common.dao.repository.query.generator;
+
+import org.hibernate.dialect.Oracle12cDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.service.SqlQueryService;
+import ru.shark.home.common.enums.SearchMode;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.Query;
+import java.util.List;
+
+public class SearchDialectTest extends BaseJpaTest {
+
+    private SearchDialect searchDialect;
+    private SqlQueryService sqlQueryService;
+    private ParsedQuery parsedQuery;
+
+    @BeforeEach
+    public void initMethod() {
+        searchDialect = SearchDialect.of(em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect());
+        SqlSearchClauseGenerator searchGenerator = new SqlSearchClauseGenerator();
+        searchGenerator.setSearchDialect(searchDialect);
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(searchGenerator, new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator()));
+        sqlQueryService = new SqlQueryService();
+        sqlQueryService.setQueryClauseGenerator(generator);
+        parsedQuery = sqlQueryService.parseQuery("select s.name from test_set s", List.of("s.name"));
+        TestSeriesEntity series = createSeries("series", createTheme("theme"));
+        createSet("Falcon", "1", 2020, series);
+        createSet("Millennium Falcon", "2", 2021, series);
+        createSet("falcon", "3", 2022, series);
+        createSet("100%_Falcon", "4", 2023, series);
+        createSet("100 Falcon", "5", 2023, series);
+    }
+
+    @Test
+    public void of() {
+        // WHEN
+        SearchDialect oracle = SearchDialect.of(new Oracle12cDialect());
+
+        // THEN
+        Assertions.assertTrue(searchDialect instanceof IlikeSearchDialect);
+        Assertions.assertFalse(oracle instanceof IlikeSearchDialect);
+    }
+
+    @Test
+    public void searchByMode() {
+        // WHEN
+        List<?> contains = search(SearchMode.CONTAINS);
+        List<?> prefix = search(SearchMode.PREFIX);
+        List<?> exact = search(SearchMode.EXACT);
+
+        // THEN
+        Assertions.assertEquals(List.of("Falcon", "Millennium Falcon", "falcon", "100%_Falcon", "100 Falcon"), contains);
+        Assertions.assertEquals(List.of("Falcon", "falcon"), prefix);
+        Assertions.assertEquals(List.of("Falcon", "falcon"), exact);
+    }
+
+    @Test
+    public void searchByPrefixWithWildcards() {
+        // WHEN
+        List<?> result = search(SearchMode.PREFIX, "100%_");
+
+        // THEN
+        Assertions.assertEquals(List.of("100%_Falcon"), result);
+    }
+
+    private List<?> search(SearchMode mode) {
+        return search(mode, mode == SearchMode.CONTAINS ? "LCO" : "FALCON");
+    }
+
+    private List<?> search(SearchMode mode, String value) {
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setSearch(new RequestSearch(value, mode));
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, criteria);
+        Query query = em.createNativeQuery(paramsQuery.getQueryString() + " order by s.id");
+        paramsQuery.getParams().forEach(query::setParameter);
+        return query.getResultList();
+    }
+}
@@ -4,6 +4,9 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
 import ru.shark.home.common.enums.FieldType;
 import ru.shark.home.common.enums.FilterOperation;
 
@@ -21,6 +24,7 @@ public class SqlFilterClauseGeneratorTest {
         generator = new SqlFilterClauseGenerator();
         operationAvailableTypes = Map.of(
                 FilterOperation.LIKE, List.of(FieldType.STRING),
+                FilterOperation.PREFIX, List.of(FieldType.STRING),
                 FilterOperation.EQ, List.of(FieldType.STRING, FieldType.INTEGER, FieldType.BOOL, FieldType.DATE, FieldType.ENUM),
                 FilterOperation.NE, List.of(FieldType.STRING, FieldType.INTEGER, FieldType.BOOL, FieldType.DATE, FieldType.ENUM),
                 FilterOperation.IN, List.of(FieldType.STRING, FieldType.INTEGER, FieldType.BOOL, FieldType.DATE, FieldType.ENUM),
@@ -30,6 +34,45 @@ public class SqlFilterClauseGeneratorTest {
         );
     }
 
+    @Test
+    public void generateWithPrefixAndLikeFilters() {
+        // GIVEN
+        SqlFilterClauseGenerator ilikeGenerator = new SqlFilterClauseGenerator();
+        ilikeGenerator.setSearchDialect(new IlikeSearchDialect());
+        RequestCriteria requestCriteria = new RequestCriteria(0, 10);
+        requestCriteria.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "^", "A"),
+                new RequestFilter("name", FieldType.STRING, "~", "b")));
+        QueryClauseRequest request = new QueryClauseRequest(requestCriteria, new ParsedQuery(null, null));
+
+        // WHEN
+        String clause = generator.generate(request);
+        String ilikeClause = ilikeGenerator.generate(request);
+
+        // THEN
+        Assertions.assertEquals("(lower(code) like lower(:filter_code) escape '!' and lower(name) like '%' || lower(:filter_name) || '%')", clause);
+        Assertions.assertEquals("(lower(code) like lower(:filter_code) escape '!' and name ilike '%' || :filter_name || '%')", ilikeClause);
+    }
+
+    @Test
+    public void generateWithInFilters() {
+        // GIVEN
+        SqlFilterClauseGenerator arrayGenerator = new SqlFilterClauseGenerator();
+        arrayGenerator.setSearchDialect(new PostgreSqlSearchDialect());
+        RequestCriteria requestCriteria = new RequestCriteria(0, 10);
+        requestCriteria.setFilters(List.of(new RequestFilter("id", FieldType.INTEGER, "in", "1;2"),
+                new RequestFilter("date", FieldType.DATE, "in", "01.01.2020")));
+        QueryClauseRequest request = new QueryClauseRequest(requestCriteria, new ParsedQuery(null, null));
+
+        // WHEN
+        String clause = generator.generate(request);
+        String arrayClause = arrayGenerator.generate(request);
+
+        // THEN
+        Assertions.assertEquals("(id in (:filter_id) and date in (:filter_date))", clause);
+        Assertions.assertEquals("(id = any(cast(string_to_array(:filter_id_array, ';') as bigint[])) and date in (:filter_date))",
+                arrayClause);
+    }
+
     @Test
     public void canHandle() {
         // WHEN
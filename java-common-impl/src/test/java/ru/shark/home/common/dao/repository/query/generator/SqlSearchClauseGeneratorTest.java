@@ -7,6 +7,7 @@ import org.junit.jupiter.api.TestInstance;
 import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.common.RequestSearch;
 import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.enums.SearchMode;
 
 import java.text.MessageFormat;
 import java.util.List;
@@ -111,6 +112,42 @@ public class SqlSearchClauseGeneratorTest {
         Assertions.assertEquals(expected, clause);
     }
 
+    @Test
+    public void generateWithPrefixSearch() {
+        // GIVEN
+        RequestCriteria requestCriteria = new RequestCriteria(0, 10);
+        requestCriteria.setSearch(new RequestSearch("v_a%l!", SearchMode.PREFIX));
+        QueryClauseRequest request = new QueryClauseRequest(requestCriteria, new ParsedQuery(List.of("field1"), List.of("some clause1 {0}")));
+        String expected = "(lower(field1) like lower(:search_value) escape '!' or some clause1 like lower(:search_value) escape '!')";
+
+        // WHEN
+        String clause = generator.generate(request);
+
+        // THEN
+        Assertions.assertEquals(expected, clause);
+        Assertions.assertEquals("v!_a!%l!!%", requestCriteria.getSearch().getParamValue());
+    }
+
+    @Test
+    public void generateWithIlikeDialect() {
+        // GIVEN
+        SqlSearchClauseGenerator ilikeGenerator = new SqlSearchClauseGenerator();
+        ilikeGenerator.setSearchDialect(new IlikeSearchDialect());
+        RequestCriteria contains = new RequestCriteria(0, 10);
+        contains.setSearch(new RequestSearch("val", SearchMode.CONTAINS));
+        RequestCriteria exact = new RequestCriteria(0, 10);
+        exact.setSearch(new RequestSearch("val", SearchMode.EXACT));
+        ParsedQuery query = new ParsedQuery(List.of("field1"), null);
+
+        // WHEN
+        String containsClause = ilikeGenerator.generate(new QueryClauseRequest(contains, query));
+        String exactClause = ilikeGenerator.generate(new QueryClauseRequest(exact, query));
+
+        // THEN
+        Assertions.assertEquals("(field1 ilike '%' || :search_value || '%')", containsClause);
+        Assertions.assertEquals("(lower(field1) = lower(:search_value))", exactClause);
+    }
+
     @Test
     public void generateWithoutSearch() {
         // GIVEN
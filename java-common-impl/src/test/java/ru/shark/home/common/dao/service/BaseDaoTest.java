@@ -0,0 +1,587 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.shark.home.common.dao.common.CountMode;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.dto.TestSetDto;
+import ru.shark.home.common.dao.dto.TestSetProjectionDto;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.entity.TestThemeEntity;
+import ru.shark.home.common.dao.repository.query.generator.HqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlKeysetClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlSearchClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlKeysetClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlSearchClauseGenerator;
+import ru.shark.home.common.dao.util.ColumnNullability;
+import ru.shark.home.common.enums.FieldType;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class BaseDaoTest extends BaseJpaTest {
+
+    private TestSetDao testSetDao;
+
+    @BeforeEach
+    public void initMethod() {
+        HqlQueryService hqlQueryService = new HqlQueryService();
+        hqlQueryService.setEntityManager(em);
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new HqlSearchClauseGenerator(), new HqlFilterClauseGenerator(), new HqlOrderClauseGenerator(),
+                new HqlKeysetClauseGenerator()));
+        hqlQueryService.setQueryClauseGenerator(generator);
+        testSetDao = new TestSetDao();
+        testSetDao.setEm(em);
+        testSetDao.setHqlQueryService(hqlQueryService);
+        SqlQueryService sqlQueryService = new SqlQueryService();
+        QueryClauseGenerator sqlGenerator = new QueryClauseGenerator();
+        sqlGenerator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator(),
+                new SqlKeysetClauseGenerator()));
+        sqlQueryService.setQueryClauseGenerator(sqlGenerator);
+        testSetDao.setSqlQueryService(sqlQueryService);
+        testSetDao.setParsedQueryCache(new ParsedQueryCache());
+
+        TestThemeEntity theme = createTheme("theme");
+        TestSeriesEntity first = createSeries("first", theme);
+        TestSeriesEntity second = createSeries("second", theme);
+        createSet("set1", "1", 2020, first);
+        createSet("set2", "2", 2021, first);
+        createSet("set3", "3", 2021, second);
+        em.flush();
+    }
+
+    @Test
+    public void getWithPagination() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("name", "DESC")));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set3", "set2"),
+                result.getData().stream().map(TestSetEntity::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(3L, result.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithInFilter() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "in", "1;3;4")));
+        criteria.setSorts(List.of(new RequestSort("name", "ASC")));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set3"),
+                result.getData().stream().map(TestSetEntity::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(2L, result.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithGroupPart() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.SERIES_STATS, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(2, result.getData().size());
+        Assertions.assertEquals(2L, result.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithBoundedCount() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 1);
+        criteria.setCountMode(CountMode.bounded(2));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(1, result.getData().size());
+        Assertions.assertEquals(2L, result.getTotalCount());
+        Assertions.assertTrue(result.isTotalCountLimited());
+    }
+
+    @Test
+    public void getWithPaginationWithLongInFilter() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "in",
+                Stream.concat(Stream.of("2"), IntStream.rangeClosed(1, 1500).mapToObj(i -> "x" + i))
+                        .collect(Collectors.joining(";")))));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+        PageableList<TestSetDto> nativeResult = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertEquals(List.of("set2"), result.getData().stream().map(TestSetEntity::getName)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(1L, result.getTotalCount());
+        Assertions.assertEquals(List.of("set2"), nativeResult.getData().stream().map(TestSetDto::getName)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getWithPaginationWithBoundedCountAndFilter() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 1);
+        criteria.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "in", "1;3")));
+        criteria.setCountMode(CountMode.bounded(5));
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+        PageableList<TestSetDto> nativeResult = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertEquals(2L, result.getTotalCount());
+        Assertions.assertFalse(result.isTotalCountLimited());
+        Assertions.assertEquals(2L, nativeResult.getTotalCount());
+        Assertions.assertFalse(nativeResult.isTotalCountLimited());
+    }
+
+    @Test
+    public void getWithPaginationWithSizePlusOne() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setCountMode(CountMode.SIZE_PLUS_ONE);
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(2, result.getData().size());
+        Assertions.assertTrue(result.getHasNext());
+        Assertions.assertNull(result.getTotalCount());
+    }
+
+    @Test
+    public void getNativeWithPaginationWithWindowCount() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("name", "ASC")));
+        criteria.setCountMode(CountMode.WINDOW);
+
+        // WHEN
+        PageableList<TestSetDto> result = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set2"),
+                result.getData().stream().map(TestSetDto::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(3L, result.getTotalCount());
+        Assertions.assertTrue(result.getHasNext());
+    }
+
+    @Test
+    public void getNativeWithPaginationWithWindowCountAndEmptyPage() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(5, 2);
+        criteria.setCountMode(CountMode.WINDOW);
+
+        // WHEN
+        PageableList<TestSetDto> result = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertTrue(result.getData().isEmpty());
+        Assertions.assertEquals(3L, result.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithKeyset() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("year", "DESC")));
+        criteria.setKeyset(true);
+
+        // WHEN
+        PageableList<TestSetEntity> first = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+        criteria.setContinuationToken(first.getNextToken());
+        PageableList<TestSetEntity> second = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set2", "set3"),
+                first.getData().stream().map(TestSetEntity::getName).collect(Collectors.toList()));
+        Assertions.assertTrue(first.getHasNext());
+        Assertions.assertEquals(3L, first.getTotalCount());
+        Assertions.assertEquals(List.of("set1"),
+                second.getData().stream().map(TestSetEntity::getName).collect(Collectors.toList()));
+        Assertions.assertFalse(second.getHasNext());
+        Assertions.assertNull(second.getNextToken());
+        Assertions.assertEquals(3L, second.getTotalCount());
+    }
+
+    @Test
+    public void getWithPaginationWithKeysetAndNullValues() {
+        // GIVEN
+        TestSeriesEntity series = em.createQuery("select s from TestSeriesEntity s where s.name = 'first'",
+                TestSeriesEntity.class).getSingleResult();
+        createSet("set4", "4", null, series);
+        createSet("set5", "5", null, series);
+        em.flush();
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("year", "ASC")));
+        criteria.setKeyset(true);
+        criteria.setCountMode(CountMode.NEVER);
+        List<String> names = new ArrayList<>();
+
+        // WHEN
+        PageableList<TestSetEntity> result;
+        do {
+            result = testSetDao.getWithPagination(TestSetEntity.LIST, criteria, null, null);
+            result.getData().forEach(item -> names.add(item.getName()));
+            criteria.setContinuationToken(result.getNextToken());
+        } while (result.getNextToken() != null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set2", "set3", "set4", "set5"), names);
+    }
+
+    @Test
+    public void getNativeWithPaginationWithFields() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setSorts(List.of(new RequestSort("s.code", "ASC")));
+        criteria.setFields(List.of("name"));
+
+        // WHEN
+        PageableList<TestSetDto> result = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set2", "set3"),
+                result.getData().stream().map(TestSetDto::getName).collect(Collectors.toList()));
+        Assertions.assertTrue(result.getData().stream().allMatch(dto -> dto.getId() != null && dto.getCode() == null));
+    }
+
+    @Test
+    public void getNativeWithPaginationWithKeyset() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("s.name", "ASC")));
+        criteria.setKeysetTiebreaker("s.id");
+        criteria.setKeyset(true);
+        criteria.setCountMode(CountMode.NEVER);
+
+        // WHEN
+        PageableList<TestSetDto> first = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+        criteria.setContinuationToken(first.getNextToken());
+        PageableList<TestSetDto> second = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria,
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set2"),
+                first.getData().stream().map(TestSetDto::getName).collect(Collectors.toList()));
+        Assertions.assertNotNull(first.getNextToken());
+        Assertions.assertEquals(List.of("set3"),
+                second.getData().stream().map(TestSetDto::getName).collect(Collectors.toList()));
+        Assertions.assertNull(second.getNextToken());
+        Assertions.assertNull(second.getTotalCount());
+    }
+
+    @Test
+    public void getNativeWithPaginationWithKeysetAndFields() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("s.name", "DESC")));
+        criteria.setKeysetTiebreaker("s.id");
+        criteria.setKeyset(true);
+        criteria.setCountMode(CountMode.NEVER);
+        criteria.setFields(List.of("code"));
+        List<String> codes = new ArrayList<>();
+
+        // WHEN
+        PageableList<TestSetDto> result;
+        do {
+            result = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria, null, null,
+                    TestSetEntity.DTO_MAPPING);
+            result.getData().forEach(item -> codes.add(item.getCode()));
+            criteria.setContinuationToken(result.getNextToken());
+        } while (result.getNextToken() != null);
+
+        // THEN
+        Assertions.assertEquals(List.of("3", "2", "1"), codes);
+    }
+
+    @Test
+    public void getNativeWithPaginationWithKeysetRowValueAndNullValues() {
+        // GIVEN
+        TestSeriesEntity series = em.createQuery("select s from TestSeriesEntity s where s.name = 'first'",
+                TestSeriesEntity.class).getSingleResult();
+        createSet(null, "4", 2022, series);
+        em.flush();
+        ColumnNullability nullability = ColumnNullability.of(em.getEntityManagerFactory());
+        SqlKeysetClauseGenerator keysetGenerator = new SqlKeysetClauseGenerator();
+        keysetGenerator.setRowValueComparison(true);
+        keysetGenerator.setColumnNullability(nullability);
+        SqlQueryService sqlQueryService = new SqlQueryService();
+        QueryClauseGenerator sqlGenerator = new QueryClauseGenerator();
+        sqlGenerator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator(),
+                keysetGenerator));
+        sqlQueryService.setQueryClauseGenerator(sqlGenerator);
+        testSetDao.setSqlQueryService(sqlQueryService);
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("s.name", "ASC")));
+        criteria.setKeysetTiebreaker("s.id");
+        criteria.setKeyset(true);
+        criteria.setCountMode(CountMode.NEVER);
+        List<String> codes = new ArrayList<>();
+
+        // WHEN
+        PageableList<TestSetDto> result;
+        do {
+            result = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, criteria, null, null,
+                    TestSetEntity.DTO_MAPPING);
+            result.getData().forEach(item -> codes.add(item.getCode()));
+            criteria.setContinuationToken(result.getNextToken());
+        } while (result.getNextToken() != null);
+
+        // THEN
+        Assertions.assertTrue(nullability.isNotNull("from test_set s", "s.id"));
+        Assertions.assertFalse(nullability.isNotNull("from test_set s", "s.name"));
+        Assertions.assertEquals(List.of("1", "2", "3", "4"), codes);
+    }
+
+    @Test
+    public void getWithPaginationWithFetchJoin() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(1, 2);
+        criteria.setSorts(List.of(new RequestSort("name", "DESC")));
+        em.clear();
+
+        // WHEN
+        PageableList<TestSetEntity> result = testSetDao.getWithPagination(TestSetEntity.FETCH_LIST, criteria, null, null);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1"),
+                result.getData().stream().map(TestSetEntity::getName).collect(Collectors.toList()));
+        Assertions.assertEquals("first", result.getData().get(0).getSeries().getName());
+        Assertions.assertTrue(Hibernate.isInitialized(result.getData().get(0).getSeries()));
+        Assertions.assertEquals(3L, result.getTotalCount());
+    }
+
+    @Test
+    public void getProjectionWithPagination() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("series.name", "DESC"), new RequestSort("name", "ASC")));
+        em.clear();
+
+        // WHEN
+        PageableList<TestSetProjectionDto> result = testSetDao.getProjectionWithPagination(TestSetEntity.FETCH_LIST,
+                criteria, null, null, TestSetProjectionDto.class);
+
+        // THEN
+        Assertions.assertEquals(List.of("set3", "set1"),
+                result.getData().stream().map(TestSetProjectionDto::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of("second", "first"),
+                result.getData().stream().map(TestSetProjectionDto::getSeriesName).collect(Collectors.toList()));
+        Assertions.assertEquals(2021, result.getData().get(0).getYear());
+        Assertions.assertNotNull(result.getData().get(0).getId());
+        Assertions.assertEquals(3L, result.getTotalCount());
+        Assertions.assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void getProjectionWithPaginationWithKeyset() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 2);
+        criteria.setSorts(List.of(new RequestSort("series.name", "ASC")));
+        criteria.setKeyset(true);
+
+        // WHEN
+        PageableList<TestSetProjectionDto> first = testSetDao.getProjectionWithPagination(TestSetEntity.LIST,
+                criteria, null, null, TestSetProjectionDto.class);
+        criteria.setContinuationToken(first.getNextToken());
+        PageableList<TestSetProjectionDto> second = testSetDao.getProjectionWithPagination(TestSetEntity.LIST,
+                criteria, null, null, TestSetProjectionDto.class);
+
+        // THEN
+        Assertions.assertEquals(List.of("set1", "set2"),
+                first.getData().stream().map(TestSetProjectionDto::getName).collect(Collectors.toList()));
+        Assertions.assertTrue(first.getHasNext());
+        Assertions.assertEquals(List.of("set3"),
+                second.getData().stream().map(TestSetProjectionDto::getName).collect(Collectors.toList()));
+        Assertions.assertFalse(second.getHasNext());
+    }
+
+    @Test
+    public void streamAll() {
+        // GIVEN
+        testSetDao.setStreamFetchSize(1);
+        testSetDao.setStreamClearInterval(2);
+        em.clear();
+        List<TestSetEntity> result;
+
+        // WHEN
+        try (Stream<TestSetEntity> stream = testSetDao.streamAll()) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        // THEN
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertFalse(em.contains(result.get(0)));
+        Assertions.assertTrue(em.contains(result.get(2)));
+    }
+
+    @Test
+    public void streamAllKeepsCallerEntities() {
+        // GIVEN
+        testSetDao.setStreamClearInterval(1);
+        TestSeriesEntity series = em.createQuery("select s from TestSeriesEntity s where s.name = 'first'",
+                TestSeriesEntity.class).getSingleResult();
+        series.setName("changed");
+
+        // WHEN
+        try (Stream<TestSetEntity> stream = testSetDao.streamAll()) {
+            stream.forEach(item -> {
+            });
+        }
+
+        // THEN
+        Assertions.assertTrue(em.contains(series));
+        em.flush();
+        em.clear();
+        Assertions.assertEquals(1L, em.createQuery("select count(s) from TestSeriesEntity s where s.name = 'changed'")
+                .getSingleResult());
+    }
+
+    @Test
+    public void stream() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 1);
+        criteria.setSorts(List.of(new RequestSort("name", "DESC")));
+        criteria.setSearch(new RequestSearch("set", false));
+        List<String> result;
+
+        // WHEN
+        try (Stream<TestSetEntity> stream = testSetDao.stream(TestSetEntity.LIST, criteria, null, List.of("name"))) {
+            result = stream.map(TestSetEntity::getName).collect(Collectors.toList());
+        }
+
+        // THEN
+        Assertions.assertEquals(List.of("set3", "set2", "set1"), result);
+    }
+
+    @Test
+    public void streamWithMultipleColumns() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 1);
+        List<Object[]> result;
+
+        // WHEN
+        try (Stream<Object[]> stream = testSetDao.stream(TestSetEntity.SERIES_STATS, criteria, null, null)) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        // THEN
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(List.of(2L, 1L), result.stream().map(row -> (Long) row[2])
+                .sorted(Comparator.reverseOrder()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void saveAll() {
+        // GIVEN
+        TestSetEntity existing = testSetDao.findAll().stream().filter(item -> "set1".equals(item.getName()))
+                .findFirst().orElseThrow();
+        em.detach(existing);
+        existing.setName("set1 updated");
+        List<TestSetEntity> entities = new ArrayList<>();
+        entities.add(existing);
+        for (int i = 4; i <= 8; i++) {
+            TestSetEntity entity = new TestSetEntity();
+            entity.setName("set" + i);
+            entity.setCode(String.valueOf(i));
+            entities.add(entity);
+        }
+        testSetDao.setBatchSize(2);
+
+        // WHEN
+        List<TestSetEntity> result = testSetDao.saveAll(entities);
+
+        // THEN
+        Assertions.assertEquals(6, result.size());
+        Assertions.assertTrue(result.stream().allMatch(item -> item.getId() != null));
+        em.clear();
+        Assertions.assertEquals(8, testSetDao.findAll().size());
+        Assertions.assertEquals("set1 updated", testSetDao.findById(existing.getId()).getName());
+    }
+
+    @Test
+    public void deleteAllByIds() {
+        // GIVEN
+        List<Long> ids = testSetDao.findAll().stream().map(TestSetEntity::getId).collect(Collectors.toList());
+        TestSetEntity managed = testSetDao.findById(ids.get(0));
+        testSetDao.setDeleteChunkSize(2);
+
+        // WHEN
+        int result = testSetDao.deleteAllByIds(List.of(ids.get(0), ids.get(1), ids.get(2), -1L));
+
+        // THEN
+        Assertions.assertEquals(3, result);
+        Assertions.assertFalse(em.contains(managed));
+        Assertions.assertTrue(testSetDao.findAll().isEmpty());
+    }
+
+    @Test
+    public void updateByCriteria() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "=", "3")));
+        criteria.setSearch(new RequestSearch("set", false));
+
+        // WHEN
+        int result = testSetDao.updateByCriteria(criteria, Map.of("code", "updated"), List.of("name"));
+
+        // THEN
+        Assertions.assertEquals(1, result);
+        Assertions.assertEquals(List.of("1", "2", "updated"), testSetDao.findAll().stream().map(TestSetEntity::getCode)
+                .sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void deleteByCriteria() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "=", "1")));
+
+        // WHEN
+        int result = testSetDao.deleteByCriteria(criteria);
+
+        // THEN
+        Assertions.assertEquals(1, result);
+        Assertions.assertEquals(List.of("set2", "set3"), testSetDao.findAll().stream().map(TestSetEntity::getName)
+                .sorted().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,142 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.exception.CommonException;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ConcurrentCountExecutorTest extends BaseJpaTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private ExecutorService executorService;
+
+    @BeforeAll
+    public void init() {
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void execute() {
+        // GIVEN
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(entityManagerFactory, executorService, 5000);
+        Thread current = Thread.currentThread();
+        AtomicBoolean readOnly = new AtomicBoolean();
+        AtomicBoolean otherThread = new AtomicBoolean();
+
+        // WHEN
+        PageableList<String> result = executor.execute(mock(Session.class), () -> List.of("a", "b"), countEm -> {
+            otherThread.set(Thread.currentThread() != current);
+            readOnly.set(countEm.unwrap(Session.class).isDefaultReadOnly());
+            return ((Number) countEm.createQuery("select count(1) from TestSetEntity").getSingleResult()).longValue();
+        });
+
+        // THEN
+        Assertions.assertEquals(List.of("a", "b"), result.getData());
+        Assertions.assertEquals(0L, result.getTotalCount());
+        Assertions.assertTrue(otherThread.get());
+        Assertions.assertTrue(readOnly.get());
+    }
+
+    @Test
+    public void executeWithCountError() {
+        // GIVEN
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(entityManagerFactory, executorService, 5000);
+        Session dataSession = mock(Session.class);
+        CountDownLatch countFailed = new CountDownLatch(1);
+
+        // WHEN
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                () -> executor.execute(dataSession, () -> {
+                    awaitQuietly(countFailed);
+                    return List.of();
+                }, countEm -> {
+                    countFailed.countDown();
+                    throw new IllegalStateException("count");
+                }));
+
+        // THEN
+        Assertions.assertEquals("count", exception.getMessage());
+        verify(dataSession, timeout(1000)).cancelQuery();
+    }
+
+    @Test
+    public void executeWithDataError() throws InterruptedException {
+        // GIVEN
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(entityManagerFactory, executorService, 5000);
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch countInterrupted = new CountDownLatch(1);
+
+        // WHEN
+        Assertions.assertThrows(IllegalStateException.class, () -> executor.execute(mock(Session.class), () -> {
+            awaitQuietly(countStarted);
+            throw new IllegalStateException("data");
+        }, countEm -> {
+            countStarted.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                countInterrupted.countDown();
+            }
+            return 0L;
+        }));
+
+        // THEN
+        Assertions.assertTrue(countInterrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void executeWithCountTimeout() {
+        // GIVEN
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(entityManagerFactory, executorService, 100);
+
+        // WHEN
+        CommonException exception = Assertions.assertThrows(CommonException.class,
+                () -> executor.execute(mock(Session.class), List::of, countEm -> {
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 0L;
+                }));
+
+        // THEN
+        Assertions.assertTrue(exception.getMessage().contains("100"));
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.entity.TestThemeEntity;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.repository.query.generator.HqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlSearchClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.Query;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
+
+public class HqlCountQueryCacheTest extends BaseJpaTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HqlCountQueryCacheTest.class);
+    private static final int BENCHMARK_ITERATIONS = 2000;
+
+    private HqlQueryService hqlQueryService;
+    private ParsedQuery parsedQuery;
+
+    @BeforeEach
+    public void initMethod() {
+        hqlQueryService = new HqlQueryService();
+        hqlQueryService.setEntityManager(em);
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new HqlSearchClauseGenerator(), new HqlFilterClauseGenerator(), new HqlOrderClauseGenerator()));
+        hqlQueryService.setQueryClauseGenerator(generator);
+        parsedQuery = hqlQueryService.parseQuery(em.unwrap(Session.class).getNamedQuery(TestSetEntity.SERIES_STATS).getQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithGroupPart() {
+        // GIVEN
+        TestThemeEntity theme = createTheme("theme");
+        TestSeriesEntity first = createSeries("first", theme);
+        TestSeriesEntity second = createSeries("second", theme);
+        createSet("set1", "1", 2020, first);
+        createSet("set2", "2", 2021, first);
+        createSet("set3", "3", 2021, second);
+        RequestCriteria byName = new RequestCriteria(0, 10);
+        byName.setSorts(List.of(new RequestSort("name", "ASC")));
+        RequestCriteria byId = new RequestCriteria(0, 10);
+        byId.setSorts(List.of(new RequestSort("id", "DESC")));
+
+        // WHEN
+        ParamsQuery byNameQuery = hqlQueryService.generateParamsQuery(parsedQuery, byName);
+        ParamsQuery byIdQuery = hqlQueryService.generateParamsQuery(parsedQuery, byId);
+
+        // THEN
+        Assertions.assertTrue(byNameQuery.isCountNative());
+        Assertions.assertEquals(byNameQuery.getCountQueryString(), byIdQuery.getCountQueryString());
+        Assertions.assertEquals(1, hqlQueryService.getCountSqlCacheStats().hitCount());
+        Assertions.assertEquals(1, hqlQueryService.getCountSqlCacheStats().missCount());
+        Assertions.assertEquals(BigInteger.valueOf(2),
+                em.createNativeQuery(byNameQuery.getCountQueryString()).getSingleResult());
+    }
+
+    @Test
+    public void generateParamsQueryWithGroupPartAndSearch() {
+        // GIVEN
+        TestThemeEntity theme = createTheme("theme");
+        createSet("set1", "1", 2020, createSeries("first", theme));
+        createSet("set2", "2", 2021, createSeries("second", theme));
+        ParsedQuery searchQuery = hqlQueryService.parseQuery(em.unwrap(Session.class)
+                .getNamedQuery(TestSetEntity.SERIES_STATS).getQueryString(), List.of("series.name"));
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setSearch(new RequestSearch("FIR", false));
+
+        // WHEN
+        ParamsQuery query = hqlQueryService.generateParamsQuery(searchQuery, criteria);
+
+        // THEN
+        Assertions.assertTrue(query.isCountNative());
+        Assertions.assertTrue(query.getCountQueryString().contains(":" + SEARCH_PARAM));
+        Query countQuery = em.createNativeQuery(query.getCountQueryString());
+        query.getCountParams().forEach(countQuery::setParameter);
+        Assertions.assertEquals(BigInteger.ONE, countQuery.getSingleResult());
+    }
+
+    /**
+     * Сравнение времени формирования запроса количества с трансляцией HQL при каждом обращении
+     * и с использованием кэша. Запускается при указании -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkCountString() {
+        String selectPart = parsedQuery.getSelectPart();
+        String baseQuery = parsedQuery.getFromPart().getValue() + " " + parsedQuery.getGroupPart();
+        SessionFactoryImplementor factory = em.unwrap(SessionImplementor.class).getFactory();
+        ASTQueryTranslatorFactory translatorFactory = new ASTQueryTranslatorFactory();
+
+        for (int i = 0; i < BENCHMARK_ITERATIONS / 10; i++) {
+            translate(translatorFactory, factory, selectPart + " " + baseQuery);
+            hqlQueryService.getCountString(true, selectPart, baseQuery);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            translate(translatorFactory, factory, selectPart + " " + baseQuery);
+        }
+        long withoutCache = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            hqlQueryService.getCountString(true, selectPart, baseQuery);
+        }
+        long withCache = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        LOGGER.info("getCountString: без кэша {} нс, с кэшем {} нс", withoutCache, withCache);
+        // время зависит от нагрузки, поэтому проверяется только то, что трансляция не повторялась
+        Assertions.assertEquals(1, hqlQueryService.getCountSqlCacheStats().missCount());
+    }
+
+    private String translate(ASTQueryTranslatorFactory translatorFactory, SessionFactoryImplementor factory, String hql) {
+        QueryTranslator translator = translatorFactory.createQueryTranslator("", hql, Collections.EMPTY_MAP, factory, null);
+        translator.compile(Collections.EMPTY_MAP, false);
+        return "select count(1) from (" + translator.getSQLString() + ") q";
+    }
+}
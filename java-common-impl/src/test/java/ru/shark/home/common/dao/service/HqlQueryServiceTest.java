@@ -2,6 +2,7 @@ package ru.shark.home.common.dao.service;
 
 import ru.shark.home.common.QueryUtils;
 import org.hibernate.Session;
+import org.hibernate.SessionFactoryObserver;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
@@ -14,6 +15,7 @@ import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.common.RequestFilter;
 import ru.shark.home.common.dao.common.RequestSearch;
 import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.dto.TestSetProjectionDto;
 import ru.shark.home.common.dao.repository.query.ParamsQuery;
 import ru.shark.home.common.dao.repository.query.ParsedQuery;
 import ru.shark.home.common.dao.repository.query.generator.HqlFilterClauseGenerator;
@@ -23,16 +25,21 @@ import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
 import ru.shark.home.common.enums.FieldType;
 
 import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static ru.shark.home.common.common.ErrorConstants.PROJECTION_GROUP_NOT_SUPPORTED;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_LIKE_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SIMPLE_SEARCH_LEFT;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -308,7 +315,7 @@ public class HqlQueryServiceTest {
         Assertions.assertNotNull(paramsQuery);
         Assertions.assertEquals(expected, paramsQuery.getQueryString());
         Assertions.assertEquals(expectedCount, paramsQuery.getCountQueryString());
-        Assertions.assertEquals(params, paramsQuery.getParams());
+        Assertions.assertEquals(withSearchValue(params), paramsQuery.getParams());
     }
 
     @Test
@@ -336,7 +343,7 @@ public class HqlQueryServiceTest {
         Assertions.assertNotNull(paramsQuery);
         Assertions.assertEquals(expected, paramsQuery.getQueryString());
         Assertions.assertEquals(expectedCount, paramsQuery.getCountQueryString());
-        Assertions.assertEquals(params, paramsQuery.getParams());
+        Assertions.assertEquals(withSearchValue(params), paramsQuery.getParams());
     }
 
     @Test
@@ -422,7 +429,169 @@ public class HqlQueryServiceTest {
         Assertions.assertNotNull(paramsQuery);
         Assertions.assertEquals(expected, paramsQuery.getQueryString());
         Assertions.assertEquals(expectedCount, paramsQuery.getCountQueryString());
-        Assertions.assertEquals(params, paramsQuery.getParams());
+        Assertions.assertEquals(withSearchValue(params), paramsQuery.getParams());
+    }
+
+    @Test
+    public void generateParamsQueryWithFetchJoin() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("select s from SetEntity s join fetch s.series se where s.year = :year");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("name", "ASC")));
+
+        // WHEN
+        ParamsQuery paramsQuery = hqlQueryService.generateParamsQuery(parsedQuery, request, Map.of("year", 2020));
+
+        // THEN
+        Assertions.assertTrue(paramsQuery.isDeferredFetch());
+        Assertions.assertEquals("select s.id from SetEntity s join s.series se where s.year = :year order by s.name asc",
+                paramsQuery.getIdQueryString());
+        Assertions.assertEquals("select s from SetEntity s join fetch s.series se where s.id in (:deferred_ids_)",
+                paramsQuery.getFetchQueryString());
+        Assertions.assertEquals("select count(1) from SetEntity s join s.series se where s.year = :year",
+                paramsQuery.getCountQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithFetchJoinAndOtherSelect() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("select se from SetEntity s join fetch s.series se");
+
+        // WHEN
+        ParamsQuery paramsQuery = hqlQueryService.generateParamsQuery(parsedQuery, new RequestCriteria(0, 10));
+
+        // THEN
+        Assertions.assertFalse(paramsQuery.isDeferredFetch());
+    }
+
+    @Test
+    public void createProjectionQuery() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("select s from SetEntity s join fetch s.series se where s.year = :year");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("name", "ASC")));
+
+        // WHEN
+        ParsedQuery projectionQuery = hqlQueryService.createProjectionQuery(parsedQuery, TestSetProjectionDto.class);
+        ParamsQuery paramsQuery = hqlQueryService.generateParamsQuery(projectionQuery, request, Map.of("year", 2020));
+
+        // THEN
+        Assertions.assertFalse(paramsQuery.isDeferredFetch());
+        Assertions.assertEquals("select s.id as id, s.name as name, se.name as seriesName, s.year as year " +
+                "from SetEntity s join s.series se where s.year = :year order by s.name asc", paramsQuery.getQueryString());
+        Assertions.assertEquals("select count(1) from SetEntity s join s.series se where s.year = :year",
+                paramsQuery.getCountQueryString());
+    }
+
+    @Test
+    public void createProjectionQueryWithFields() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("select s from SetEntity s join s.series se");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFields(List.of("seriesName"));
+
+        // WHEN
+        ParsedQuery projectionQuery = hqlQueryService.createProjectionQuery(parsedQuery, TestSetProjectionDto.class);
+        ParamsQuery paramsQuery = hqlQueryService.generateParamsQuery(projectionQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select s.id as id, se.name as seriesName from SetEntity s join s.series se",
+                paramsQuery.getQueryString());
+    }
+
+    @Test
+    public void createProjectionQueryWithGroup() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("select se.name from SetEntity s join s.series se group by se.name");
+
+        // WHEN
+        UnsupportedOperationException exception = Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> hqlQueryService.createProjectionQuery(parsedQuery, TestSetProjectionDto.class));
+
+        // THEN
+        Assertions.assertEquals(PROJECTION_GROUP_NOT_SUPPORTED, exception.getMessage());
+    }
+
+    @Test
+    public void generateUpdateQuery() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("from SetEntity t");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFilters(List.of(new RequestFilter("code", FieldType.STRING, "=", "A")));
+
+        // WHEN
+        ParamsQuery paramsQuery = hqlQueryService.generateUpdateQuery(parsedQuery, request, Map.of("name", "new"));
+
+        // THEN
+        Assertions.assertEquals("update SetEntity t set t.name = :set_name where (" +
+                MessageFormat.format(FILTER_STRING_EQ_TPL, "t.code", "code") + ")", paramsQuery.getQueryString());
+        Assertions.assertEquals(Map.of("set_name", "new", "filter_code", "A"), paramsQuery.getParams());
+    }
+
+    @Test
+    public void generateUpdateQueryWithInvalidField() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("from SetEntity t");
+
+        // WHEN
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> hqlQueryService.generateUpdateQuery(parsedQuery, new RequestCriteria(0, 10),
+                        Map.of("name = 'x', t.code", "new")));
+
+        // THEN
+        Assertions.assertTrue(exception.getMessage().contains("name = 'x'"));
+    }
+
+    @Test
+    public void generateDeleteQuery() {
+        // GIVEN
+        ParsedQuery parsedQuery = hqlQueryService.parseQuery("from SetEntity t");
+
+        // WHEN
+        ParamsQuery paramsQuery = hqlQueryService.generateDeleteQuery(parsedQuery, new RequestCriteria(0, 10));
+
+        // THEN
+        Assertions.assertEquals("delete from SetEntity t", paramsQuery.getQueryString());
+    }
+
+    @Test
+    public void getCountStringWithCache() {
+        // GIVEN
+        List<String> parts = expectedParts();
+        String expected = parts.get(0) + " " + parts.get(1) + " " + parts.get(3);
+        hqlQueryService.setQueryTranslatorFactory(QueryUtils.prepareTranslatorFactory(expected));
+        String expectedCount = "select count(1) from (" + expected + ") q";
+
+        // WHEN
+        String first = hqlQueryService.getCountString(true, parts.get(0), parts.get(1) + " " + parts.get(3));
+        String second = hqlQueryService.getCountString(true, parts.get(0), parts.get(1) + " " + parts.get(3));
+
+        // THEN
+        Assertions.assertEquals(expectedCount, first);
+        Assertions.assertEquals(expectedCount, second);
+        Assertions.assertEquals(1, hqlQueryService.getCountSqlCacheStats().hitCount());
+    }
+
+    @Test
+    public void getCountStringWithOtherSessionFactory() {
+        // GIVEN
+        List<String> parts = expectedParts();
+        hqlQueryService.setQueryTranslatorFactory(QueryUtils.prepareTranslatorFactory("sql"));
+        SessionFactoryImplementor first = session.unwrap(SessionImplementor.class).getFactory();
+        hqlQueryService.getCountString(true, parts.get(0), parts.get(1));
+        long hitCount = hqlQueryService.getCountSqlCacheStats().hitCount();
+        SessionImplementor sessionImplementor = mock(SessionImplementor.class);
+        SessionFactoryImplementor second = mock(SessionFactoryImplementor.class);
+        when(sessionImplementor.getFactory()).thenReturn(second);
+        when(session.unwrap(eq(SessionImplementor.class))).thenReturn(sessionImplementor);
+
+        // WHEN
+        hqlQueryService.getCountString(true, parts.get(0), parts.get(1));
+
+        // THEN
+        Assertions.assertEquals(hitCount, hqlQueryService.getCountSqlCacheStats().hitCount());
+        verify(first).addObserver(any(SessionFactoryObserver.class));
+        verify(second).addObserver(any(SessionFactoryObserver.class));
     }
 
     @Test
@@ -461,4 +630,10 @@ public class HqlQueryServiceTest {
                 "group by s.id, s.name",
                 "order by s.id desc");
     }
+
+    private Map<String, Object> withSearchValue(Map<String, Object> params) {
+        Map<String, Object> result = new HashMap<>(params);
+        result.put(SEARCH_PARAM, "val");
+        return result;
+    }
 }
@@ -0,0 +1,92 @@
+package ru.shark.home.common.dao.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.exception.CommonException;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NamedQueryPrecompilerTest {
+
+    private ParsedQueryCache cache;
+    private HqlQueryService hqlQueryService;
+    private SqlQueryService sqlQueryService;
+
+    @BeforeEach
+    public void initMethod() {
+        cache = new ParsedQueryCache();
+        hqlQueryService = new HqlQueryService();
+        hqlQueryService.setQueryClauseGenerator(new QueryClauseGenerator());
+        sqlQueryService = new SqlQueryService();
+        sqlQueryService.setQueryClauseGenerator(new QueryClauseGenerator());
+    }
+
+    @Test
+    public void precompile() {
+        // GIVEN
+        NamedQueryPrecompiler precompiler = new NamedQueryPrecompiler(prepareFactory(ValidQueries.class),
+                hqlQueryService, sqlQueryService, cache, 2);
+
+        // WHEN
+        precompiler.precompile();
+
+        // THEN
+        Assertions.assertEquals(Set.of("ValidQueries.hql", "ValidQueries.list", "ValidQueries.sql"),
+                precompiler.getParseTimes().keySet());
+        Assertions.assertEquals(3, cache.size());
+        ParsedQuery parsedQuery = cache.get("ValidQueries.hql", false, List.of("name"), null, () -> {
+            throw new IllegalStateException();
+        });
+        Assertions.assertEquals("from SetEntity s", parsedQuery.getFromPart().getValue());
+        Assertions.assertEquals(List.of("name"), parsedQuery.getSearchFields());
+    }
+
+    @Test
+    public void precompileWithInvalidQuery() {
+        // GIVEN
+        NamedQueryPrecompiler precompiler = new NamedQueryPrecompiler(prepareFactory(InvalidQueries.class),
+                hqlQueryService, sqlQueryService, cache, 2);
+
+        // WHEN
+        CommonException exception = Assertions.assertThrows(CommonException.class, precompiler::precompile);
+
+        // THEN
+        Assertions.assertTrue(exception.getMessage().contains("InvalidQueries.noFrom"));
+        Assertions.assertFalse(exception.getMessage().contains("InvalidQueries.valid"));
+    }
+
+    private EntityManagerFactory prepareFactory(Class<?> type) {
+        EntityManagerFactory factory = mock(EntityManagerFactory.class);
+        Metamodel metamodel = mock(Metamodel.class);
+        ManagedType managedType = mock(ManagedType.class);
+        when(managedType.getJavaType()).thenReturn(type);
+        when(metamodel.getManagedTypes()).thenReturn(Set.of(managedType));
+        when(factory.getMetamodel()).thenReturn(metamodel);
+        return factory;
+    }
+
+    @NamedQuery(name = "ValidQueries.hql", query = "select s from SetEntity s where s.id = :id")
+    @NamedQuery(name = "ValidQueries.list", query = "from SetEntity s order by s.name")
+    @NamedNativeQuery(name = "ValidQueries.sql", query = "select id, name from sets order by name")
+    private static class ValidQueries {
+    }
+
+    @NamedQuery(name = "InvalidQueries.valid", query = "select s from SetEntity s")
+    @NamedQuery(name = "InvalidQueries.noFrom", query = "select 1")
+    private static class InvalidQueries {
+    }
+}
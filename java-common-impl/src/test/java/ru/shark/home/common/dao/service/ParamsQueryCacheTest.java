@@ -0,0 +1,134 @@
+package ru.shark.home.common.dao.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlSearchClauseGenerator;
+import ru.shark.home.common.enums.FieldType;
+
+import java.util.List;
+import java.util.Map;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParamsQueryCacheTest {
+
+    private SqlQueryService sqlQueryService;
+    private ParsedQuery parsedQuery;
+
+    @BeforeAll
+    public void init() {
+        sqlQueryService = new SqlQueryService();
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator()));
+        sqlQueryService.setQueryClauseGenerator(generator);
+        parsedQuery = sqlQueryService.parseQuery("select id, name from sets where code = :code", List.of("name"));
+    }
+
+    @BeforeEach
+    public void initMethod() {
+        sqlQueryService.setParamsQueryCache(new ParamsQueryCache());
+    }
+
+    @Test
+    public void generateParamsQueryWithSameShape() {
+        // GIVEN
+        RequestCriteria first = prepareCriteria("=", "1", "name", "DESC");
+        RequestCriteria second = prepareCriteria("=", "2", "name", "DESC");
+
+        // WHEN
+        ParamsQuery firstQuery = sqlQueryService.generateParamsQuery(parsedQuery, first, Map.of("code", "A"));
+        ParamsQuery secondQuery = sqlQueryService.generateParamsQuery(parsedQuery, second, Map.of("code", "B"));
+
+        // THEN
+        Assertions.assertSame(firstQuery.getQueryString(), secondQuery.getQueryString());
+        Assertions.assertSame(firstQuery.getCountQueryString(), secondQuery.getCountQueryString());
+        Assertions.assertEquals(Map.of("code", "A", "filter_id", 1L), firstQuery.getParams());
+        Assertions.assertEquals(Map.of("code", "B", "filter_id", 2L), secondQuery.getParams());
+        Assertions.assertEquals(1, sqlQueryService.getParamsQueryCache().getHitCount());
+        Assertions.assertEquals(1, sqlQueryService.getParamsQueryCache().getMissCount());
+    }
+
+    @Test
+    public void generateParamsQueryWithDifferentShape() {
+        // GIVEN
+        RequestCriteria first = prepareCriteria("=", "1", "name", "DESC");
+        RequestCriteria otherOperation = prepareCriteria(">", "1", "name", "DESC");
+        RequestCriteria otherSort = prepareCriteria("=", "1", "name", "ASC");
+        RequestCriteria withSearch = prepareCriteria("=", "1", "name", "DESC");
+        withSearch.setSearch(new RequestSearch("val", false));
+
+        // WHEN
+        String firstQuery = sqlQueryService.generateParamsQuery(parsedQuery, first).getQueryString();
+        String otherOperationQuery = sqlQueryService.generateParamsQuery(parsedQuery, otherOperation).getQueryString();
+        String otherSortQuery = sqlQueryService.generateParamsQuery(parsedQuery, otherSort).getQueryString();
+        String withSearchQuery = sqlQueryService.generateParamsQuery(parsedQuery, withSearch).getQueryString();
+
+        // THEN
+        Assertions.assertNotEquals(firstQuery, otherOperationQuery);
+        Assertions.assertNotEquals(firstQuery, otherSortQuery);
+        Assertions.assertNotEquals(firstQuery, withSearchQuery);
+        Assertions.assertEquals(0, sqlQueryService.getParamsQueryCache().getHitCount());
+        Assertions.assertEquals(4, sqlQueryService.getParamsQueryCache().getMissCount());
+    }
+
+    @Test
+    public void getShapeWithSearchValue() {
+        // GIVEN
+        RequestCriteria first = new RequestCriteria(0, 10);
+        first.setSearch(new RequestSearch("a;oname|DESC;", false));
+        RequestCriteria second = new RequestCriteria(0, 10);
+        second.setSearch(new RequestSearch("b", false));
+        RequestCriteria equals = new RequestCriteria(0, 10);
+        equals.setSearch(new RequestSearch("b", true));
+
+        // WHEN
+        String firstShape = ParamsQueryCache.getShape(first);
+        String secondShape = ParamsQueryCache.getShape(second);
+        String equalsShape = ParamsQueryCache.getShape(equals);
+
+        // THEN
+        Assertions.assertEquals(firstShape, secondShape);
+        Assertions.assertNotEquals(secondShape, equalsShape);
+    }
+
+    @Test
+    public void generateParamsQueryWithDifferentSearchValues() {
+        // GIVEN
+        RequestCriteria first = new RequestCriteria(0, 10);
+        first.setSearch(new RequestSearch("first", false));
+        RequestCriteria second = new RequestCriteria(0, 10);
+        second.setSearch(new RequestSearch("second", false));
+
+        // WHEN
+        ParamsQuery firstQuery = sqlQueryService.generateParamsQuery(parsedQuery, first, Map.of("code", "A"));
+        ParamsQuery secondQuery = sqlQueryService.generateParamsQuery(parsedQuery, second, Map.of("code", "A"));
+
+        // THEN
+        Assertions.assertSame(firstQuery.getQueryString(), secondQuery.getQueryString());
+        Assertions.assertFalse(firstQuery.getQueryString().contains("first"));
+        Assertions.assertEquals(Map.of("code", "A", SEARCH_PARAM, "first"), firstQuery.getParams());
+        Assertions.assertEquals(Map.of("code", "A", SEARCH_PARAM, "second"), secondQuery.getCountParams());
+        Assertions.assertEquals(1, sqlQueryService.getParamsQueryCache().getHitCount());
+        Assertions.assertEquals(1, sqlQueryService.getParamsQueryCache().getMissCount());
+    }
+
+    private RequestCriteria prepareCriteria(String operation, String value, String sortField, String direction) {
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(new RequestFilter("id", FieldType.INTEGER, operation, value)));
+        criteria.setSorts(List.of(new RequestSort(sortField, direction)));
+        return criteria;
+    }
+}
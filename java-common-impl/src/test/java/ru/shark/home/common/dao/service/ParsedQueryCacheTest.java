@@ -0,0 +1,84 @@
+package ru.shark.home.common.dao.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParsedQueryCacheTest {
+
+    private ParsedQueryCache cache;
+
+    @BeforeEach
+    public void initMethod() {
+        cache = new ParsedQueryCache(2);
+    }
+
+    @Test
+    public void getParsesOnlyOnce() {
+        // GIVEN
+        AtomicInteger parseCount = new AtomicInteger();
+        List<String> searchFields = List.of("name");
+
+        // WHEN
+        ParsedQuery first = cache.get("query", false, searchFields, null, () -> {
+            parseCount.incrementAndGet();
+            return new ParsedQuery(searchFields, null);
+        });
+        ParsedQuery second = cache.get("query", false, List.of("name"), null, () -> {
+            parseCount.incrementAndGet();
+            return new ParsedQuery(searchFields, null);
+        });
+
+        // THEN
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, parseCount.get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void getWithDifferentKeys() {
+        // WHEN
+        ParsedQuery hql = cache.get("query", false, List.of("name"), null, () -> new ParsedQuery(null, null));
+        ParsedQuery sql = cache.get("query", true, List.of("name"), null, () -> new ParsedQuery(null, null));
+        ParsedQuery otherFields = cache.get("query", false, List.of("id"), null, () -> new ParsedQuery(null, null));
+
+        // THEN
+        Assertions.assertNotSame(hql, sql);
+        Assertions.assertNotSame(hql, otherFields);
+        Assertions.assertEquals(0, cache.getHitCount());
+        Assertions.assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void getNotAffectedBySearchFieldsChange() {
+        // GIVEN
+        List<String> searchFields = new ArrayList<>(List.of("name"));
+        ParsedQuery first = cache.get("query", false, searchFields, null, () -> new ParsedQuery(null, null));
+
+        // WHEN
+        searchFields.add("id");
+        ParsedQuery second = cache.get("query", false, List.of("name"), null, () -> new ParsedQuery(null, null));
+
+        // THEN
+        Assertions.assertSame(first, second);
+    }
+
+    @Test
+    public void getWithMaximumSize() {
+        // WHEN
+        cache.get("query1", false, null, null, () -> new ParsedQuery(null, null));
+        cache.get("query2", false, null, null, () -> new ParsedQuery(null, null));
+        cache.get("query3", false, null, null, () -> new ParsedQuery(null, null));
+
+        // THEN
+        Assertions.assertTrue(cache.size() <= 2);
+    }
+}
@@ -0,0 +1,134 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.repository.query.generator.HqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlSearchClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.Query;
+import java.util.List;
+import java.util.Map;
+
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
+
+/**
+ * Доля попаданий в кэш планов запросов Hibernate при поиске по разным значениям.
+ */
+public class QueryPlanCacheTest extends BaseJpaTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryPlanCacheTest.class);
+    private static final int SEARCH_VALUES = 50;
+
+    private HqlQueryService hqlQueryService;
+    private ParsedQuery parsedQuery;
+    private Statistics statistics;
+    private boolean statisticsEnabled;
+
+    @BeforeEach
+    public void initMethod() {
+        hqlQueryService = new HqlQueryService();
+        hqlQueryService.setEntityManager(em);
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new HqlSearchClauseGenerator(), new HqlFilterClauseGenerator(), new HqlOrderClauseGenerator()));
+        hqlQueryService.setQueryClauseGenerator(generator);
+        parsedQuery = hqlQueryService.parseQuery(em.unwrap(Session.class).getNamedQuery(TestSetEntity.LIST).getQueryString(),
+                List.of("name"));
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        TestSeriesEntity series = createSeries("series", createTheme("theme"));
+        createSet("set1", "1", 2020, series);
+        createSet("set2", "2", 2021, series);
+    }
+
+    @AfterEach
+    public void destroyMethod() {
+        statistics.setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @Test
+    public void searchWithBoundValue() {
+        // GIVEN
+        // план запроса мог быть закэширован другими тестами, поэтому учитываются только повторные выполнения
+        execute(hqlQueryService.generateParamsQuery(parsedQuery, prepareCriteria("set")));
+        statistics.clear();
+
+        // WHEN
+        for (int i = 0; i < SEARCH_VALUES; i++) {
+            execute(hqlQueryService.generateParamsQuery(parsedQuery, prepareCriteria("set" + i)));
+        }
+
+        // THEN
+        Assertions.assertEquals(0, statistics.getQueryPlanCacheMissCount());
+        Assertions.assertEquals(SEARCH_VALUES, statistics.getQueryPlanCacheHitCount());
+    }
+
+    /**
+     * Сравнение доли попаданий в кэш планов до и после передачи значения поиска параметром:
+     * значение, подставленное в текст запроса литералом, дает новый текст и новый план для каждого значения.
+     * Запускается при указании -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkHitRate() {
+        // GIVEN
+        execute(hqlQueryService.generateParamsQuery(parsedQuery, prepareCriteria("set")));
+
+        // WHEN
+        statistics.clear();
+        for (int i = 0; i < SEARCH_VALUES; i++) {
+            // до изменения значение поиска подставлялось в текст запроса
+            ParamsQuery query = hqlQueryService.generateParamsQuery(parsedQuery, prepareCriteria("literal" + i));
+            execute(query.getQueryString().replace(":" + SEARCH_PARAM, "'literal" + i + "'"), Map.of());
+        }
+        double literalHitRate = getHitRate();
+        statistics.clear();
+        for (int i = 0; i < SEARCH_VALUES; i++) {
+            execute(hqlQueryService.generateParamsQuery(parsedQuery, prepareCriteria("param" + i)));
+        }
+        double paramHitRate = getHitRate();
+
+        // THEN
+        LOGGER.info("Доля попаданий в кэш планов запросов: литерал {}, параметр {}", literalHitRate, paramHitRate);
+        Assertions.assertEquals(0.0, literalHitRate);
+        Assertions.assertEquals(1.0, paramHitRate);
+    }
+
+    private double getHitRate() {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    private RequestCriteria prepareCriteria(String value) {
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setSearch(new RequestSearch(value, false));
+        return criteria;
+    }
+
+    private void execute(ParamsQuery paramsQuery) {
+        execute(paramsQuery.getQueryString(), paramsQuery.getParams());
+    }
+
+    private void execute(String queryString, Map<String, Object> params) {
+        Query query = em.createQuery(queryString);
+        params.forEach(query::setParameter);
+        query.getResultList();
+    }
+}
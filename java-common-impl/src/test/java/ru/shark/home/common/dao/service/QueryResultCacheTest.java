@@ -0,0 +1,258 @@
+package ru.shark.home.common.dao.service;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.shark.home.common.dao.common.PageableList;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestSort;
+import ru.shark.home.common.dao.dto.TestSetDto;
+import ru.shark.home.common.dao.dto.TestSetProjectionDto;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.entity.TestThemeEntity;
+import ru.shark.home.common.dao.repository.query.ParamsQuery;
+import ru.shark.home.common.dao.repository.query.generator.HqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlKeysetClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.HqlSearchClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlKeysetClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlOrderClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlSearchClauseGenerator;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class QueryResultCacheTest extends BaseJpaTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private QueryResultCache queryResultCache;
+    private TestSetDao testSetDao;
+
+    @BeforeEach
+    public void initMethod() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        HqlQueryService hqlQueryService = new HqlQueryService();
+        hqlQueryService.setEntityManager(em);
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new HqlSearchClauseGenerator(), new HqlFilterClauseGenerator(), new HqlOrderClauseGenerator(),
+                new HqlKeysetClauseGenerator()));
+        hqlQueryService.setQueryClauseGenerator(generator);
+        SqlQueryService sqlQueryService = new SqlQueryService();
+        QueryClauseGenerator sqlGenerator = new QueryClauseGenerator();
+        sqlGenerator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator(),
+                new SqlKeysetClauseGenerator()));
+        sqlQueryService.setQueryClauseGenerator(sqlGenerator);
+        queryResultCache = new QueryResultCache(entityManagerFactory);
+        testSetDao = new TestSetDao();
+        testSetDao.setEm(em);
+        testSetDao.setHqlQueryService(hqlQueryService);
+        testSetDao.setSqlQueryService(sqlQueryService);
+        testSetDao.setParsedQueryCache(new ParsedQueryCache());
+        testSetDao.setReadOnlyQueryExecutor(new ReadOnlyQueryExecutor(transactionManager, true));
+        testSetDao.setQueryResultCache(queryResultCache);
+        transactionTemplate.executeWithoutResult(status -> {
+            TestSeriesEntity series = createSeries("series", createTheme("theme"));
+            createSet("set1", "1", 2020, series);
+            createSet("set2", "2", 2021, series);
+        });
+    }
+
+    @AfterEach
+    public void destroyMethod() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from TestSetEntity").executeUpdate();
+            em.createQuery("delete from TestSeriesEntity").executeUpdate();
+            em.createQuery("delete from TestThemeEntity").executeUpdate();
+        });
+    }
+
+    @Test
+    public void getProjectionWithPaginationFromCache() {
+        // GIVEN
+        getProjection();
+
+        // WHEN
+        PageableList<TestSetProjectionDto> result = getProjection();
+
+        // THEN
+        Assertions.assertEquals(2, result.getData().size());
+        Assertions.assertEquals(2L, result.getTotalCount());
+        Assertions.assertEquals(1, queryResultCache.getHitCount());
+        Assertions.assertEquals(1, queryResultCache.getMissCount());
+        Assertions.assertEquals(0.5, queryResultCache.getHitRate());
+    }
+
+    @Test
+    public void getProjectionWithPaginationAfterSave() {
+        // GIVEN
+        getProjection();
+        saveSet("set3");
+
+        // WHEN
+        PageableList<TestSetProjectionDto> result = getProjection();
+
+        // THEN
+        Assertions.assertEquals(3, result.getData().size());
+        Assertions.assertEquals(3L, result.getTotalCount());
+        Assertions.assertEquals(0, queryResultCache.getHitCount());
+    }
+
+    @Test
+    public void getProjectionWithPaginationAfterExpireAndSave() {
+        // GIVEN
+        AtomicLong time = new AtomicLong();
+        queryResultCache = new QueryResultCache(entityManagerFactory, 10, 1000, new Ticker() {
+            @Override
+            public long read() {
+                return time.get();
+            }
+        });
+        testSetDao.setQueryResultCache(queryResultCache);
+        getProjection();
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        getProjection();
+        saveSet("set3");
+
+        // WHEN
+        PageableList<TestSetProjectionDto> result = getProjection();
+
+        // THEN
+        Assertions.assertEquals(3, result.getData().size());
+        Assertions.assertEquals(0, queryResultCache.getHitCount());
+        Assertions.assertEquals(3, queryResultCache.getMissCount());
+    }
+
+    @Test
+    public void getProjectionWithPaginationAfterUnrelatedEntityChange() {
+        // GIVEN
+        getProjection();
+        queryResultCache.invalidate(TestThemeEntity.class);
+
+        // WHEN
+        getProjection();
+
+        // THEN
+        Assertions.assertEquals(1, queryResultCache.getHitCount());
+    }
+
+    @Test
+    public void getNativeWithPaginationAfterJoinedEntityChange() {
+        // GIVEN
+        testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, getCriteria(), null, null, TestSetEntity.DTO_MAPPING);
+        testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, getCriteria(), null, null, TestSetEntity.DTO_MAPPING);
+        queryResultCache.invalidate(TestSeriesEntity.class);
+
+        // WHEN
+        PageableList<TestSetDto> result = testSetDao.getNativeWithPagination(TestSetEntity.NATIVE_LIST, getCriteria(),
+                null, null, TestSetEntity.DTO_MAPPING);
+
+        // THEN
+        Assertions.assertEquals(2, result.getData().size());
+        Assertions.assertEquals(1, queryResultCache.getHitCount());
+        Assertions.assertEquals(2, queryResultCache.getMissCount());
+    }
+
+    @Test
+    public void getProjectionWithPaginationInTransaction() {
+        // WHEN
+        transactionTemplate.executeWithoutResult(status -> {
+            getProjection();
+            getProjection();
+        });
+
+        // THEN
+        Assertions.assertEquals(0, queryResultCache.size());
+        Assertions.assertEquals(0, queryResultCache.getMissCount());
+    }
+
+    @Test
+    public void invalidateWithCascadedAssociation() {
+        // GIVEN
+        cacheThemeNames();
+
+        // WHEN
+        queryResultCache.invalidate(TestSeriesEntity.class);
+
+        // THEN
+        Assertions.assertEquals(0, queryResultCache.size());
+    }
+
+    @Test
+    public void invalidateWithNotCascadedAssociation() {
+        // GIVEN
+        cacheThemeNames();
+
+        // WHEN
+        queryResultCache.invalidate(TestSetEntity.class);
+
+        // THEN
+        Assertions.assertEquals(1, queryResultCache.size());
+    }
+
+    @Test
+    public void getWithPaginationNotCached() {
+        // WHEN
+        testSetDao.getWithPagination(TestSetEntity.LIST, getCriteria(), null, null);
+        testSetDao.getWithPagination(TestSetEntity.LIST, getCriteria(), null, null);
+
+        // THEN
+        Assertions.assertEquals(0, queryResultCache.size());
+        Assertions.assertEquals(0, queryResultCache.getMissCount());
+    }
+
+    @Test
+    public void getNativeTables() {
+        // WHEN
+        Set<String> tables = QueryResultCache.getNativeTables("select s.id from public.\"TEST_SET\" s " +
+                "left join test_series se on se.id = s.series_id where s.id in (select id from test_theme)");
+
+        // THEN
+        Assertions.assertEquals(Set.of("test_set", "test_series", "test_theme"), tables);
+    }
+
+    private void saveSet(String name) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TestSetEntity set = new TestSetEntity();
+            set.setName(name);
+            set.setCode(name);
+            set.setYear(2022);
+            set.setSeries(em.createQuery("select s from TestSeriesEntity s", TestSeriesEntity.class).getSingleResult());
+            testSetDao.save(set);
+        });
+    }
+
+    private void cacheThemeNames() {
+        queryResultCache.get("theme", new ParamsQuery("select t.name from TestThemeEntity t", null, false, null),
+                false, getCriteria(), () -> new PageableList<>(List.of("theme"), 1L));
+    }
+
+    private PageableList<TestSetProjectionDto> getProjection() {
+        return testSetDao.getProjectionWithPagination(TestSetEntity.LIST, getCriteria(), null, null,
+                TestSetProjectionDto.class);
+    }
+
+    private RequestCriteria getCriteria() {
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setSorts(List.of(new RequestSort("name", "ASC")));
+        return criteria;
+    }
+}
@@ -0,0 +1,111 @@
+package ru.shark.home.common.dao.service;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReadOnlyQueryExecutorTest extends BaseJpaTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private TestSetDao testSetDao;
+
+    @BeforeEach
+    public void initMethod() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        testSetDao = new TestSetDao();
+        testSetDao.setEm(em);
+        testSetDao.setReadOnlyQueryExecutor(new ReadOnlyQueryExecutor(transactionManager, true));
+        transactionTemplate.executeWithoutResult(status ->
+                createSet("set1", "1", 2020, createSeries("series", createTheme("theme"))));
+    }
+
+    @AfterEach
+    public void destroyMethod() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from TestSetEntity").executeUpdate();
+            em.createQuery("delete from TestSeriesEntity").executeUpdate();
+            em.createQuery("delete from TestThemeEntity").executeUpdate();
+        });
+    }
+
+    @Test
+    public void executeQueryInReadOnlyTransaction() {
+        // WHEN
+        List<Object> state = testSetDao.executeQuery(this::getSessionState);
+
+        // THEN
+        Assertions.assertEquals(List.of(true, FlushMode.MANUAL), state);
+    }
+
+    @Test
+    public void executeQueryWithReadOnlyQueriesDisabled() {
+        // GIVEN
+        testSetDao.setReadOnlyQueries(false);
+
+        // WHEN
+        List<Object> state = testSetDao.executeQuery(this::getSessionState);
+
+        // THEN
+        Assertions.assertEquals(List.of(false, FlushMode.AUTO), state);
+    }
+
+    @Test
+    public void executeQueryInCallerTransaction() {
+        // WHEN
+        List<Object> state = transactionTemplate.execute(status -> testSetDao.executeQuery(this::getSessionState));
+
+        // THEN
+        Assertions.assertEquals(List.of(false, FlushMode.AUTO), state);
+    }
+
+    @Test
+    public void executeQueryInOpenSessionAndSave() {
+        // GIVEN
+        EntityManager sessionEm = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(sessionEm));
+        try {
+            TestSetEntity entity = testSetDao.findAll().get(0);
+            entity.setName("changed");
+
+            // WHEN
+            transactionTemplate.executeWithoutResult(status -> testSetDao.save(entity));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            sessionEm.close();
+        }
+
+        // THEN
+        Assertions.assertEquals("changed", transactionTemplate.execute(status ->
+                em.createQuery("select s.name from TestSetEntity s", String.class).getSingleResult()));
+    }
+
+    /**
+     * Возвращает признак загрузки сущности только для чтения и режим сброса сессии.
+     */
+    private List<Object> getSessionState() {
+        TestSetEntity entity = testSetDao.findAll().get(0);
+        Session session = em.unwrap(Session.class);
+        return List.of(session.isReadOnly(entity), session.getHibernateFlushMode());
+    }
+}
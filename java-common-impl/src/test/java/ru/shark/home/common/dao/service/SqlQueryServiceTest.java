@@ -6,27 +6,40 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import ru.shark.home.common.dao.common.CountMode;
+import ru.shark.home.common.dao.common.KeysetToken;
 import ru.shark.home.common.dao.common.RequestCriteria;
 import ru.shark.home.common.dao.common.RequestFilter;
 import ru.shark.home.common.dao.common.RequestSearch;
 import ru.shark.home.common.dao.common.RequestSort;
 import ru.shark.home.common.dao.repository.query.ParamsQuery;
 import ru.shark.home.common.dao.repository.query.ParsedQuery;
+import ru.shark.home.common.dao.repository.query.generator.PostgreSqlSearchDialect;
 import ru.shark.home.common.dao.repository.query.generator.QueryClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.SqlFilterClauseGenerator;
+import ru.shark.home.common.dao.repository.query.generator.SqlKeysetClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.SqlOrderClauseGenerator;
 import ru.shark.home.common.dao.repository.query.generator.SqlSearchClauseGenerator;
+import ru.shark.home.common.dao.util.ColumnNullability;
+import ru.shark.home.common.dao.util.InListPadding;
 import ru.shark.home.common.enums.FieldType;
 
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static ru.shark.home.common.common.ErrorConstants.KEYSET_GROUP_NOT_SUPPORTED;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.FILTER_STRING_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_EQ_TPL;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_LIKE_TPL;
+import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SEARCH_PARAM;
 import static ru.shark.home.common.dao.repository.query.generator.GeneratorConstants.SIMPLE_SEARCH_LEFT;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -40,7 +53,8 @@ public class SqlQueryServiceTest {
         session = mock(Session.class);
         sqlQueryService = new SqlQueryService();
         QueryClauseGenerator generator = new QueryClauseGenerator();
-        generator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator()));
+        generator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator(),
+                new SqlKeysetClauseGenerator()));
         sqlQueryService.setQueryClauseGenerator(generator);
 
     }
@@ -294,7 +308,7 @@ public class SqlQueryServiceTest {
         Assertions.assertNotNull(paramsQuery);
         Assertions.assertEquals(expected, paramsQuery.getQueryString());
         Assertions.assertEquals(expectedCount, paramsQuery.getCountQueryString());
-        Assertions.assertEquals(params, paramsQuery.getParams());
+        Assertions.assertEquals(withSearchValue(params), paramsQuery.getParams());
     }
 
     @Test
@@ -321,7 +335,7 @@ public class SqlQueryServiceTest {
         Assertions.assertNotNull(paramsQuery);
         Assertions.assertEquals(expected, paramsQuery.getQueryString());
         Assertions.assertEquals(expectedCount, paramsQuery.getCountQueryString());
-        Assertions.assertEquals(params, paramsQuery.getParams());
+        Assertions.assertEquals(withSearchValue(params), paramsQuery.getParams());
     }
 
     @Test
@@ -378,6 +392,76 @@ public class SqlQueryServiceTest {
         Assertions.assertEquals(params, paramsQuery.getParams());
     }
 
+    @Test
+    public void generateParamsQueryWithInFilterPadding() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select id, name from sets");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFilters(List.of(new RequestFilter("id", FieldType.INTEGER, "in", "1;2;3")));
+        SqlQueryService paddingQueryService = new SqlQueryService();
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator()));
+        paddingQueryService.setQueryClauseGenerator(generator);
+        paddingQueryService.setInListPadding(new InListPadding(InListPadding.DEFAULT_THRESHOLD));
+
+        // WHEN
+        ParamsQuery paramsQuery = paddingQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals(Map.of("filter_id", List.of(1L, 2L, 3L, 3L)), paramsQuery.getParams());
+    }
+
+    @Test
+    public void generateParamsQueryWithLongInFilter() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select id, name from sets");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFilters(List.of(new RequestFilter("id", FieldType.INTEGER, "in",
+                LongStream.rangeClosed(1, 2500).mapToObj(String::valueOf).collect(Collectors.joining(";")))));
+        SqlQueryService paddingQueryService = new SqlQueryService();
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator()));
+        paddingQueryService.setQueryClauseGenerator(generator);
+        paddingQueryService.setInListPadding(new InListPadding(InListPadding.DEFAULT_THRESHOLD));
+
+        // WHEN
+        ParamsQuery paramsQuery = paddingQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select id, name from sets where ((id in (:filter_id_0) or id in (:filter_id_1) " +
+                "or id in (:filter_id_2)))", paramsQuery.getQueryString());
+        Assertions.assertEquals(Set.of("filter_id_0", "filter_id_1", "filter_id_2"), paramsQuery.getParams().keySet());
+        Assertions.assertEquals(1000, ((List<?>) paramsQuery.getParams().get("filter_id_0")).size());
+        Assertions.assertEquals(1001L, ((List<?>) paramsQuery.getParams().get("filter_id_1")).get(0));
+        Assertions.assertEquals(500, ((List<?>) paramsQuery.getParams().get("filter_id_2")).size());
+    }
+
+    @Test
+    public void generateParamsQueryWithInFilter() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select id, name from sets");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFilters(List.of(new RequestFilter("id", FieldType.INTEGER, "in", "1;2;3")));
+        SqlQueryService arrayQueryService = new SqlQueryService();
+        SqlFilterClauseGenerator arrayFilterGenerator = new SqlFilterClauseGenerator();
+        arrayFilterGenerator.setSearchDialect(new PostgreSqlSearchDialect());
+        QueryClauseGenerator arrayGenerator = new QueryClauseGenerator();
+        arrayGenerator.setGenerators(List.of(new SqlSearchClauseGenerator(), arrayFilterGenerator, new SqlOrderClauseGenerator()));
+        arrayQueryService.setQueryClauseGenerator(arrayGenerator);
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+        ParamsQuery arrayParamsQuery = arrayQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select id, name from sets where (id in (:filter_id))", paramsQuery.getQueryString());
+        Assertions.assertEquals(Map.of("filter_id", List.of(1L, 2L, 3L)), paramsQuery.getParams());
+        Assertions.assertEquals("select id, name from sets where (id = any(cast(string_to_array(:filter_id_array, ';') as bigint[])))",
+                arrayParamsQuery.getQueryString());
+        Assertions.assertEquals(Map.of("filter_id_array", "1;2;3"), arrayParamsQuery.getParams());
+        Assertions.assertEquals(Map.of("filter_id_array", "1;2;3"), arrayParamsQuery.getCountParams());
+    }
+
     @Test
     public void generateParamsQueryWithoutWherePartAndFilterAndSearchAndOrder() {
         // GIVEN
@@ -404,7 +488,7 @@ public class SqlQueryServiceTest {
         Assertions.assertNotNull(paramsQuery);
         Assertions.assertEquals(expected, paramsQuery.getQueryString());
         Assertions.assertEquals(expectedCount, paramsQuery.getCountQueryString());
-        Assertions.assertEquals(params, paramsQuery.getParams());
+        Assertions.assertEquals(withSearchValue(params), paramsQuery.getParams());
     }
 
     @Test
@@ -426,6 +510,198 @@ public class SqlQueryServiceTest {
 
     }
 
+    @Test
+    public void generateParamsQueryWithWindowCount() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select s.id, s.name from sets s order by s.name");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setCountMode(CountMode.WINDOW);
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertTrue(paramsQuery.isCountInQuery());
+        Assertions.assertEquals("select s.id, s.name, count(*) over() as total_count_ from sets s order by s.name",
+                paramsQuery.getQueryString());
+        Assertions.assertEquals("select count(1) from sets s", paramsQuery.getCountQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithFields() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select s.id, s.name, s.release_year, " +
+                "coalesce(s.code, 'a,b') as code_value, count(*) from sets s group by s.id, s.name, s.release_year, s.code");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFields(List.of("releaseYear"));
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select s.id, null as name, s.release_year, null as code_value, count(*) " +
+                "from sets s group by s.id, s.name, s.release_year, s.code", paramsQuery.getQueryString());
+        Assertions.assertEquals("select count(1) from (select s.id, s.name, s.release_year, " +
+                "coalesce(s.code, 'a,b') as code_value, count(*) from sets s group by s.id, s.name, s.release_year, s.code) q",
+                paramsQuery.getCountQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithFieldsAndKeyset() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select s.id, s.name, s.release_year, s.code from sets s");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("s.release_year", "ASC")));
+        request.setKeyset(true);
+        request.setFields(List.of("code"));
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select s.id, null as name, s.release_year, s.code from sets s " +
+                "order by s.release_year asc nulls last, id asc nulls last", paramsQuery.getQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithFieldsAndDistinct() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select distinct s.name, s.code from sets s");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setFields(List.of("code"));
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select distinct s.name, s.code from sets s", paramsQuery.getQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithWindowCountAndDistinct() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select distinct s.name from sets s");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setCountMode(CountMode.WINDOW);
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertFalse(paramsQuery.isCountInQuery());
+        Assertions.assertEquals("select distinct s.name from sets s", paramsQuery.getQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithKeyset() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select s.id, s.name from sets s where s.year = :year");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("s.name", "ASC")));
+        request.setKeysetTiebreaker("s.id");
+        request.setKeyset(true);
+        request.setContinuationToken(KeysetToken.encode(request.getEffectiveSorts(), List.of("set2", 2L)));
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request, Map.of("year", 2020));
+
+        // THEN
+        Assertions.assertEquals("select s.id, s.name from sets s where s.year = :year and ((s.name > :keyset_0 or s.name is null) or " +
+                "(s.name = :keyset_0 and (s.id > :keyset_1 or s.id is null))) " +
+                "order by s.name asc nulls last, s.id asc nulls last", paramsQuery.getQueryString());
+        Assertions.assertEquals("select count(1) from sets s where s.year = :year", paramsQuery.getCountQueryString());
+        Assertions.assertEquals(Map.of("year", 2020, "keyset_0", "set2", "keyset_1", 2L), paramsQuery.getParams());
+        Assertions.assertEquals(Map.of("year", 2020), paramsQuery.getCountParams());
+    }
+
+    @Test
+    public void generateParamsQueryWithKeysetAndRowValue() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select s.id, s.name, s.code from sets s left join series se " +
+                "on se.id = s.series_id");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("s.name", "ASC")));
+        request.setKeysetTiebreaker("s.id");
+        request.setKeyset(true);
+        request.setContinuationToken(KeysetToken.encode(request.getEffectiveSorts(), List.of("set2", 2L)));
+        RequestCriteria nullableRequest = new RequestCriteria(0, 10);
+        nullableRequest.setSorts(List.of(new RequestSort("s.code", "ASC")));
+        nullableRequest.setKeysetTiebreaker("s.id");
+        nullableRequest.setKeyset(true);
+        nullableRequest.setContinuationToken(KeysetToken.encode(nullableRequest.getEffectiveSorts(), List.of("2", 2L)));
+        SqlKeysetClauseGenerator keysetGenerator = new SqlKeysetClauseGenerator();
+        keysetGenerator.setRowValueComparison(true);
+        keysetGenerator.setColumnNullability(new ColumnNullability(Map.of("sets", Set.of("id", "name"))));
+        SqlQueryService rowValueQueryService = new SqlQueryService();
+        QueryClauseGenerator generator = new QueryClauseGenerator();
+        generator.setGenerators(List.of(new SqlSearchClauseGenerator(), new SqlFilterClauseGenerator(), new SqlOrderClauseGenerator(),
+                keysetGenerator));
+        rowValueQueryService.setQueryClauseGenerator(generator);
+
+        // WHEN
+        ParamsQuery paramsQuery = rowValueQueryService.generateParamsQuery(parsedQuery, request);
+        ParamsQuery nullableQuery = rowValueQueryService.generateParamsQuery(parsedQuery, nullableRequest);
+
+        // THEN
+        Assertions.assertEquals("select s.id, s.name, s.code from sets s left join series se on se.id = s.series_id " +
+                "where (s.name, s.id) > (:keyset_0, :keyset_1) order by s.name asc nulls last, s.id asc nulls last",
+                paramsQuery.getQueryString());
+        Assertions.assertEquals("select s.id, s.name, s.code from sets s left join series se on se.id = s.series_id " +
+                "where ((s.code > :keyset_0 or s.code is null) or (s.code = :keyset_0 and (s.id > :keyset_1 or s.id is null))) " +
+                "order by s.code asc nulls last, s.id asc nulls last", nullableQuery.getQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithKeysetAndMixedDirections() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select id, name from sets");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("name", "DESC")));
+        request.setKeyset(true);
+        request.setContinuationToken(KeysetToken.encode(request.getEffectiveSorts(), List.of("set2", 2L)));
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select id, name from sets where (name < :keyset_0 or (name = :keyset_0 and (id > :keyset_1 or id is null))) " +
+                "order by name desc nulls first, id asc nulls last", paramsQuery.getQueryString());
+    }
+
+    @Test
+    public void generateParamsQueryWithKeysetAndNullValue() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select id, name, code from sets");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setSorts(List.of(new RequestSort("name", "ASC"), new RequestSort("code", "DESC")));
+        request.setKeyset(true);
+        request.setContinuationToken(KeysetToken.encode(request.getEffectiveSorts(), Arrays.asList(null, null, 2L)));
+
+        // WHEN
+        ParamsQuery paramsQuery = sqlQueryService.generateParamsQuery(parsedQuery, request);
+
+        // THEN
+        Assertions.assertEquals("select id, name, code from sets where ((name is null and code is not null) or " +
+                "(name is null and code is null and (id > :keyset_2 or id is null))) " +
+                "order by name asc nulls last, code desc nulls first, id asc nulls last", paramsQuery.getQueryString());
+        Assertions.assertEquals(Map.of("keyset_2", 2L), paramsQuery.getParams());
+    }
+
+    @Test
+    public void generateParamsQueryWithKeysetAndGroupPart() {
+        // GIVEN
+        ParsedQuery parsedQuery = sqlQueryService.parseQuery("select name, count(1) from sets group by name");
+        RequestCriteria request = new RequestCriteria(0, 10);
+        request.setKeyset(true);
+
+        // WHEN
+        UnsupportedOperationException exception = Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> sqlQueryService.generateParamsQuery(parsedQuery, request));
+
+        // THEN
+        Assertions.assertEquals(KEYSET_GROUP_NOT_SUPPORTED, exception.getMessage());
+    }
+
     private List<String> testQueryParts() {
         return List.of("select max(id) as id, partColorId, userId, colorNumber, alternateColorNumber, number, alternateNumber,\n" +
                         "            categoryName, partName,\n" +
@@ -493,4 +769,10 @@ public class SqlQueryServiceTest {
                 "group by partColorId, userId, colorNumber, alternateColorNumber, number, alternateNumber, categoryName, partName",
                 "order by colorNumber, number");
     }
+
+    private Map<String, Object> withSearchValue(Map<String, Object> params) {
+        Map<String, Object> result = new HashMap<>(params);
+        result.put(SEARCH_PARAM, "val");
+        return result;
+    }
 }
@@ -0,0 +1,10 @@
+package ru.shark.home.common.dao.service;
+
+import ru.shark.home.common.dao.entity.TestSetEntity;
+
+public class TestSetDao extends BaseDao<TestSetEntity> {
+
+    public TestSetDao() {
+        super(TestSetEntity.class);
+    }
+}
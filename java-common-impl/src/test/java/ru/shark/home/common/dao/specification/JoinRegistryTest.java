@@ -0,0 +1,112 @@
+package ru.shark.home.common.dao.specification;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.shark.home.common.dao.common.RequestCriteria;
+import ru.shark.home.common.dao.common.RequestFilter;
+import ru.shark.home.common.dao.common.RequestSearch;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.util.SpecificationUtils;
+import ru.shark.home.common.enums.FieldType;
+import ru.shark.home.common.enums.FilterOperation;
+import ru.shark.home.common.util.BaseJpaTest;
+
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class JoinRegistryTest extends BaseJpaTest {
+    private static final Pattern JOIN_PATTERN = Pattern.compile("\\bjoin\\b", Pattern.CASE_INSENSITIVE);
+
+    @BeforeEach
+    public void initMethod() {
+        createSet("set1", "1", 2020, createSeries("series1", createTheme("theme1")));
+        createSet("set2", "2", 2020, createSeries("series2", createTheme("theme2")));
+        createSet("set3", "3", 2020, createSeries("other", createTheme("theme3")));
+        em.flush();
+    }
+
+    @Test
+    public void getPathWithFiltersSearchAndSortOnSameAssociation() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(
+                new RequestFilter("series.name", FieldType.STRING, FilterOperation.LIKE.getValue(), "series"),
+                new RequestFilter("series.theme.name", FieldType.STRING, FilterOperation.PREFIX.getValue(), "theme")));
+        Specification<TestSetEntity> specification = SpecificationUtils.andSpecifications(
+                new SpecificationRequest(criteria),
+                SpecificationUtils.searchSpecification(new RequestSearch("e", false), "series.name", "series.theme.name"));
+
+        // WHEN
+        TypedQuery<TestSetEntity> query = createQuery(specification, Sort.by("series.name"));
+        String sql = getSql(query);
+        List<String> names = query.getResultList().stream().map(TestSetEntity::getName).collect(Collectors.toList());
+
+        // THEN
+        Assertions.assertEquals(2, countJoins(sql));
+        Assertions.assertEquals(List.of("set1", "set2"), names);
+    }
+
+    @Test
+    public void getPathWithRepeatedAssociation() {
+        // GIVEN
+        RequestCriteria criteria = new RequestCriteria(0, 10);
+        criteria.setFilters(List.of(
+                new RequestFilter("series.name", FieldType.STRING, FilterOperation.PREFIX.getValue(), "series"),
+                new RequestFilter("series.name", FieldType.STRING, FilterOperation.LIKE.getValue(), "2"),
+                new RequestFilter("series.theme.id", FieldType.INTEGER, FilterOperation.EQ.getValue(),
+                        String.valueOf(em.createQuery("select s.series.theme.id from TestSetEntity s where s.name = 'set2'",
+                                Long.class).getSingleResult()))));
+
+        // WHEN
+        TypedQuery<TestSetEntity> query = createQuery(new SpecificationRequest(criteria), Sort.unsorted());
+        String sql = getSql(query);
+        List<TestSetEntity> result = query.getResultList();
+
+        // THEN
+        Assertions.assertEquals(1, countJoins(sql));
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("set2", result.get(0).getName());
+    }
+
+    private TypedQuery<TestSetEntity> createQuery(Specification<TestSetEntity> specification, Sort sort) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<TestSetEntity> query = builder.createQuery(TestSetEntity.class);
+        Root<TestSetEntity> root = query.from(TestSetEntity.class);
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+        return em.createQuery(query);
+    }
+
+    private String getSql(TypedQuery<?> query) {
+        String hql = query.unwrap(org.hibernate.query.Query.class).getQueryString();
+        return em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getQueryPlanCache()
+                .getHQLQueryPlan(hql, false, Collections.emptyMap()).getSqlStrings()[0];
+    }
+
+    private int countJoins(String sql) {
+        Matcher matcher = JOIN_PATTERN.matcher(sql);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+}
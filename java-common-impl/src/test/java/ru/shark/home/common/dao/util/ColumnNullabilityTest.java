@@ -0,0 +1,46 @@
+package ru.shark.home.common.dao.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+public class ColumnNullabilityTest {
+
+    private final ColumnNullability nullability = new ColumnNullability(Map.of(
+            "test_set", Set.of("id", "name"),
+            "test_series", Set.of("id")));
+
+    @Test
+    public void isNotNull() {
+        // GIVEN
+        String fromPart = "from public.\"TEST_SET\" s join test_series se on se.id = s.series_id";
+
+        // THEN
+        Assertions.assertTrue(nullability.isNotNull(fromPart, "s.name"));
+        Assertions.assertTrue(nullability.isNotNull(fromPart, "se.id"));
+        Assertions.assertFalse(nullability.isNotNull(fromPart, "s.code"));
+        Assertions.assertFalse(nullability.isNotNull(fromPart, "name"));
+        Assertions.assertFalse(nullability.isNotNull(fromPart, "lower(s.name)"));
+    }
+
+    @Test
+    public void isNotNullWithoutAlias() {
+        // THEN
+        Assertions.assertTrue(nullability.isNotNull("from test_set where name is not null", "name"));
+        Assertions.assertTrue(nullability.isNotNull("from test_set where name is not null", "test_set.id"));
+    }
+
+    @Test
+    public void isNotNullWithOuterJoin() {
+        // GIVEN
+        String leftJoin = "from test_set s left join test_series se on se.id = s.series_id";
+        String rightJoin = "from test_set s right outer join test_series se on se.id = s.series_id";
+
+        // THEN
+        Assertions.assertTrue(nullability.isNotNull(leftJoin, "s.id"));
+        Assertions.assertFalse(nullability.isNotNull(leftJoin, "se.id"));
+        Assertions.assertFalse(nullability.isNotNull(rightJoin, "s.id"));
+    }
+}
@@ -0,0 +1,296 @@
+package ru.shark.home.common.dao.util;
+
+import org.dozer.Mapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.shark.home.common.services.LogicTestDto;
+import ru.shark.home.common.services.LogicTestEntity;
+import ru.shark.home.common.services.TestEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CompiledMappingEngineTest {
+
+    @Test
+    public void mapEntityToDto() {
+        // GIVEN
+        CompiledMappingEngine engine = new CompiledMappingEngine(null);
+        LogicTestEntity entity = new LogicTestEntity();
+        entity.setId(1L);
+        entity.setName("Bop");
+        entity.setTestEnum(TestEnum.V2);
+        entity.setIntField(100);
+        entity.setLongField(200L);
+
+        // WHEN
+        LogicTestDto dto = engine.map(entity, LogicTestDto.class);
+
+        // THEN
+        Assertions.assertTrue(engine.isCompiled(LogicTestEntity.class, LogicTestDto.class));
+        Assertions.assertEquals(1L, dto.getId());
+        Assertions.assertEquals("Bop", dto.getName());
+        Assertions.assertEquals(TestEnum.V2, dto.getTestEnum());
+        Assertions.assertEquals(100, dto.getIntField());
+        Assertions.assertEquals(200L, dto.getLongField());
+        Assertions.assertNull(dto.getInnerDto());
+    }
+
+    @Test
+    public void mapNestedObjectsAndCollections() {
+        // GIVEN
+        CompiledMappingEngine engine = new CompiledMappingEngine(null);
+        SourceBean source = new SourceBean();
+        source.setCount(3);
+        source.setType(TestEnum.V1);
+        source.setInner(prepareInner("first"));
+        source.setItems(List.of(prepareInner("second"), prepareInner("third")));
+        source.setTags(Set.of("tag"));
+
+        // WHEN
+        TargetBean target = engine.map(source, TargetBean.class);
+
+        // THEN
+        Assertions.assertTrue(engine.isCompiled(SourceBean.class, TargetBean.class));
+        Assertions.assertEquals(3, target.getCount());
+        Assertions.assertEquals("V1", target.getType());
+        Assertions.assertEquals("first", target.getInner().getName());
+        Assertions.assertEquals(2, target.getItems().size());
+        Assertions.assertEquals("second", target.getItems().get(0).getName());
+        Assertions.assertEquals("third", target.getItems().get(1).getName());
+        Assertions.assertEquals(Set.of("tag"), target.getTags());
+        Assertions.assertNotSame(source.getTags(), target.getTags());
+    }
+
+    @Test
+    public void mapWithCyclicReferences() {
+        // GIVEN
+        CompiledMappingEngine engine = new CompiledMappingEngine(null);
+        SourceNode parent = new SourceNode();
+        SourceNode child = new SourceNode();
+        child.setParent(parent);
+        parent.getChildren().add(child);
+
+        // WHEN
+        TargetNode result = engine.map(parent, TargetNode.class);
+
+        // THEN
+        Assertions.assertEquals(1, result.getChildren().size());
+        Assertions.assertSame(result, result.getChildren().get(0).getParent());
+    }
+
+    @Test
+    public void mapWithFallback() {
+        // GIVEN
+        Mapper fallback = mock(Mapper.class);
+        TargetInner expected = new TargetInner();
+        when(fallback.map(any(), eq(TargetInner.class))).thenReturn(expected);
+        CompiledMappingEngine engine = new CompiledMappingEngine(fallback);
+        engine.setFallbackTypes(List.of(TargetInner.class));
+
+        // WHEN
+        TargetInner result = engine.map(prepareInner("name"), TargetInner.class);
+
+        // THEN
+        Assertions.assertFalse(engine.isCompiled(SourceInner.class, TargetInner.class));
+        Assertions.assertSame(expected, result);
+        verify(fallback, times(1)).map(any(), eq(TargetInner.class));
+    }
+
+    @Test
+    public void mapWithIncompatiblePropertyTypes() {
+        // GIVEN
+        CompiledMappingEngine engine = new CompiledMappingEngine(null);
+
+        // WHEN
+        UnsupportedOperationException exception = Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> engine.map(new SourceBean(), SourceInner.class));
+
+        // THEN
+        Assertions.assertFalse(engine.isCompiled(SourceBean.class, SourceInner.class));
+        Assertions.assertTrue(exception.getMessage().contains(SourceInner.class.getName()));
+    }
+
+    private SourceInner prepareInner(String name) {
+        SourceInner inner = new SourceInner();
+        inner.setName(name);
+        return inner;
+    }
+
+    public static class SourceBean {
+        private int count;
+        private TestEnum type;
+        private SourceInner inner;
+        private List<SourceInner> items;
+        private Set<String> tags;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public TestEnum getType() {
+            return type;
+        }
+
+        public void setType(TestEnum type) {
+            this.type = type;
+        }
+
+        public SourceInner getInner() {
+            return inner;
+        }
+
+        public void setInner(SourceInner inner) {
+            this.inner = inner;
+        }
+
+        public List<SourceInner> getItems() {
+            return items;
+        }
+
+        public void setItems(List<SourceInner> items) {
+            this.items = items;
+        }
+
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(Set<String> tags) {
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return "bean";
+        }
+    }
+
+    public static class TargetBean {
+        private Integer count;
+        private String type;
+        private TargetInner inner;
+        private List<TargetInner> items;
+        private Set<String> tags;
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public TargetInner getInner() {
+            return inner;
+        }
+
+        public void setInner(TargetInner inner) {
+            this.inner = inner;
+        }
+
+        public List<TargetInner> getItems() {
+            return items;
+        }
+
+        public void setItems(List<TargetInner> items) {
+            this.items = items;
+        }
+
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(Set<String> tags) {
+            this.tags = tags;
+        }
+    }
+
+    public static class SourceInner {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setCount(Long count) {
+        }
+    }
+
+    public static class TargetInner {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class SourceNode {
+        private SourceNode parent;
+        private List<SourceNode> children = new ArrayList<>();
+
+        public SourceNode getParent() {
+            return parent;
+        }
+
+        public void setParent(SourceNode parent) {
+            this.parent = parent;
+        }
+
+        public List<SourceNode> getChildren() {
+            return children;
+        }
+
+        public void setChildren(List<SourceNode> children) {
+            this.children = children;
+        }
+    }
+
+    public static class TargetNode {
+        private TargetNode parent;
+        private List<TargetNode> children;
+
+        public TargetNode getParent() {
+            return parent;
+        }
+
+        public void setParent(TargetNode parent) {
+            this.parent = parent;
+        }
+
+        public List<TargetNode> getChildren() {
+            return children;
+        }
+
+        public void setChildren(List<TargetNode> children) {
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.shark.home.common.dao.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.shark.home.common.enums.FieldType;
+import ru.shark.home.common.services.LogicTestDto;
+import ru.shark.home.common.services.LogicTestEntity;
+import ru.shark.home.common.services.LogicTestInnerDto;
+import ru.shark.home.common.services.LogicTestInnerEntity;
+import ru.shark.home.common.services.TestEnum;
+
+public class FilterMetadataRegistryTest {
+
+    @Test
+    public void getField() {
+        // WHEN
+        FilterFieldMetadata name = FilterMetadataRegistry.getField(LogicTestEntity.class, "name");
+        FilterFieldMetadata longField = FilterMetadataRegistry.getField(LogicTestEntity.class, "longField");
+        FilterFieldMetadata testEnum = FilterMetadataRegistry.getField(LogicTestEntity.class, "testEnum");
+        FilterFieldMetadata inner = FilterMetadataRegistry.getField(LogicTestEntity.class, "innerEntity");
+
+        // THEN
+        Assertions.assertEquals(FieldType.STRING, name.getFieldType());
+        Assertions.assertEquals("val", name.parse("val"));
+        Assertions.assertEquals(FieldType.INTEGER, longField.getFieldType());
+        Assertions.assertEquals(10L, longField.parse("10"));
+        Assertions.assertEquals(FieldType.ENUM, testEnum.getFieldType());
+        Assertions.assertEquals(TestEnum.class, testEnum.getEnumClass());
+        Assertions.assertEquals(TestEnum.V2, testEnum.parse("V2"));
+        Assertions.assertNull(inner.getFieldType());
+        Assertions.assertSame(name, FilterMetadataRegistry.getField(LogicTestEntity.class, "name"));
+    }
+
+    @Test
+    public void getFieldWithPathAndEntityClass() {
+        // WHEN
+        FilterFieldMetadata nested = FilterMetadataRegistry.getField(LogicTestDto.class, "innerDto.id");
+        FilterFieldMetadata entityField = FilterMetadataRegistry.getField(LogicTestInnerDto.class, "name");
+        FilterFieldMetadata unknown = FilterMetadataRegistry.getField(LogicTestDto.class, "innerDto.unknown.id");
+
+        // THEN
+        Assertions.assertEquals(FieldType.INTEGER, nested.getFieldType());
+        Assertions.assertEquals(LogicTestInnerEntity.class, entityField.getField().getDeclaringClass());
+        Assertions.assertNull(unknown);
+    }
+}
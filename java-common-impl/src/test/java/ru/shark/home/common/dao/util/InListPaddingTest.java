@@ -0,0 +1,59 @@
+package ru.shark.home.common.dao.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class InListPaddingTest {
+
+    @Test
+    public void getPaddedSize() {
+        // GIVEN
+        InListPadding padding = new InListPadding(16);
+
+        // WHEN
+        int one = padding.getPaddedSize(1);
+        int three = padding.getPaddedSize(3);
+        int eight = padding.getPaddedSize(8);
+        int nine = padding.getPaddedSize(9);
+        int aboveThreshold = padding.getPaddedSize(17);
+
+        // THEN
+        Assertions.assertEquals(1, one);
+        Assertions.assertEquals(4, three);
+        Assertions.assertEquals(8, eight);
+        Assertions.assertEquals(16, nine);
+        Assertions.assertEquals(17, aboveThreshold);
+    }
+
+    @Test
+    public void getPaddedSizeWithDefaultThreshold() {
+        // GIVEN
+        InListPadding padding = new InListPadding(InListPadding.DEFAULT_THRESHOLD);
+
+        // WHEN
+        int belowLimit = padding.getPaddedSize(600);
+        int limit = padding.getPaddedSize(1000);
+        int aboveLimit = padding.getPaddedSize(1500);
+        int aboveLimitThreshold = new InListPadding(5000).getPaddedSize(600);
+
+        // THEN
+        Assertions.assertEquals(1000, belowLimit);
+        Assertions.assertEquals(1000, limit);
+        Assertions.assertEquals(1500, aboveLimit);
+        Assertions.assertEquals(1000, aboveLimitThreshold);
+    }
+
+    @Test
+    public void pad() {
+        // GIVEN
+        InListPadding padding = new InListPadding(InListPadding.DEFAULT_THRESHOLD);
+
+        // WHEN
+        List<Long> result = padding.pad(List.of(1L, 2L, 3L, 4L, 5L));
+
+        // THEN
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 5L, 5L, 5L), result);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.shark.home.common.dao.util;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.Oracle10gDialect;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class NativeQueryUtilsTest {
+
+    @Test
+    public void getLimitedCountSql() {
+        // GIVEN
+        String sql = "select 1 from sets s where s.name = :name";
+
+        // WHEN
+        String h2 = NativeQueryUtils.getLimitedCountSql(new H2Dialect(), sql, 11);
+        String oracle = NativeQueryUtils.getLimitedCountSql(new Oracle10gDialect(), sql, 11);
+
+        // THEN
+        Assertions.assertEquals("select count(1) from (select 1 from sets s where s.name = :name limit 11) q", h2);
+        Assertions.assertEquals("select count(1) from (select * from ( select 1 from sets s where s.name = :name ) " +
+                "where rownum <= 11) q", oracle);
+    }
+}
@@ -0,0 +1,130 @@
+package ru.shark.home.common.dao.util;
+
+import org.dozer.DozerBeanMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.shark.home.common.services.LogicTestDto;
+import ru.shark.home.common.services.LogicTestEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+
+public class ParallelConversionExecutorTest {
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void initMethod() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void destroyMethod() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void convert() {
+        // GIVEN
+        ParallelConversionExecutor executor = new ParallelConversionExecutor(pool, 10, 10,
+                ParallelConversionExecutor.EntityPolicy.DETACHED_ONLY);
+        List<Integer> source = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        List<String> result = executor.convert(source, value -> {
+            threads.add(Thread.currentThread().getName());
+            return String.valueOf(value);
+        });
+
+        // THEN
+        Assertions.assertEquals(source.size(), result.size());
+        for (int i = 0; i < source.size(); i++) {
+            Assertions.assertEquals(String.valueOf(i), result.get(i));
+        }
+        Assertions.assertTrue(threads.stream().allMatch(name -> name.startsWith("ForkJoinPool")));
+    }
+
+    @Test
+    public void isApplicable() {
+        // GIVEN
+        ParallelConversionExecutor detachedOnly = new ParallelConversionExecutor(pool, 100, 10,
+                ParallelConversionExecutor.EntityPolicy.DETACHED_ONLY);
+        ParallelConversionExecutor never = new ParallelConversionExecutor(pool, 100, 10,
+                ParallelConversionExecutor.EntityPolicy.NEVER);
+
+        // WHEN
+        boolean small = detachedOnly.isApplicable(99, false);
+        boolean detachedEntities = detachedOnly.isApplicable(100, true);
+        boolean neverEntities = never.isApplicable(100, true);
+        boolean neverDtos = never.isApplicable(100, false);
+
+        // THEN
+        Assertions.assertFalse(small);
+        Assertions.assertTrue(detachedEntities);
+        Assertions.assertFalse(neverEntities);
+        Assertions.assertTrue(neverDtos);
+    }
+
+    @Test
+    public void isApplicableWithBoundPersistenceContext() {
+        // GIVEN
+        ParallelConversionExecutor detachedOnly = new ParallelConversionExecutor(pool, 100, 10,
+                ParallelConversionExecutor.EntityPolicy.DETACHED_ONLY);
+        ParallelConversionExecutor always = new ParallelConversionExecutor(pool, 100, 10,
+                ParallelConversionExecutor.EntityPolicy.ALWAYS);
+        EntityManagerFactory factory = mock(EntityManagerFactory.class);
+        TransactionSynchronizationManager.bindResource(factory, new EntityManagerHolder(mock(EntityManager.class)));
+
+        try {
+            // WHEN
+            boolean detachedEntities = detachedOnly.isApplicable(100, true);
+            boolean detachedDtos = detachedOnly.isApplicable(100, false);
+            boolean alwaysEntities = always.isApplicable(100, true);
+
+            // THEN
+            Assertions.assertFalse(detachedEntities);
+            Assertions.assertTrue(detachedDtos);
+            Assertions.assertTrue(alwaysEntities);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(factory);
+        }
+    }
+
+    @Test
+    public void entityListToDtoListInParallel() {
+        // GIVEN
+        ConverterUtil converterUtil = new ConverterUtil();
+        converterUtil.setMapper(new DozerBeanMapper());
+        converterUtil.setParallelConversionExecutor(new ParallelConversionExecutor(pool, 10, 10,
+                ParallelConversionExecutor.EntityPolicy.DETACHED_ONLY));
+        List<LogicTestEntity> entities = IntStream.range(0, 100).mapToObj(i -> {
+            LogicTestEntity entity = new LogicTestEntity();
+            entity.setId((long) i);
+            entity.setName("name" + i);
+            return entity;
+        }).collect(Collectors.toList());
+
+        // WHEN
+        List<LogicTestDto> result = converterUtil.entityListToDtoList(entities, LogicTestDto.class);
+
+        // THEN
+        Assertions.assertEquals(entities.size(), result.size());
+        for (int i = 0; i < entities.size(); i++) {
+            Assertions.assertEquals((long) i, result.get(i).getId());
+            Assertions.assertEquals("name" + i, result.get(i).getName());
+        }
+    }
+}
@@ -8,6 +8,7 @@ import ru.shark.home.common.dao.common.RequestFilter;
 import ru.shark.home.common.dao.common.RequestSort;
 import ru.shark.home.common.enums.FieldType;
 import ru.shark.home.common.enums.FilterOperation;
+import ru.shark.home.common.enums.SearchMode;
 import ru.shark.home.common.services.dto.Filter;
 import ru.shark.home.common.services.dto.PageRequest;
 import ru.shark.home.common.services.dto.Search;
@@ -63,6 +64,47 @@ public class BaseLogicServiceTest extends BaseServiceTest {
         }
     }
 
+    @Test
+    public void getCriteriaWithSearchMode() {
+        // GIVEN
+        PageRequest request = new PageRequest(0, 10);
+        request.setSearch(new Search("str", SearchMode.PREFIX));
+
+        // WHEN
+        RequestCriteria criteria = baseLogicService.getCriteria(request, LogicTestEntity.class);
+
+        // THEN
+        assertEquals(SearchMode.PREFIX, criteria.getSearch().getMode());
+        assertEquals("str%", criteria.getSearch().getParamValue());
+    }
+
+    @Test
+    public void getCriteriaWithFields() {
+        // GIVEN
+        PageRequest request = new PageRequest(0, 10);
+        request.setFields(Arrays.asList("name", "intField", "name"));
+
+        // WHEN
+        RequestCriteria criteria = baseLogicService.getCriteria(request, LogicTestDto.class);
+
+        // THEN
+        assertEquals(Arrays.asList("name", "intField"), criteria.getFields());
+    }
+
+    @Test
+    public void getCriteriaWithNotAllowedField() {
+        // GIVEN
+        PageRequest request = new PageRequest(0, 10);
+        request.setFields(Arrays.asList("name", "innerDto"));
+
+        // WHEN
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> baseLogicService.getCriteria(request, LogicTestDto.class));
+
+        // THEN
+        assertTrue(exception.getMessage().contains("innerDto"));
+    }
+
     private void checkSort(Sort expected, RequestSort actual) {
         assertEquals(expected.getField(), actual.getField());
         if (isBlank(expected.getDirection())) {
@@ -0,0 +1,44 @@
+package ru.shark.home.common.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.shark.home.common.JpaTestConfiguration;
+import ru.shark.home.common.dao.entity.TestSeriesEntity;
+import ru.shark.home.common.dao.entity.TestSetEntity;
+import ru.shark.home.common.dao.entity.TestThemeEntity;
+
+import javax.persistence.EntityManager;
+
+@DataJpaTest
+@Import(JpaTestConfiguration.class)
+public abstract class BaseJpaTest {
+
+    @Autowired
+    protected EntityManager em;
+
+    protected TestThemeEntity createTheme(String name) {
+        TestThemeEntity theme = new TestThemeEntity();
+        theme.setName(name);
+        em.persist(theme);
+        return theme;
+    }
+
+    protected TestSeriesEntity createSeries(String name, TestThemeEntity theme) {
+        TestSeriesEntity series = new TestSeriesEntity();
+        series.setName(name);
+        series.setTheme(theme);
+        em.persist(series);
+        return series;
+    }
+
+    protected TestSetEntity createSet(String name, String code, Integer year, TestSeriesEntity series) {
+        TestSetEntity set = new TestSetEntity();
+        set.setName(name);
+        set.setCode(code);
+        set.setYear(year);
+        set.setSeries(series);
+        em.persist(set);
+        return set;
+    }
+}